@@ -0,0 +1,53 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceExportRow;
+import com.billingapp.service.ExportFormat;
+import com.billingapp.service.InvoiceExportWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialization cost of the streaming export, per 10,000 rows, without the database cursor
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportWriterBenchmark {
+
+    @Param({"CSV", "NDJSON"})
+    ExportFormat format;
+
+    private List<InvoiceExportRow> rows;
+
+    @Setup
+    public void setUp() {
+        rows = Fixtures.exportRows(1_000, 10);
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        OutputStream out = new BufferedOutputStream(OutputStream.nullOutputStream(), 64 * 1024);
+        try (InvoiceExportWriter writer = InvoiceExportWriter.create(format, out)) {
+            for (InvoiceExportRow row : rows) {
+                writer.write(row);
+            }
+        }
+        return rows.size();
+    }
+}
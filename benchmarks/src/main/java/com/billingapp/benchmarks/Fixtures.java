@@ -0,0 +1,74 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceExportRow;
+import com.billingapp.dto.InvoiceLine;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic sample data shared by the suites, so runs on different machines measure the same work
+final class Fixtures {
+    static final String CURRENCY = "INR";
+    private static final long SEED = 20_240_101L;
+
+    private Fixtures() {
+    }
+
+    static Invoice invoice(int lines) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Invoice invoice = new Invoice("Acme & Sons <Pvt> Ltd", BigDecimal.ZERO, new BigDecimal("18.00"),
+                new BigDecimal("25.00"), CURRENCY);
+        invoice.setId(42L);
+        invoice.setTitle("Benchmark invoice");
+        invoice.setStatus("Unpaid");
+        invoice.setInvoiceDate(new Date(1_700_000_000_000L));
+        for (int i = 0; i < lines; i++) {
+            InvoiceItem item = new InvoiceItem("Item " + i, price(random), 1 + random.nextInt(20), invoice);
+            item.setId((long) i + 1);
+            if (i % 5 == 0) {
+                item.setTaxPercentage(new BigDecimal("5.00"));
+            }
+            if (i % 7 == 0) {
+                item.setDiscountAmount(new BigDecimal("1.50"));
+            }
+            invoice.getItems().add(item);
+        }
+        invoice.calculateTotal();
+        return invoice;
+    }
+
+    static InvoiceDetail detail(int lines) {
+        return InvoiceDetail.from(invoice(lines));
+    }
+
+    static List<InvoiceLine> lines(int count) {
+        return detail(count).items();
+    }
+
+    // Export cursor rows: `invoices` invoices of `itemsPerInvoice` items each
+    static List<InvoiceExportRow> exportRows(int invoices, int itemsPerInvoice) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<InvoiceExportRow> rows = new ArrayList<>(invoices * itemsPerInvoice);
+        long itemId = 1;
+        for (long invoiceId = 1; invoiceId <= invoices; invoiceId++) {
+            for (int i = 0; i < itemsPerInvoice; i++) {
+                rows.add(new InvoiceExportRow(invoiceId, "Invoice " + invoiceId, "Customer, \"" + invoiceId + "\"",
+                        "Unpaid", CURRENCY, new BigDecimal("1234.50"), new BigDecimal("18.00"),
+                        new BigDecimal("222.21"), BigDecimal.ZERO, new BigDecimal("1456.71"), null, null, null, false,
+                        new Date(1_700_000_000_000L + invoiceId), 7L, itemId++,
+                        "Item " + i, price(random), 1 + random.nextInt(20), null, null));
+            }
+        }
+        return rows;
+    }
+
+    private static double price(SplittableRandom random) {
+        return random.nextInt(1, 1_000_000) / 100.0;
+    }
+}
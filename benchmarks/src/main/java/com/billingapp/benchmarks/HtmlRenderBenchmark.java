@@ -0,0 +1,86 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceLine;
+import com.billingapp.template.CharBufferPool;
+import com.billingapp.template.CompiledInvoiceTemplate;
+import com.billingapp.template.TemplateWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Print page rendering: the compiled, streamed template against the string concatenation the
+// /print endpoint used before it (quadratic in line count, kept here as the reference point).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlRenderBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int lines;
+
+    private InvoiceDetail invoice;
+    private CompiledInvoiceTemplate template;
+    private final CharBufferPool buffers = new CharBufferPool(1, 8192);
+    private final Writer sink = Writer.nullWriter();
+
+    @Setup
+    public void setUp() throws IOException {
+        invoice = Fixtures.detail(lines);
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("templates/invoice.html")) {
+            if (in == null) {
+                throw new IllegalStateException("templates/invoice.html is not on the classpath");
+            }
+            template = CompiledInvoiceTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public Writer compiledTemplate() {
+        try (TemplateWriter writer = new TemplateWriter(sink, buffers)) {
+            template.render(invoice, null, writer);
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @SuppressWarnings("StringConcatenationInLoop")
+    public Writer concatenation() {
+        String html = "<html><head><title>Invoice</title></head><body>"
+                + "<h2>Invoice #" + invoice.id() + "</h2>"
+                + "<p>Customer: " + invoice.customerName() + "</p>"
+                + "<h3>Items:</h3><ul>";
+        for (InvoiceLine item : invoice.items()) {
+            html += "<li>" + item.name() + " - " + item.quantity() + " x " + item.price() + " = " + item.lineTotal().toPlainString() + "</li>";
+        }
+        html += "</ul>"
+                + "<p>Tax: " + invoice.taxPercentage() + "%</p>"
+                + "<p>Discount: " + invoice.discountAmount() + "</p>"
+                + "<h3>Total: " + invoice.total() + " " + invoice.currency() + "</h3>"
+                + "</body></html>";
+        try {
+            sink.write(html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,119 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceLine;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.money.InvoiceTotals;
+import com.billingapp.money.MoneyMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Invoice.calculateTotal against the arithmetic it replaced: a BigDecimal per intermediate value
+// and plain doubles. The bare InvoiceTotals loop shows what the entity walk costs on top, and
+// compiledTaxRules what per-line rule lookup (category and price slab) and the GST split add to it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceTotalsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int lines;
+
+    private Invoice invoice;
+    private Invoice ruledInvoice;
+    private CompiledTaxRules rules;
+    private List<InvoiceLine> items;
+    private long[] unitPrices;
+    private long[] quantities;
+    private final InvoiceTotals totals = new InvoiceTotals(RoundingMode.HALF_UP);
+    private static final long RATE = MoneyMath.toRate(new BigDecimal("18.00"));
+    private static final BigDecimal RATE_DECIMAL = new BigDecimal("0.18");
+
+    @Setup
+    public void setUp() {
+        invoice = Fixtures.invoice(lines);
+        items = Fixtures.lines(lines);
+        unitPrices = new long[lines];
+        quantities = new long[lines];
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = MoneyMath.toMinor(items.get(i).price(), 2, RoundingMode.HALF_UP);
+            quantities[i] = items.get(i).quantity();
+        }
+
+        rules = CompiledTaxRules.compile("IN", 1, CompiledTaxRules.Split.GST, List.of(
+                new CompiledTaxRules.Slab("*", BigDecimal.ZERO, new BigDecimal("18")),
+                new CompiledTaxRules.Slab("APPAREL", BigDecimal.ZERO, new BigDecimal("5")),
+                new CompiledTaxRules.Slab("APPAREL", new BigDecimal("1000"), new BigDecimal("12")),
+                new CompiledTaxRules.Slab("FOOD", BigDecimal.ZERO, BigDecimal.ZERO)));
+        ruledInvoice = Fixtures.invoice(lines);
+        ruledInvoice.setSupplierState("KA");
+        String[] categories = {null, "APPAREL", "FOOD", "SERVICES"};
+        for (int i = 0; i < ruledInvoice.getItems().size(); i++) {
+            InvoiceItem item = ruledInvoice.getItems().get(i);
+            item.setTaxPercentage(null);
+            item.setTaxCategory(categories[i % categories.length]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        invoice.calculateTotal();
+        return invoice.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal compiledTaxRules() {
+        InvoiceCalculator.recalculate(ruledInvoice, rules);
+        return ruledInvoice.getTotal();
+    }
+
+    @Benchmark
+    public long totalsEngine() {
+        totals.reset(RoundingMode.HALF_UP);
+        for (int i = 0; i < unitPrices.length; i++) {
+            totals.addLine(unitPrices[i], quantities[i], 0, RATE);
+        }
+        return totals.total(0);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalPerLine() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        for (InvoiceLine line : items) {
+            BigDecimal net = BigDecimal.valueOf(line.price()).multiply(BigDecimal.valueOf(line.quantity()))
+                    .setScale(2, RoundingMode.HALF_UP);
+            subtotal = subtotal.add(net);
+            tax = tax.add(net.multiply(RATE_DECIMAL).setScale(2, RoundingMode.HALF_UP));
+        }
+        return subtotal.add(tax);
+    }
+
+    @Benchmark
+    public double doubles() {
+        double subtotal = 0;
+        for (InvoiceLine line : items) {
+            subtotal += line.price() * line.quantity();
+        }
+        return subtotal + subtotal * 0.18;
+    }
+}
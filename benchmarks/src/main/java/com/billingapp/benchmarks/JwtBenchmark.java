@@ -0,0 +1,55 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// HS256 signing at login and verification per request: a full parse and signature check on a
+// cache miss, and the verified-token lookup every later request with the same token gets
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, Duration.ofHours(1), 10_000);
+    // No cache entries are kept, so every authenticate verifies the signature
+    private final JwtUtil uncachedJwtUtil = new JwtUtil(SECRET, Duration.ofHours(1), 0);
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtUtil.generateToken(7L, "benchmark@example.com", false);
+        jwtUtil.authenticate(token);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken(7L, "benchmark@example.com", false);
+    }
+
+    @Benchmark
+    public JwtPrincipal verify() {
+        return uncachedJwtUtil.authenticate(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return jwtUtil.authenticate(token);
+    }
+}
@@ -0,0 +1,173 @@
+package com.billingapp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop HTTP load against a running instance, for comparing the default thread model with
+// the virtual-threads profile under the same traffic. Each of `concurrency` virtual-thread clients
+// sends the next request as soon as the previous one answers; the summary (throughput, latency
+// percentiles, 503 sheds, errors) is printed as JSON and optionally written to --out.
+//
+// Usage: LoadDriver --url http://localhost:8080/api/invoices?size=20 [--token JWT]
+//                   [--concurrency 200] [--duration PT30S] [--warmup PT5S] [--label platform] [--out file]
+public final class LoadDriver {
+
+    private LoadDriver() {
+    }
+
+    private static final class Worker {
+        long[] latencies = new long[4096];
+        int count;
+        long rejected;
+        long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        URI url = URI.create(require(options, "url"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT5S"));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(30)).GET();
+        if (options.containsKey("token")) {
+            builder.header("Authorization", "Bearer " + options.get("token"));
+        }
+        HttpRequest request = builder.build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(5)).build()) {
+            long start = System.nanoTime();
+            long measureFrom = start + warmup.toNanos();
+            long deadline = measureFrom + duration.toNanos();
+            List<Future<Worker>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> run(http, request, measureFrom, deadline)));
+            }
+            List<Worker> workers = new ArrayList<>(concurrency);
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+            report(options, concurrency, duration, workers);
+        }
+    }
+
+    private static Worker run(HttpClient http, HttpRequest request, long measureFrom, long deadline) {
+        Worker worker = new Worker();
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            boolean measured = now >= measureFrom;
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                long elapsed = System.nanoTime() - now;
+                if (!measured) {
+                    continue;
+                }
+                if (response.statusCode() == 503) {
+                    worker.rejected++;
+                } else if (response.statusCode() >= 400) {
+                    worker.errors++;
+                } else {
+                    worker.record(elapsed);
+                }
+            } catch (IOException e) {
+                if (measured) {
+                    worker.errors++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return worker;
+    }
+
+    private static void report(Map<String, String> options, int concurrency, Duration duration,
+                               List<Worker> workers) throws IOException {
+        int total = 0;
+        long rejected = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            total += worker.count;
+            rejected += worker.rejected;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("label", options.getOrDefault("label", "run"));
+        summary.put("url", options.get("url"));
+        summary.put("concurrency", concurrency);
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("requests", total);
+        summary.put("throughputPerSecond", total / (double) duration.toSeconds());
+        summary.put("rejected", rejected);
+        summary.put("errors", errors);
+        summary.put("p50Millis", percentile(latencies, 0.50));
+        summary.put("p90Millis", percentile(latencies, 0.90));
+        summary.put("p99Millis", percentile(latencies, 0.99));
+        summary.put("maxMillis", total == 0 ? 0 : latencies[total - 1] / 1_000_000.0);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(summary));
+        if (options.containsKey("out")) {
+            mapper.writeValue(new File(options.get("out")), summary);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String require(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,84 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.security.PasswordHashingService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Logins per second with more concurrent callers than hashing threads. "pooled" goes through
+// PasswordHashingService, whose bounded queue sheds the excess (counted as rejected, a 503 in the
+// API); "direct" hashes on the caller thread as request threads did before the pool.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @State(Scope.Benchmark)
+    public static class Hashing {
+        @Param({"10"})
+        int cost;
+
+        @Param({"4", "64"})
+        int queueCapacity;
+
+        BCryptPasswordEncoder encoder;
+        PasswordHashingService service;
+        String storedHash;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            encoder = new BCryptPasswordEncoder(cost);
+            service = new PasswordHashingService(encoder, 0, queueCapacity);
+            storedHash = encoder.encode(PASSWORD);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            service.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+    }
+
+    @Benchmark
+    public boolean pooled(Hashing hashing, Outcomes outcomes) {
+        try {
+            boolean matches = hashing.service.verify(PASSWORD, hashing.storedHash).join().matches();
+            outcomes.accepted++;
+            return matches;
+        } catch (RejectedExecutionException e) {
+            outcomes.rejected++;
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean direct(Hashing hashing) {
+        return hashing.encoder.matches(PASSWORD, hashing.storedHash);
+    }
+}
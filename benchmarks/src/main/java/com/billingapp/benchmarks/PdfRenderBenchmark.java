@@ -0,0 +1,49 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.service.PdfGeneratorService;
+import com.lowagie.text.DocumentException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// OpenPDF layout and encoding of one invoice (including its stage timer); output is discarded
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfRenderBenchmark {
+
+    @Param({"10", "500"})
+    int lines;
+
+    private final PdfGeneratorService pdfGeneratorService = new PdfGeneratorService(new BillingMetrics(new SimpleMeterRegistry()));
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private InvoiceDetail invoice;
+
+    @Setup
+    public void setUp() {
+        invoice = Fixtures.detail(lines);
+    }
+
+    @Benchmark
+    public OutputStream renderInvoice() throws DocumentException {
+        pdfGeneratorService.renderInvoice(invoice, sink);
+        return sink;
+    }
+}
@@ -0,0 +1,64 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.service.QrCodeGeneratorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Payment QR encoding (ZXing plus the monochrome PNG encoder) on a cache miss, and the cached
+// lookup a page view normally gets once the invoice has been prerendered
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrCodeBenchmark {
+    private static final int SIZE = QrCodeGeneratorService.PAYMENT_QR_SIZE;
+
+    private final BillingMetrics metrics = new BillingMetrics(new SimpleMeterRegistry());
+    // A zero-entry cache evicts on every put, so each call encodes
+    private final QrCodeGeneratorService uncached = new QrCodeGeneratorService(metrics, 0, false, 1, 1, "payee@upi", "Benchmark");
+    private final QrCodeGeneratorService cached = new QrCodeGeneratorService(metrics, 10_000, false, 1, 1, "payee@upi", "Benchmark");
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        payload = cached.paymentPayload(42L, new BigDecimal("1456.71"), Fixtures.CURRENCY);
+        cached.generateQrPng(payload, SIZE, SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        uncached.shutdown();
+        cached.shutdown();
+    }
+
+    @Benchmark
+    public byte[] encodePng() {
+        return uncached.generateQrPng(payload, SIZE, SIZE);
+    }
+
+    @Benchmark
+    public String encodeBase64() {
+        return uncached.generateQrCode(payload, SIZE, SIZE);
+    }
+
+    @Benchmark
+    public String cachedBase64() {
+        return cached.generateQrCode(payload, SIZE, SIZE);
+    }
+}
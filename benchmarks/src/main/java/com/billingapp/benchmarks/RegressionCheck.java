@@ -0,0 +1,94 @@
+package com.billingapp.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares a JMH JSON result (-rf json) with a baseline run and exits 1 when any benchmark got
+// slower by more than the tolerance. A difference inside both runs' error margins is not counted,
+// so noisy suites do not fail the build. Throughput modes are higher-is-better, the rest lower.
+//
+// Usage: RegressionCheck <baseline.json> <current.json> [tolerance, default 0.10]
+public final class RegressionCheck {
+
+    private RegressionCheck() {
+    }
+
+    private record Result(String mode, double score, double error, String unit) {
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: RegressionCheck <baseline.json> <current.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null || !before.mode().equals(now.mode()) || !before.unit().equals(now.unit())) {
+                System.out.printf("NEW         %s  %.3f %s%n", entry.getKey(), now.score(), now.unit());
+                continue;
+            }
+            double change = (now.score() - before.score()) / before.score();
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean outsideError = now.higherIsBetter()
+                    ? now.score() + now.error() < before.score() - before.error()
+                    : now.score() - now.error() > before.score() + before.error();
+            boolean regressed = worse > tolerance && outsideError;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-11s %s  %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "REGRESSION" : "ok",
+                    entry.getKey(), before.score(), now.score(), now.unit(), change * 100);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("MISSING     %s%n", key);
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+
+    // Keyed by benchmark name plus its @Param values, e.g. "...HtmlRenderBenchmark.compiledTemplate{lines=1000}"
+    private static Map<String, Result> read(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : root) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (params.isObject() && !params.isEmpty()) {
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    sorted.put(field.getKey(), field.getValue().asText());
+                }
+                key.append(sorted.toString().replace(", ", ","));
+            }
+            JsonNode metric = run.path("primaryMetric");
+            // scoreError is "NaN" when there were too few iterations to estimate it
+            double error = metric.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(run.path("mode").asText(), metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+}
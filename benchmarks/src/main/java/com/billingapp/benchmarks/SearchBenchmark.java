@@ -0,0 +1,126 @@
+package com.billingapp.benchmarks;
+
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.search.InvoiceAnalyzers;
+import com.billingapp.search.InvoiceDocument;
+import com.billingapp.search.InvoiceSearchQuery;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Search latency over an in-memory copy of the invoice index layout: typeahead on a short
+// prefix, a two-word full-text query, and the same query narrowed by status and date
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+    private static final String[] WORDS = {"acme", "global", "north", "star", "river", "stone", "blue", "pixel",
+            "quantum", "harbor", "summit", "cedar", "falcon", "delta", "orbit", "maple", "silver", "prime",
+            "vertex", "lotus", "consulting", "traders", "labs", "systems", "foods", "logistics", "studio"};
+    private static final String[] ITEMS = {"hosting", "support", "licence", "design", "audit", "training",
+            "cement", "steel", "cable", "laptop", "monitor", "printer", "paper", "delivery", "installation"};
+
+    @Param({"100000", "1000000"})
+    int invoices;
+
+    private final Analyzer analyzer = InvoiceAnalyzers.words();
+    private final Sort byRelevance = new Sort(SortField.FIELD_SCORE);
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private Query typeahead;
+    private Query fullText;
+    private Query filtered;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = new ByteBuffersDirectory();
+        SplittableRandom random = new SplittableRandom(7);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(InvoiceAnalyzers.indexing())
+                .setRAMBufferSizeMB(256))) {
+            for (int i = 1; i <= invoices; i++) {
+                writer.addDocument(InvoiceDocument.of(invoice(i, random)));
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        InvoiceFilter none = InvoiceFilter.none();
+        typeahead = InvoiceSearchQuery.filtered(InvoiceSearchQuery.text(analyzer, "qua", true), none);
+        fullText = InvoiceSearchQuery.filtered(InvoiceSearchQuery.text(analyzer, "harbor laptop", false), none);
+        filtered = InvoiceSearchQuery.filtered(InvoiceSearchQuery.text(analyzer, "harbor laptop", false),
+                new InvoiceFilter(null, "Unpaid", null, new Date(1_700_000_000_000L), new Date(1_710_000_000_000L)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public TopDocs typeahead() throws IOException {
+        return searcher.search(typeahead, 10, byRelevance, true);
+    }
+
+    @Benchmark
+    public TopDocs fullText() throws IOException {
+        return searcher.search(fullText, 10, byRelevance, true);
+    }
+
+    @Benchmark
+    public TopDocs fullTextFiltered() throws IOException {
+        return searcher.search(filtered, 10, byRelevance, true);
+    }
+
+    private static Invoice invoice(long id, SplittableRandom random) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setCustomerName(word(random, WORDS) + " " + word(random, WORDS) + " " + word(random, WORDS));
+        invoice.setTitle("Invoice " + id + " " + word(random, WORDS));
+        invoice.setStatus(random.nextInt(3) == 0 ? "Paid" : "Unpaid");
+        invoice.setCurrency(Fixtures.CURRENCY);
+        invoice.setTotal(BigDecimal.valueOf(random.nextInt(1, 10_000_000), 2));
+        invoice.setInvoiceDate(new Date(1_690_000_000_000L + random.nextLong(40_000_000_000L)));
+        for (int i = 0, n = random.nextInt(1, 6); i < n; i++) {
+            invoice.getItems().add(new InvoiceItem(word(random, ITEMS), 10, 1, invoice));
+        }
+        return invoice;
+    }
+
+    private static String word(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,28 @@
+package com.billingapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Application-level near cache (in front of Hibernate's second-level cache). Caches are
+// declared up front so actuator can bind their hit/miss/eviction metrics at startup; puts and
+// evictions are deferred to after commit by the transaction-aware proxy.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String INVOICE_DETAILS = "invoiceDetails";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${billing.cache.invoice-details.spec}") String invoiceDetailsSpec) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.setAllowNullValues(false);
+        caffeine.registerCustomCache(INVOICE_DETAILS, Caffeine.from(CaffeineSpec.parse(invoiceDetailsSpec)).build());
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
@@ -0,0 +1,26 @@
+package com.billingapp.config;
+
+import com.billingapp.metrics.QueryCountingStatementInspector;
+import com.billingapp.metrics.RequestTrace;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+// Per-request instrumentation hooks: SQL statements are counted against the request's trace,
+// and the trace follows work onto the MVC async executor (streamed bodies, async endpoints)
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounting() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountingStatementInspector());
+    }
+
+    // Boot applies a TaskDecorator bean to the auto-configured applicationTaskExecutor
+    @Bean
+    public TaskDecorator requestTraceTaskDecorator() {
+        return RequestTrace::wrap;
+    }
+}
@@ -0,0 +1,24 @@
+package com.billingapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// The STOMP broker registers its own TaskScheduler, which makes Boot skip the @Scheduled one; the jobs
+// would then share the broker's heartbeat threads. This declares it explicitly, sized by
+// spring.task.scheduling.pool.size (or on virtual threads under the virtual-threads profile).
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Bean
+    public TaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder platformThreads,
+                                       SimpleAsyncTaskSchedulerBuilder virtualThreads,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        return virtual ? virtualThreads.build() : platformThreads.build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.billingapp.config;
+
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.security.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.security.Principal;
+
+// STOMP over /ws. The handshake is open; the JWT is checked on CONNECT (Authorization native
+// header) and the session's user is the token's user id, so convertAndSendToUser(userId, ...)
+// reaches exactly that user's sessions. Clients may only subscribe to their /user/ queues.
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+
+    public WebSocketConfig(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/queue");
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor == null || accessor.getCommand() == null) {
+                    return message;
+                }
+                if (accessor.getCommand() == StompCommand.CONNECT) {
+                    accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+                } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+                    String destination = accessor.getDestination();
+                    if (accessor.getUser() == null || destination == null || !destination.startsWith("/user/")) {
+                        throw new MessageDeliveryException("Subscriptions are limited to /user/ destinations");
+                    }
+                }
+                return message;
+            }
+        });
+    }
+
+    private Principal authenticate(String header) {
+        if (header == null || !header.startsWith(BEARER)) {
+            throw new MessageDeliveryException("Missing bearer token");
+        }
+        try {
+            JwtPrincipal principal = jwtUtil.authenticate(header.substring(BEARER.length()));
+            String name = principal.userId().toString();
+            return () -> name;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new MessageDeliveryException("Invalid token");
+        }
+    }
+}
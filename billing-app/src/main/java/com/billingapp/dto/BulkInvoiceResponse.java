@@ -0,0 +1,10 @@
+package com.billingapp.dto;
+
+import java.util.List;
+
+public record BulkInvoiceResponse(
+        int created,
+        int rejected,
+        int failed,
+        List<BulkInvoiceResult> results) {
+}
@@ -0,0 +1,23 @@
+package com.billingapp.dto;
+
+// Outcome for one record of a bulk request, addressed by its position in the request
+public record BulkInvoiceResult(
+        int index,
+        Status status,
+        Long invoiceId,
+        String error) {
+
+    public enum Status { CREATED, REJECTED, FAILED }
+
+    public static BulkInvoiceResult created(int index, Long invoiceId) {
+        return new BulkInvoiceResult(index, Status.CREATED, invoiceId, null);
+    }
+
+    public static BulkInvoiceResult rejected(int index, String error) {
+        return new BulkInvoiceResult(index, Status.REJECTED, null, error);
+    }
+
+    public static BulkInvoiceResult failed(int index, String error) {
+        return new BulkInvoiceResult(index, Status.FAILED, null, error);
+    }
+}
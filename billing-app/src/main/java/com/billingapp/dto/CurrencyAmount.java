@@ -0,0 +1,8 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+
+public record CurrencyAmount(
+        String currency,
+        BigDecimal amount) {
+}
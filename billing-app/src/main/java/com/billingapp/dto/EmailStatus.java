@@ -0,0 +1,21 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.OutboundEmail;
+
+import java.time.Instant;
+
+public record EmailStatus(
+        Long id,
+        String recipient,
+        String status,
+        int attempts,
+        Instant createdAt,
+        Instant nextAttemptAt,
+        Instant sentAt,
+        String lastError) {
+
+    public static EmailStatus from(OutboundEmail email) {
+        return new EmailStatus(email.getId(), email.getRecipient(), email.getStatus().name(), email.getAttempts(),
+                email.getCreatedAt(), email.getNextAttemptAt(), email.getSentAt(), email.getLastError());
+    }
+}
@@ -0,0 +1,61 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.InvoiceEvent;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// One entry of a user's invoice change feed: the invoice's new version and totals, plus the
+// item ids touched when only lines changed. offset is 0 until the feed sequences the change.
+public record InvoiceChange(
+        long offset,
+        Long invoiceId,
+        long version,
+        Type type,
+        String status,
+        String currency,
+        BigDecimal subtotal,
+        BigDecimal taxAmount,
+        BigDecimal total,
+        List<Long> itemIds) {
+
+    public enum Type { CREATED, UPDATED, ITEMS_CHANGED, DELETED }
+
+    // Null for log events subscribers do not see (email delivery)
+    public static InvoiceChange of(InvoiceEvent event) {
+        Type type = switch (event.getType()) {
+            case CREATED -> Type.CREATED;
+            case UPDATED, STATUS_CHANGED, PAID -> Type.UPDATED;
+            case ITEMS_CHANGED -> Type.ITEMS_CHANGED;
+            case DELETED -> Type.DELETED;
+            case EMAIL_QUEUED, EMAIL_SENT, EMAIL_FAILED -> null;
+        };
+        if (type == null) {
+            return null;
+        }
+        List<Long> itemIds = event.getItemIds() == null ? List.of()
+                : Arrays.stream(event.getItemIds().split(",")).map(Long::valueOf).toList();
+        return new InvoiceChange(0, event.getInvoiceId(), event.getVersion(), type, event.getStatus(),
+                event.getCurrency(), event.getSubtotal(), event.getTaxAmount(), event.getTotal(), itemIds);
+    }
+
+    public InvoiceChange withOffset(long offset) {
+        return new InvoiceChange(offset, invoiceId, version, type, status, currency, subtotal, taxAmount, total, itemIds);
+    }
+
+    // Folds a later change to the same invoice into this one: the later state wins, touched item
+    // ids accumulate, and the type stays the strongest (a create or delete is never downgraded)
+    public InvoiceChange coalesce(InvoiceChange later) {
+        Type merged = later.type == Type.DELETED ? Type.DELETED
+                : type == Type.CREATED ? Type.CREATED
+                : type == Type.UPDATED || later.type == Type.UPDATED ? Type.UPDATED
+                : Type.ITEMS_CHANGED;
+        Set<Long> items = new LinkedHashSet<>(itemIds);
+        items.addAll(later.itemIds);
+        return new InvoiceChange(0, invoiceId, later.version, merged, later.status, later.currency,
+                later.subtotal, later.taxAmount, later.total, List.copyOf(items));
+    }
+}
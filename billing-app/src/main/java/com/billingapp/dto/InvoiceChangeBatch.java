@@ -0,0 +1,12 @@
+package com.billingapp.dto;
+
+import java.util.List;
+
+// Changes after `since`, up to and including `latest`. resync means the gap could not be
+// served (evicted, restarted or too large): refetch the invoice list and resume from latest.
+public record InvoiceChangeBatch(
+        long since,
+        long latest,
+        boolean resync,
+        List<InvoiceChange> changes) {
+}
@@ -0,0 +1,60 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.CurrencyScale;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.money.MoneyMath;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Immutable snapshot of an invoice and its lines. Safe to hand to worker threads
+// after the persistence context that loaded it has closed.
+public record InvoiceDetail(
+        Long id,
+        String title,
+        String customerName,
+        String status,
+        String currency,
+        BigDecimal subtotal,
+        BigDecimal taxPercentage,
+        BigDecimal taxAmount,
+        BigDecimal discountAmount,
+        BigDecimal total,
+        Date invoiceDate,
+        Long userId,
+        String logo,
+        List<InvoiceLine> items) {
+
+    // Flat rates only; an invoice with a tax jurisdiction needs the rules it was priced with
+    public static InvoiceDetail from(Invoice invoice) {
+        return from(invoice, null);
+    }
+
+    public static InvoiceDetail from(Invoice invoice, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        List<InvoiceLine> lines = new ArrayList<>(invoice.getItems().size());
+        for (InvoiceItem item : invoice.getItems()) {
+            InvoiceCalculator.Line line = InvoiceCalculator.line(invoice, item, rules);
+            lines.add(new InvoiceLine(item.getId(), item.getName(), item.getPrice(), item.getQuantity(),
+                    amount(item.getDiscountAmount(), scale), line.taxPercentage(), line.net(), line.tax()));
+        }
+        return new InvoiceDetail(invoice.getId(), invoice.getTitle(), invoice.getCustomerName(),
+                invoice.getStatus(), invoice.getCurrency(), amount(invoice.getSubtotal(), scale),
+                invoice.getTaxPercentage() == null
+                        ? null : MoneyMath.toPercent(MoneyMath.toRate(invoice.getTaxPercentage())),
+                amount(invoice.getTaxAmount(), scale), amount(invoice.getDiscountAmount(), scale),
+                amount(invoice.getTotal(), scale), invoice.getInvoiceDate(),
+                invoice.getUser() == null ? null : invoice.getUser().getId(), invoice.getLogo(), List.copyOf(lines));
+    }
+
+    // Columns hold scale 4; the snapshot (and so the PDF content hash) uses the currency's scale,
+    // whether the invoice was just calculated or read back
+    private static BigDecimal amount(BigDecimal value, int scale) {
+        return value == null ? null : value.setScale(scale, InvoiceCalculator.ROUNDING);
+    }
+}
@@ -0,0 +1,23 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.InvoiceEvent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One entry of an invoice's lifecycle history
+public record InvoiceEventView(
+        Long id,
+        InvoiceEvent.Type type,
+        long version,
+        String status,
+        BigDecimal total,
+        String currency,
+        String detail,
+        Instant createdAt) {
+
+    public static InvoiceEventView from(InvoiceEvent event) {
+        return new InvoiceEventView(event.getId(), event.getType(), event.getVersion(), event.getStatus(),
+                event.getTotal(), event.getCurrency(), event.getDetail(), event.getCreatedAt());
+    }
+}
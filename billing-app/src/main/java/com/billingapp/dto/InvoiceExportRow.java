@@ -0,0 +1,31 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+// One invoice x item row of the export cursor; item columns are null for invoices without items.
+// Carries every stored amount that feeds the totals, so exported lines can be reconciled with them.
+public record InvoiceExportRow(
+        Long invoiceId,
+        String title,
+        String customerName,
+        String status,
+        String currency,
+        BigDecimal subtotal,
+        BigDecimal taxPercentage,
+        BigDecimal taxAmount,
+        BigDecimal discountAmount,
+        BigDecimal total,
+        BigDecimal cgstAmount,
+        BigDecimal sgstAmount,
+        BigDecimal igstAmount,
+        boolean taxInclusive,
+        Date invoiceDate,
+        Long userId,
+        Long itemId,
+        String itemName,
+        Double itemPrice,
+        Integer itemQuantity,
+        BigDecimal itemDiscountAmount,
+        BigDecimal itemTaxPercentage) {
+}
@@ -0,0 +1,28 @@
+package com.billingapp.dto;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+// Optional listing filters; null fields are ignored. "to" is exclusive.
+public record InvoiceFilter(
+        Long userId,
+        String status,
+        String currency,
+        Date from,
+        Date to) {
+
+    // Inclusive calendar-day range from request parameters
+    public static InvoiceFilter of(Long userId, String status, String currency, LocalDate from, LocalDate to) {
+        return new InvoiceFilter(userId, status, currency, startOfDay(from),
+                to == null ? null : startOfDay(to.plusDays(1)));
+    }
+
+    public static InvoiceFilter none() {
+        return new InvoiceFilter(null, null, null, null, null);
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return date == null ? null : Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
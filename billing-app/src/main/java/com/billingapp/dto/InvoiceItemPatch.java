@@ -0,0 +1,45 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.InvoiceItem;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// A batch of line-item changes applied atomically to one invoice. expectedVersion is the
+// invoice version the client last saw; null skips the check.
+public record InvoiceItemPatch(
+        Long expectedVersion,
+        List<Operation> operations) {
+
+    public enum Op { ADD, UPDATE, REMOVE }
+
+    // For UPDATE, null fields keep their current value
+    public record Operation(
+            Op op,
+            Long itemId,
+            String name,
+            Double price,
+            Integer quantity,
+            BigDecimal taxPercentage,
+            BigDecimal discountAmount,
+            String taxCategory) {
+
+        public static Operation add(InvoiceItem item) {
+            return new Operation(Op.ADD, null, item.getName(), item.getPrice(), item.getQuantity(),
+                    item.getTaxPercentage(), item.getDiscountAmount(), item.getTaxCategory());
+        }
+
+        public static Operation update(Long itemId, InvoiceItem item) {
+            return new Operation(Op.UPDATE, itemId, item.getName(), item.getPrice(), item.getQuantity(),
+                    item.getTaxPercentage(), item.getDiscountAmount(), item.getTaxCategory());
+        }
+
+        public static Operation remove(Long itemId) {
+            return new Operation(Op.REMOVE, itemId, null, null, null, null, null, null);
+        }
+    }
+
+    public static InvoiceItemPatch of(Operation operation) {
+        return new InvoiceItemPatch(null, List.of(operation));
+    }
+}
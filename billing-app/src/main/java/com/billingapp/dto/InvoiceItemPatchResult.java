@@ -0,0 +1,14 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// New invoice totals and version after a patch; itemIds[i] is the item touched by operations[i]
+public record InvoiceItemPatchResult(
+        Long invoiceId,
+        long version,
+        BigDecimal subtotal,
+        BigDecimal taxAmount,
+        BigDecimal total,
+        List<Long> itemIds) {
+}
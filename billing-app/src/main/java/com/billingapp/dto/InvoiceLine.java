@@ -0,0 +1,20 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+
+// One line as priced on the invoice (InvoiceCalculator.line): net is after the line discount and
+// before tax, taxPercentage is the rate that applied; amounts are at the currency's scale
+public record InvoiceLine(
+        Long id,
+        String name,
+        double price,
+        int quantity,
+        BigDecimal discountAmount,
+        BigDecimal taxPercentage,
+        BigDecimal net,
+        BigDecimal taxAmount) {
+
+    public BigDecimal lineTotal() {
+        return net.add(taxAmount);
+    }
+}
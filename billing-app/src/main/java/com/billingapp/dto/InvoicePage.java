@@ -0,0 +1,10 @@
+package com.billingapp.dto;
+
+import java.util.List;
+
+// One keyset page; nextCursor is null on the last page
+public record InvoicePage(
+        List<InvoiceSummary> items,
+        int size,
+        String nextCursor) {
+}
@@ -0,0 +1,17 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+// One search match, built from the index alone (no database read); score is null for
+// filter-only searches, which are ordered by date
+public record InvoiceSearchHit(
+        Long id,
+        String title,
+        String customerName,
+        String status,
+        String currency,
+        BigDecimal total,
+        Date invoiceDate,
+        Float score) {
+}
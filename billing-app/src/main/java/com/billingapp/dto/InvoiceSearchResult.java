@@ -0,0 +1,10 @@
+package com.billingapp.dto;
+
+import java.util.List;
+
+// totalHits is exact up to 1,000 matches; past that it is a lower bound (totalExact = false)
+public record InvoiceSearchResult(
+        long totalHits,
+        boolean totalExact,
+        List<InvoiceSearchHit> hits) {
+}
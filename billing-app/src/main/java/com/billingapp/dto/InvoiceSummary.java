@@ -0,0 +1,24 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.Invoice;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+// Flat list-view row; never touches the items collection
+public record InvoiceSummary(
+        Long id,
+        String title,
+        String customerName,
+        String status,
+        String currency,
+        BigDecimal total,
+        Date invoiceDate,
+        Long userId) {
+
+    public static InvoiceSummary from(Invoice invoice) {
+        return new InvoiceSummary(invoice.getId(), invoice.getTitle(), invoice.getCustomerName(), invoice.getStatus(),
+                invoice.getCurrency(), invoice.getTotal(), invoice.getInvoiceDate(),
+                invoice.getUser() == null ? null : invoice.getUser().getId());
+    }
+}
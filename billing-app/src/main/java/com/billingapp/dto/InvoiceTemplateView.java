@@ -0,0 +1,11 @@
+package com.billingapp.dto;
+
+import java.time.Instant;
+
+// A user's template as stored (custom=false: the built-in layout is in use); also the PUT body
+public record InvoiceTemplateView(
+        String source,
+        String logo,
+        boolean custom,
+        Instant updatedAt) {
+}
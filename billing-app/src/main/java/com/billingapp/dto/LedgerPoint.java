@@ -0,0 +1,18 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Amounts in `currency`, converted at the rate effective on each bucket's date. complete=false
+// when some bucket's currency had no rate to `currency` and was left out.
+public record LedgerPoint(
+        LocalDate periodStart,
+        String currency,
+        BigDecimal income,
+        BigDecimal expenses,
+        boolean complete) {
+
+    public BigDecimal getProfit() {
+        return income.subtract(expenses);
+    }
+}
@@ -0,0 +1,18 @@
+package com.billingapp.dto;
+
+import java.time.Instant;
+
+public record PdfBatchJobStatus(
+        String jobId,
+        String state,
+        String delivery,
+        long queued,
+        long rendered,
+        long failed,
+        long bytesWritten,
+        Instant startedAt,
+        Instant finishedAt,
+        long elapsedMillis,
+        double invoicesPerSecond,
+        String error) {
+}
@@ -0,0 +1,15 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Open (unpaid) invoice totals by age of the invoice date, one row per currency
+public record ReceivablesAgeing(
+        String currency,
+        LocalDate asOf,
+        BigDecimal current,
+        BigDecimal days31To60,
+        BigDecimal days61To90,
+        BigDecimal over90,
+        BigDecimal total) {
+}
@@ -0,0 +1,11 @@
+package com.billingapp.dto;
+
+import java.time.Instant;
+
+// Schedule for a recurring invoice: Spring cron (6 fields, e.g. "0 0 0 1 * *" = midnight on the 1st),
+// the zone it is evaluated in (defaults to UTC) and an optional end
+public record RecurringInvoiceRequest(
+        String cron,
+        String zone,
+        Instant endsAt) {
+}
@@ -0,0 +1,20 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.RecurringInvoiceRun;
+
+import java.time.Instant;
+
+public record RecurringInvoiceRunView(
+        Long id,
+        Instant scheduledFor,
+        String status,
+        int attempts,
+        Long invoiceId,
+        Instant completedAt,
+        String lastError) {
+
+    public static RecurringInvoiceRunView from(RecurringInvoiceRun run) {
+        return new RecurringInvoiceRunView(run.getId(), run.getScheduledFor(), run.getStatus().name(),
+                run.getAttempts(), run.getInvoiceId(), run.getCompletedAt(), run.getLastError());
+    }
+}
@@ -0,0 +1,30 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.RecurringInvoice;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record RecurringInvoiceView(
+        Long id,
+        Long sourceInvoiceId,
+        String title,
+        String customerName,
+        String currency,
+        BigDecimal taxPercentage,
+        BigDecimal discountAmount,
+        int itemCount,
+        String cron,
+        String zone,
+        boolean active,
+        Instant nextRunAt,
+        Instant endsAt,
+        Instant createdAt) {
+
+    public static RecurringInvoiceView from(RecurringInvoice recurring) {
+        return new RecurringInvoiceView(recurring.getId(), recurring.getSourceInvoiceId(), recurring.getTitle(),
+                recurring.getCustomerName(), recurring.getCurrency(), recurring.getTaxPercentage(),
+                recurring.getDiscountAmount(), recurring.getItems().size(), recurring.getCron(), recurring.getZone(),
+                recurring.isActive(), recurring.getNextRunAt(), recurring.getEndsAt(), recurring.getCreatedAt());
+    }
+}
@@ -0,0 +1,15 @@
+package com.billingapp.dto;
+
+// Outcome of a bulk tax recalculation: invoices and lines visited, invoices rewritten (new amounts or
+// rule version), invoices left as they were because their chunk failed (e.g. on a concurrent edit)
+// and recurring schedules moved to the version
+public record TaxRecalculationResult(
+        String jurisdiction,
+        int version,
+        long invoices,
+        long lines,
+        long changed,
+        long failed,
+        long schedules,
+        long elapsedMillis) {
+}
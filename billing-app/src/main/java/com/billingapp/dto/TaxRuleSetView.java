@@ -0,0 +1,29 @@
+package com.billingapp.dto;
+
+import com.billingapp.model.TaxRuleSet;
+import com.billingapp.money.CompiledTaxRules;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+// A rule set as published; also the POST body (jurisdiction, split and rules; version is assigned)
+public record TaxRuleSetView(
+        String jurisdiction,
+        Integer version,
+        CompiledTaxRules.Split split,
+        Instant createdAt,
+        List<Rule> rules) {
+
+    public record Rule(String category, BigDecimal minUnitPrice, BigDecimal ratePercent) {
+    }
+
+    public static TaxRuleSetView from(TaxRuleSet set) {
+        List<Rule> rules = set.getRules().stream()
+                .map(r -> new Rule(r.getCategory(), r.getMinUnitPrice(), r.getRatePercent()))
+                .sorted(Comparator.comparing(Rule::category).thenComparing(Rule::minUnitPrice))
+                .toList();
+        return new TaxRuleSetView(set.getJurisdiction(), set.getVersion(), set.getSplit(), set.getCreatedAt(), rules);
+    }
+}
@@ -0,0 +1,10 @@
+package com.billingapp.dto;
+
+import java.math.BigDecimal;
+
+public record TopItem(
+        String name,
+        String currency,
+        BigDecimal revenue,
+        Long quantity) {
+}
@@ -0,0 +1,52 @@
+package com.billingapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// Stage timers for the hot paths (billing.stage{stage=...}). Each records into a histogram, so
+// p99 per stage can be aggregated across instances, and into the current RequestTrace if any.
+// Callers take System.nanoTime() and record() in a finally, so checked exceptions pass through.
+@Component
+public class BillingMetrics {
+    public static final String INVOICE_LOAD = "invoice.load";
+    public static final String INVOICE_TOTALS = "invoice.totals";
+    public static final String HTML_RENDER = "html.render";
+    public static final String PDF_RENDER = "pdf.render";
+    public static final String QR_ENCODE = "qr.encode";
+    public static final String EMAIL_SEND = "email.send";
+    public static final String SEARCH = "search.query";
+    public static final String RECURRING_GENERATE = "recurring.generate";
+    public static final String TAX_RECALCULATE = "tax.recalculate";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    public BillingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void record(String stage, long startedAt) {
+        long nanos = System.nanoTime() - startedAt;
+        stageTimers.computeIfAbsent(stage, this::newStageTimer).record(nanos, TimeUnit.NANOSECONDS);
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.stage(stage, nanos);
+        }
+    }
+
+    private Timer newStageTimer(String stage) {
+        return Timer.builder("billing.stage")
+                .description("Time spent in one stage of a billing operation")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(50_000))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(registry);
+    }
+}
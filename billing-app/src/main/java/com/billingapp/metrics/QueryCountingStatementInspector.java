@@ -0,0 +1,17 @@
+package com.billingapp.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts each SQL statement Hibernate prepares against the current request; the SQL is unchanged.
+// Statements on threads without a trace (schedulers, worker pools) only show in hibernate.* metrics.
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.queryExecuted();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,87 @@
+package com.billingapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Opens a RequestTrace per request and closes it when the response is done (after the async
+// dispatch for async and streamed endpoints). On close it records the statement count per
+// endpoint (billing.request.queries) and writes a trace line to the "billing.trace" logger for
+// a sample of requests and for every request slower than the threshold.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final Logger TRACE_LOG = LoggerFactory.getLogger("billing.trace");
+    private static final String TRACE_ATTRIBUTE = RequestTrace.class.getName();
+
+    private final MeterRegistry registry;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public RequestMetricsFilter(MeterRegistry registry,
+                                @Value("${billing.trace.sample-rate:0.01}") double sampleRate,
+                                @Value("${billing.trace.slow-threshold:PT1S}") Duration slowThreshold) {
+        this.registry = registry;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    // Runs again on the async dispatch, which is when an async request actually finishes
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = (RequestTrace) request.getAttribute(TRACE_ATTRIBUTE);
+        if (trace == null) {
+            trace = new RequestTrace();
+            request.setAttribute(TRACE_ATTRIBUTE, trace);
+        }
+        RequestTrace previous = RequestTrace.bind(trace);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTrace.bind(previous);
+            if (!request.isAsyncStarted()) {
+                complete(request, response, trace);
+            }
+        }
+    }
+
+    private void complete(HttpServletRequest request, HttpServletResponse response, RequestTrace trace) {
+        long elapsed = trace.elapsedNanos();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("billing.request.queries")
+                .description("SQL statements issued while serving one request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100, 500)
+                .register(registry)
+                .record(trace.queries());
+
+        if (elapsed >= slowThresholdNanos || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            TRACE_LOG.info("{} {} status={} time={}ms queries={} stages=[{}]", request.getMethod(),
+                    request.getRequestURI(), response.getStatus(), RequestTrace.millis(elapsed), trace.queries(),
+                    trace.describeStages());
+        }
+    }
+}
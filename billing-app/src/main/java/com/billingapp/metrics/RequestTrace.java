@@ -0,0 +1,99 @@
+package com.billingapp.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Where one request's time went: stage durations (summed per stage) and SQL statements issued.
+// Bound to the request thread by RequestMetricsFilter and carried onto MVC async threads by
+// wrap(), so streamed responses and async endpoints are attributed to the request that started them.
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final AtomicInteger queries = new AtomicInteger();
+    // ReentrantLock rather than synchronized so virtual threads never pin on it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    // Makes `trace` current on this thread and returns what was current before, for restoring
+    static RequestTrace bind(RequestTrace trace) {
+        RequestTrace previous = CURRENT.get();
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+        return previous;
+    }
+
+    // Runs `task` under the caller's trace, if it has one
+    public static Runnable wrap(Runnable task) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            RequestTrace previous = bind(trace);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    void queryExecuted() {
+        queries.incrementAndGet();
+    }
+
+    void stage(String name, long nanos) {
+        lock.lock();
+        try {
+            long[] totals = stages.computeIfAbsent(name, key -> new long[2]);
+            totals[0]++;
+            totals[1] += nanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queries() {
+        return queries.get();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    // "invoice.load=3.1ms html.render=5.0ms(x2)"
+    public String describeStages() {
+        lock.lock();
+        try {
+            StringBuilder out = new StringBuilder();
+            for (Map.Entry<String, long[]> entry : stages.entrySet()) {
+                if (!out.isEmpty()) {
+                    out.append(' ');
+                }
+                long[] totals = entry.getValue();
+                out.append(entry.getKey()).append('=').append(millis(totals[1])).append("ms");
+                if (totals[0] > 1) {
+                    out.append("(x").append(totals[0]).append(')');
+                }
+            }
+            return out.isEmpty() ? "-" : out.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
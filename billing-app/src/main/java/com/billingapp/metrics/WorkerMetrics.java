@@ -0,0 +1,84 @@
+package com.billingapp.metrics;
+
+import com.billingapp.security.JwtUtil;
+import com.billingapp.security.PasswordHashingService;
+import com.billingapp.service.InvoiceChangeFeed;
+import com.billingapp.service.InvoiceTemplateService;
+import com.billingapp.service.LruCache;
+import com.billingapp.service.MailDispatcher;
+import com.billingapp.service.PdfRenderService;
+import com.billingapp.service.QrCodeGeneratorService;
+import com.billingapp.service.RecurringInvoiceScheduler;
+import com.billingapp.service.TaxRuleService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+// Queue depths and busy workers of the async pools, plus hit ratios of the in-process caches
+// that are not Spring caches (those are bound by actuator). Cache meters use the same
+// cache.gets/cache.size names as actuator's, so one dashboard covers every cache.
+@Component
+public class WorkerMetrics implements MeterBinder {
+
+    private final PdfRenderService pdfRenderService;
+    private final PasswordHashingService passwordHashingService;
+    private final MailDispatcher mailDispatcher;
+    private final InvoiceTemplateService invoiceTemplateService;
+    private final InvoiceChangeFeed invoiceChangeFeed;
+    private final QrCodeGeneratorService qrCodeGeneratorService;
+    private final RecurringInvoiceScheduler recurringInvoiceScheduler;
+    private final TaxRuleService taxRuleService;
+    private final JwtUtil jwtUtil;
+
+    public WorkerMetrics(PdfRenderService pdfRenderService, PasswordHashingService passwordHashingService,
+                         MailDispatcher mailDispatcher, InvoiceTemplateService invoiceTemplateService,
+                         InvoiceChangeFeed invoiceChangeFeed, QrCodeGeneratorService qrCodeGeneratorService,
+                         RecurringInvoiceScheduler recurringInvoiceScheduler, TaxRuleService taxRuleService,
+                         JwtUtil jwtUtil) {
+        this.pdfRenderService = pdfRenderService;
+        this.passwordHashingService = passwordHashingService;
+        this.mailDispatcher = mailDispatcher;
+        this.invoiceTemplateService = invoiceTemplateService;
+        this.invoiceChangeFeed = invoiceChangeFeed;
+        this.qrCodeGeneratorService = qrCodeGeneratorService;
+        this.recurringInvoiceScheduler = recurringInvoiceScheduler;
+        this.taxRuleService = taxRuleService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("billing.executor.queued", pdfRenderService, PdfRenderService::queueDepth)
+                .description("Tasks waiting for a worker").tag("pool", "pdf-render").register(registry);
+        Gauge.builder("billing.executor.active", pdfRenderService, PdfRenderService::activeCount)
+                .description("Workers running a task").tag("pool", "pdf-render").register(registry);
+        Gauge.builder("billing.executor.queued", passwordHashingService, PasswordHashingService::queueDepth)
+                .description("Tasks waiting for a worker").tag("pool", "password-hash").register(registry);
+        Gauge.builder("billing.executor.active", passwordHashingService, PasswordHashingService::activeCount)
+                .description("Workers running a task").tag("pool", "password-hash").register(registry);
+        Gauge.builder("billing.executor.active", mailDispatcher, MailDispatcher::activeConnections)
+                .description("Workers running a task").tag("pool", "mail-smtp").register(registry);
+        Gauge.builder("billing.executor.active", recurringInvoiceScheduler, RecurringInvoiceScheduler::activeRuns)
+                .description("Workers running a task").tag("pool", "recurring-invoice").register(registry);
+        Gauge.builder("billing.template.buffers.available", invoiceTemplateService, InvoiceTemplateService::availableBuffers)
+                .description("Pooled render buffers not in use").register(registry);
+        Gauge.builder("billing.feed.pending.users", invoiceChangeFeed, InvoiceChangeFeed::pendingUsers)
+                .description("Users with changes waiting for the next feed flush").register(registry);
+
+        bindLruCache(registry, "qr-codes", qrCodeGeneratorService.cache());
+        CaffeineCacheMetrics.monitor(registry, jwtUtil.verifiedTokens(), "jwt-verified");
+        CaffeineCacheMetrics.monitor(registry, invoiceTemplateService.compiledTemplates(), "invoice-templates");
+        CaffeineCacheMetrics.monitor(registry, taxRuleService.compiledRules(), "tax-rules");
+    }
+
+    private static void bindLruCache(MeterRegistry registry, String name, LruCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, LruCache::hitCount)
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", cache, LruCache::missCount)
+                .tags("cache", name, "result", "miss").register(registry);
+        Gauge.builder("cache.size", cache, LruCache::size).tag("cache", name).register(registry);
+    }
+}
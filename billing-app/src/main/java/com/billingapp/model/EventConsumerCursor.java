@@ -0,0 +1,33 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// How far one outbox consumer has read the invoice event log: the id of the last event it handled,
+// every lower id being handled or known never to commit. lastCreatedAt is that event's append
+// time, kept to show the consumer's lag. The row is locked while a batch is delivered, so a
+// consumer never runs twice.
+@Entity
+@Table(name = "event_consumer_cursors")
+@Getter
+@Setter
+@NoArgsConstructor
+public class EventConsumerCursor {
+
+    @Id
+    @Column(length = 100)
+    private String consumer;
+
+    @Column(name = "last_created_at", nullable = false)
+    private Instant lastCreatedAt;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    private Instant updatedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
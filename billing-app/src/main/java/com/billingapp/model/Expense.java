@@ -1,3 +1,10 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
 @Entity
 @Table(name = "expenses")
 @Getter
@@ -13,7 +20,11 @@ public class Expense {
     private Double amount;
     private Date date;
 
+    // ISO code; null means the reporting currency (expenses recorded before currencies were kept)
+    @Column(length = 3)
+    private String currency;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
-}
\ No newline at end of file
+}
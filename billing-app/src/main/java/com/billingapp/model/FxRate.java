@@ -0,0 +1,35 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One FX rate: 1 base = rate quote, from effectiveFrom until the pair's next row. Read into
+// memory by FxRateService; aggregation never queries this table.
+@Entity
+@Table(name = "fx_rates", uniqueConstraints = @UniqueConstraint(name = "uk_fx_rates_pair_date",
+        columnNames = {"base_currency", "quote_currency", "effective_from"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class FxRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fx_rate_seq")
+    @SequenceGenerator(name = "fx_rate_seq", sequenceName = "fx_rate_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "base_currency", nullable = false, length = 3)
+    private String baseCurrency;
+
+    @Column(name = "quote_currency", nullable = false, length = 3)
+    private String quoteCurrency;
+
+    @Column(name = "effective_from", nullable = false)
+    private LocalDate effectiveFrom;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal rate;
+}
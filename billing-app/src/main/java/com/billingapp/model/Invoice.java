@@ -1,43 +1,86 @@
 package com.billingapp.model;
+
+import com.billingapp.money.InvoiceCalculator;
 import jakarta.persistence.*;
 import lombok.*;
-import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 @Entity
-
-
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+        // Keyset listing walks id descending, optionally scoped to one user
+        @Index(name = "idx_invoices_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_invoices_status_id", columnList = "status, id")
+})
+// Second-level cached: findById and lazy item access are served from memory after the first load
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "invoices")
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Invoice {
+    // Pooled sequence ids (not IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_seq")
+    @SequenceGenerator(name = "invoice_seq", sequenceName = "invoice_seq", allocationSize = 50)
     private Long id;
-    
+
+    // Bumped on every write; item patches must name the version they were made against
+    @Version
+    private long version;
+
     private String title;
-    private Double totalAmount;
     private Date invoiceDate;
     private String status; // "Paid" or "Unpaid"
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
     private String customerName;
-    private BigDecimal subtotal;
-    private BigDecimal taxPercentage;
-    private BigDecimal discountAmount;
+    // Amounts are kept at scale 4 like the ledger and event log, so no currency (KWD has 3 minor
+    // digits) or rate (MoneyMath carries 4 decimals) is cut short by the default numeric(38,2)
+    @Column(precision = 19, scale = 4)
+    private BigDecimal subtotal;       // Sum of line amounts after line discounts
+    @Column(precision = 7, scale = 4)
+    private BigDecimal taxPercentage;  // Default rate for lines without their own
+    @Column(precision = 19, scale = 4)
+    private BigDecimal taxAmount;      // Sum of per-line tax
+    @Column(precision = 19, scale = 4)
+    private BigDecimal discountAmount; // Invoice-level discount, taken off the grand total
+    @Column(precision = 19, scale = 4)
     private BigDecimal total;
     private String currency; // Stores the currency type (e.g., USD, INR, EUR)
 
-    public Invoice() {
-    }
+    // Rule-based tax: set a jurisdiction to tax lines by their category (see TaxRuleService);
+    // without one, lines use their own or the invoice's flat rate. The version is stamped on the
+    // first calculation and kept, so later edits tax by the same rules until a bulk recalculation.
+    @Column(length = 16)
+    private String taxJurisdiction;
+    private Integer taxRuleVersion;
+    private boolean taxInclusive;      // Prices already include tax, which is taken out of each line
+    @Column(length = 8)
+    private String supplierState;      // GST state code of the seller
+    @Column(length = 8)
+    private String placeOfSupply;      // Same state (or none): CGST + SGST; another state: IGST
+    @Column(precision = 19, scale = 4)
+    private BigDecimal cgstAmount;     // GST split of taxAmount; null when the rules do not split
+    @Column(precision = 19, scale = 4)
+    private BigDecimal sgstAmount;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal igstAmount;
+
+    private String logo;
+
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "invoices.items")
+    private List<InvoiceItem> items = new ArrayList<>();
 
     public Invoice(String customerName, BigDecimal subtotal, BigDecimal taxPercentage, BigDecimal discountAmount, String currency) {
         this.customerName = customerName;
@@ -46,104 +89,19 @@ public class Invoice {
         this.discountAmount = discountAmount;
         this.currency = currency;
         calculateTotal();
-
-        //logo
-        private String logo;
-    }
-
-    // Auto-calculates the total after tax and discount
-    public void calculateTotal() {
-        BigDecimal taxAmount = subtotal.multiply(taxPercentage.divide(BigDecimal.valueOf(100)));
-        this.total = subtotal.add(taxAmount).subtract(discountAmount);
     }
 
-    // Getters and Setters
-    public Long getId() {
-        return id;
+    // Defaults of a new invoice, applied the same way to single saves and bulk imports (an invoice
+    // without a date would otherwise land in the ledger's epoch bucket)
+    public void applyDefaults() {
+        if (invoiceDate == null) {
+            invoiceDate = new Date();
+        }
     }
 
-    public void setId(Long id) {
-        this.id = id;
-    }
-
-    public String getCustomerName() {
-        return customerName;
-    }
-
-    public void setCustomerName(String customerName) {
-        this.customerName = customerName;
-    }
-
-    public BigDecimal getSubtotal() {
-        return subtotal;
-    }
-
-    public void setSubtotal(BigDecimal subtotal) {
-        this.subtotal = subtotal;
-    }
-
-    public BigDecimal getTaxPercentage() {
-        return taxPercentage;
-    }
-
-    public void setTaxPercentage(BigDecimal taxPercentage) {
-        this.taxPercentage = taxPercentage;
-    }
-
-    public BigDecimal getDiscountAmount() {
-        return discountAmount;
-    }
-
-    public void setDiscountAmount(BigDecimal discountAmount) {
-        this.discountAmount = discountAmount;
-    }
-
-    public BigDecimal getTotal() {
-        return total;
-    }
-
-    public void setTotal(BigDecimal total) {
-        this.total = total;
-    }
-
-    public String getCurrency() {
-        return currency;
-    }
-
-    public void setCurrency(String currency) {
-        this.currency = currency;
+    // Recomputes subtotal, tax and total from the items (or from subtotal when there are none)
+    // with flat rates; rule-based invoices are recalculated through InvoiceService
+    public void calculateTotal() {
+        InvoiceCalculator.recalculate(this);
     }
-    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
-private List<InvoiceItem> items = new ArrayList<>();
-
-// Getter & Setter for Items
-public List<InvoiceItem> getItems() { return items; }
-public void setItems(List<InvoiceItem> items) { this.items = items; }
-
-// Method to calculate total dynamically
-public void calculateTotal() {
-    double totalItems = items.stream().mapToDouble(item -> item.getPrice() * item.getQuantity()).sum();
-    double total = totalItems + (totalItems * (taxPercentage / 100)) - discountAmount;
-    this.total = total;
-
-
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Entity
-@Table(name = "invoices")
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    
-    private String title; // Invoice title
-    private Double totalAmount;
-
-    @ManyToOne
-    @JoinColumn(name = "user_id", nullable = false)
-    private User user; // Link invoice to the logged-in user
 }
-}
-
-
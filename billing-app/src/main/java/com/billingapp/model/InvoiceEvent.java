@@ -0,0 +1,69 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Append-only invoice lifecycle log, inserted in the same transaction as the change it records.
+// OutboxRelay hands committed events to in-process consumers in id order.
+@Entity
+@Immutable
+@Table(name = "invoice_events", indexes = {
+        @Index(name = "idx_invoice_events_invoice", columnList = "invoice_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class InvoiceEvent {
+
+    public enum Type { CREATED, UPDATED, STATUS_CHANGED, PAID, ITEMS_CHANGED, DELETED, EMAIL_QUEUED, EMAIL_SENT, EMAIL_FAILED }
+
+    // One id per fetch: pooled blocks would hand ids out of order across sessions and nodes, and
+    // OutboxRelay relies on ids following append order to spot events that have not committed yet
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_event_seq")
+    @SequenceGenerator(name = "invoice_event_seq", sequenceName = "invoice_event_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    // Owner of the invoice; null for events recorded without loading it (email events)
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    // Invoice state after the change
+    private long version;
+    private String status;
+
+    @Column(length = 3)
+    private String currency;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal subtotal;
+
+    @Column(name = "tax_amount", precision = 19, scale = 4)
+    private BigDecimal taxAmount;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal total;
+
+    // Comma-separated ids of the lines touched by an ITEMS_CHANGED event
+    @Lob
+    @Column(name = "item_ids")
+    private String itemIds;
+
+    // Free-form context, e.g. the recipient or delivery error of an email event
+    @Column(length = 1000)
+    private String detail;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,29 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// A user's own HTML invoice layout and default logo. Users without a row get the built-in
+// templates/invoice.html; the source is validated by compiling it before it is saved.
+@Entity
+@Table(name = "invoice_templates")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InvoiceTemplate {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Lob
+    private String source;
+
+    // Used for invoices that do not carry their own logo
+    @Column(length = 2000)
+    private String logo;
+
+    private Instant updatedAt;
+}
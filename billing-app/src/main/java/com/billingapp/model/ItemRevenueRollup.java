@@ -0,0 +1,55 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Revenue and quantity sold per user, month, currency and item name, counted from paid invoices.
+// Top-N queries read at most (months x distinct item names) rows instead of every line item.
+@Entity
+@Table(name = "item_revenue_rollups")
+@IdClass(ItemRevenueRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemRevenueRollup {
+    public static final String UNNAMED = "(unnamed)";
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Id
+    @Column(name = "item_name")
+    private String itemName;
+
+    @Column(precision = 19, scale = 4, nullable = false)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate periodStart;
+        private String currency;
+        private String itemName;
+    }
+}
@@ -0,0 +1,62 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Pre-summed income/expenses/open receivables per user, bucket and currency. TOTAL rows hold the all-time
+// figure (periodStart = 1970-01-01), so the dashboard reads a handful of rows instead of
+// scanning invoices and expenses.
+@Entity
+@Table(name = "ledger_aggregates")
+@IdClass(LedgerAggregate.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerAggregate {
+
+    public enum PeriodType { DAY, MONTH, TOTAL }
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", length = 8)
+    private PeriodType periodType;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(precision = 19, scale = 4, nullable = false)
+    private BigDecimal income;
+
+    @Column(precision = 19, scale = 4, nullable = false)
+    private BigDecimal expenses;
+
+    // Totals of invoices that are not yet paid, bucketed by invoice date (feeds receivables ageing)
+    @Column(precision = 19, scale = 4, nullable = false)
+    private BigDecimal receivables;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long userId;
+        private PeriodType periodType;
+        private LocalDate periodStart;
+        private String currency;
+    }
+}
@@ -0,0 +1,54 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// A queued outbound message. Rows are claimed by the mail dispatcher with SKIP LOCKED,
+// so several app nodes can drain the same table.
+@Entity
+@Table(name = "outbound_emails", indexes = {
+        @Index(name = "idx_outbound_emails_due", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboundEmail {
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbound_email_seq")
+    @SequenceGenerator(name = "outbound_email_seq", sequenceName = "outbound_email_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+    private String subject;
+
+    @Lob
+    private String body;
+    private boolean html;
+
+    // When set, the invoice PDF is rendered (or taken from the render cache) and attached at send time
+    private Long invoiceId;
+
+    // User who queued it; only they can read its status. Null for mail the system sends itself
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+    private Instant claimedAt;
+    private Instant createdAt;
+    private Instant sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
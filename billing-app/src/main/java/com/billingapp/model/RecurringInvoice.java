@@ -0,0 +1,78 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// An invoice to be issued on a cron schedule, copied from an existing invoice and its items.
+// Due rows are claimed by RecurringInvoiceScheduler with SKIP LOCKED; the claim moves
+// nextRunAt on, so each occurrence is claimed by exactly one node.
+@Entity
+@Table(name = "recurring_invoices", indexes = {
+        @Index(name = "idx_recurring_invoices_due", columnList = "active, next_run_at"),
+        @Index(name = "idx_recurring_invoices_user", columnList = "user_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecurringInvoice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurring_invoice_seq")
+    @SequenceGenerator(name = "recurring_invoice_seq", sequenceName = "recurring_invoice_seq", allocationSize = 50)
+    private Long id;
+
+    @Version
+    private long version;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // The invoice this was copied from (it may since have changed or been deleted)
+    private Long sourceInvoiceId;
+
+    private String title;
+    private String customerName;
+    private String currency;
+    @Column(precision = 7, scale = 4)
+    private BigDecimal taxPercentage;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal discountAmount;
+    private String logo;
+
+    // Tax settings of the source invoice (see Invoice); occurrences are issued on taxRuleVersion,
+    // which a tax recalculation of the jurisdiction moves on together with its unpaid invoices
+    @Column(length = 16)
+    private String taxJurisdiction;
+    private Integer taxRuleVersion;
+    private boolean taxInclusive;
+    @Column(length = 8)
+    private String supplierState;
+    @Column(length = 8)
+    private String placeOfSupply;
+
+    // Spring cron syntax (second minute hour day-of-month month day-of-week), evaluated in zone
+    @Column(nullable = false, length = 120)
+    private String cron;
+
+    @Column(nullable = false, length = 64)
+    private String zone;
+
+    private boolean active;
+
+    // Next occurrence to issue; null once the schedule has finished
+    @Column(name = "next_run_at")
+    private Instant nextRunAt;
+
+    // No occurrences after this instant; null runs until paused or deleted
+    private Instant endsAt;
+    private Instant createdAt;
+
+    @OneToMany(mappedBy = "recurringInvoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<RecurringInvoiceItem> items = new ArrayList<>();
+}
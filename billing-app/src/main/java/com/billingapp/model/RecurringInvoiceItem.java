@@ -0,0 +1,33 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "recurring_invoice_items")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecurringInvoiceItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurring_invoice_item_seq")
+    @SequenceGenerator(name = "recurring_invoice_item_seq", sequenceName = "recurring_invoice_item_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recurring_invoice_id", nullable = false)
+    private RecurringInvoice recurringInvoice;
+
+    private String name;
+    private double price;
+    private int quantity;
+    @Column(precision = 7, scale = 4)
+    private BigDecimal taxPercentage;
+    @Column(precision = 19, scale = 4)
+    private BigDecimal discountAmount;
+    @Column(length = 64)
+    private String taxCategory;
+}
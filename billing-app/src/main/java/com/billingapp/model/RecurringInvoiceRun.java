@@ -0,0 +1,49 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// One occurrence of a recurring invoice. The unique (recurring invoice, scheduled time) key makes
+// scheduling idempotent, and the invoice is only generated while the run is PENDING under its row
+// lock, so a retried or doubly delivered run never issues a second invoice.
+@Entity
+@Table(name = "recurring_invoice_runs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_recurring_invoice_runs_occurrence",
+                columnNames = {"recurring_invoice_id", "scheduled_for"}),
+        indexes = @Index(name = "idx_recurring_invoice_runs_available", columnList = "status, available_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecurringInvoiceRun {
+
+    public enum Status { PENDING, DONE, FAILED, SKIPPED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurring_invoice_run_seq")
+    @SequenceGenerator(name = "recurring_invoice_run_seq", sequenceName = "recurring_invoice_run_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "recurring_invoice_id", nullable = false)
+    private Long recurringInvoiceId;
+
+    @Column(name = "scheduled_for", nullable = false)
+    private Instant scheduledFor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // A pending run may be claimed from this instant: a lease while a node works on it, a backoff after a failure
+    @Column(name = "available_at")
+    private Instant availableAt;
+
+    private int attempts;
+    private Long invoiceId;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,33 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// One slab: items of `category` priced from minUnitPrice up to the category's next slab are taxed at ratePercent
+@Entity
+@Table(name = "tax_rules")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaxRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tax_rule_seq")
+    @SequenceGenerator(name = "tax_rule_seq", sequenceName = "tax_rule_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "rule_set_id", nullable = false)
+    private TaxRuleSet ruleSet;
+
+    @Column(nullable = false, length = 64)
+    private String category;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal minUnitPrice;
+
+    @Column(nullable = false, precision = 7, scale = 4)
+    private BigDecimal ratePercent;
+}
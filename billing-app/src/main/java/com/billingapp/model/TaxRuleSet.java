@@ -0,0 +1,40 @@
+package com.billingapp.model;
+
+import com.billingapp.money.CompiledTaxRules;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// One published version of a jurisdiction's tax rules. Versions are never edited: a change is
+// published as the next version, so a compiled version can be cached without invalidation.
+@Entity
+@Table(name = "tax_rule_sets", uniqueConstraints = @UniqueConstraint(name = "uk_tax_rule_sets_version",
+        columnNames = {"jurisdiction", "version"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaxRuleSet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tax_rule_set_seq")
+    @SequenceGenerator(name = "tax_rule_set_seq", sequenceName = "tax_rule_set_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String jurisdiction;
+
+    @Column(nullable = false)
+    private int version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CompiledTaxRules.Split split;
+
+    private Instant createdAt;
+
+    @OneToMany(mappedBy = "ruleSet", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<TaxRule> rules = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package com.billingapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+@Entity
+@Table(name = "users")
+// Read on every login and rarely written: kept in the second-level cache (findByUsername also uses the query cache)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class User {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String username;
+
+    // BCrypt hash, never the raw password
+    @Column(nullable = false)
+    private String password;
+
+    // May call the maintenance endpoints (rebuilds, tax rule publishing). Granted in the database only;
+    // registration always creates ordinary users
+    @Column(nullable = false)
+    private boolean admin;
+}
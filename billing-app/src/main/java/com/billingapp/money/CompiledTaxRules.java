@@ -0,0 +1,133 @@
+package com.billingapp.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// One version of a jurisdiction's tax rules, compiled for per-line evaluation. Each category holds
+// its slabs as parallel primitive arrays (lower bound of the unit price, rate as MoneyMath.toRate),
+// so resolving a line's rate is a map lookup and a scan of a few longs. Instances are immutable and
+// shared by every invoice on that version; TaxRuleService caches them per (jurisdiction, version).
+public final class CompiledTaxRules {
+    // Category that applies to items without one, or with one the rule set does not list
+    public static final String DEFAULT_CATEGORY = "*";
+    public static final long NO_RULE = -1L;
+    // Slab bounds are compared at this scale, whatever the invoice currency's scale is
+    private static final int BOUND_SCALE = 4;
+
+    // How the tax of an invoice is reported. GST: CGST + SGST halves within one state, IGST across states
+    public enum Split { NONE, GST }
+
+    // From minUnitPrice (inclusive) up to the category's next slab, lines are taxed at ratePercent
+    public record Slab(String category, BigDecimal minUnitPrice, BigDecimal ratePercent) {
+    }
+
+    private record Category(long[] bounds, long[] rates) {
+        long rate(long unitPrice) {
+            int i = bounds.length - 1;
+            while (i > 0 && bounds[i] > unitPrice) {
+                i--;
+            }
+            return rates[i];
+        }
+    }
+
+    private final String jurisdiction;
+    private final int version;
+    private final Split split;
+    private final Map<String, Category> categories;
+    private final Category fallback;
+
+    private CompiledTaxRules(String jurisdiction, int version, Split split, Map<String, Category> categories) {
+        this.jurisdiction = jurisdiction;
+        this.version = version;
+        this.split = split;
+        this.categories = categories;
+        this.fallback = categories.get(DEFAULT_CATEGORY);
+    }
+
+    // Rejects (IllegalArgumentException) rates outside 0..100, negative or repeated bounds, and
+    // categories whose lowest slab does not start at 0, so every price of a listed category has a rate
+    public static CompiledTaxRules compile(String jurisdiction, int version, Split split, Collection<Slab> slabs) {
+        Map<String, List<Slab>> byCategory = new HashMap<>();
+        for (Slab slab : slabs) {
+            if (slab.category() == null || slab.category().isBlank()) {
+                throw new IllegalArgumentException("category is required");
+            }
+            if (slab.ratePercent() == null || slab.ratePercent().signum() < 0
+                    || slab.ratePercent().compareTo(BigDecimal.valueOf(100)) > 0) {
+                throw new IllegalArgumentException(slab.category() + ": rate must be between 0 and 100");
+            }
+            if (slab.minUnitPrice() != null && slab.minUnitPrice().signum() < 0) {
+                throw new IllegalArgumentException(slab.category() + ": minUnitPrice must not be negative");
+            }
+            byCategory.computeIfAbsent(normalize(slab.category()), c -> new ArrayList<>()).add(slab);
+        }
+
+        Map<String, Category> categories = new HashMap<>(byCategory.size() * 2);
+        byCategory.forEach((category, list) -> {
+            list.sort(Comparator.comparing(CompiledTaxRules::minUnitPrice));
+            long[] bounds = new long[list.size()];
+            long[] rates = new long[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                bounds[i] = MoneyMath.toMinor(minUnitPrice(list.get(i)), BOUND_SCALE, RoundingMode.HALF_UP);
+                rates[i] = MoneyMath.toRate(list.get(i).ratePercent());
+                if (i > 0 && bounds[i] == bounds[i - 1]) {
+                    throw new IllegalArgumentException(category + ": two slabs start at " + minUnitPrice(list.get(i)));
+                }
+            }
+            if (bounds[0] != 0) {
+                throw new IllegalArgumentException(category + ": the lowest slab must start at 0");
+            }
+            categories.put(category, new Category(bounds, rates));
+        });
+        return new CompiledTaxRules(jurisdiction, version, split == null ? Split.NONE : split, Map.copyOf(categories));
+    }
+
+    // Rate for one line (MoneyMath.toRate scale), chosen by the item's category and its unit price
+    // in minor units at `scale`; NO_RULE when neither the category nor DEFAULT_CATEGORY is listed
+    public long rate(String category, long unitPrice, int scale) {
+        Category rules = category == null ? fallback : categories.get(category);
+        if (rules == null && category != null) {
+            rules = categories.getOrDefault(normalize(category), fallback);
+        }
+        if (rules == null) {
+            return NO_RULE;
+        }
+        long price = scale <= BOUND_SCALE
+                ? Math.multiplyExact(unitPrice, MoneyMath.pow10(BOUND_SCALE - scale))
+                : unitPrice / MoneyMath.pow10(scale - BOUND_SCALE);
+        return rules.rate(price);
+    }
+
+    // Place of supply defaults to the supplier's state, i.e. an intra-state supply
+    public boolean intraState(String supplierState, String placeOfSupply) {
+        return placeOfSupply == null || placeOfSupply.equalsIgnoreCase(supplierState);
+    }
+
+    public String jurisdiction() {
+        return jurisdiction;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public Split split() {
+        return split;
+    }
+
+    public static String normalize(String category) {
+        return category.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static BigDecimal minUnitPrice(Slab slab) {
+        return slab.minUnitPrice() == null ? BigDecimal.ZERO : slab.minUnitPrice();
+    }
+}
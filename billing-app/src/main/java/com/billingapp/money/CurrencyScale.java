@@ -0,0 +1,24 @@
+package com.billingapp.money;
+
+import java.util.Currency;
+
+// Number of minor-unit digits per ISO 4217 currency (INR/USD/EUR 2, JPY 0, KWD 3).
+// Unknown, missing or pseudo currencies fall back to 2.
+public final class CurrencyScale {
+    public static final int DEFAULT_SCALE = 2;
+
+    private CurrencyScale() {
+    }
+
+    public static int of(String currencyCode) {
+        if (currencyCode == null) {
+            return DEFAULT_SCALE;
+        }
+        try {
+            int digits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_SCALE : digits;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+}
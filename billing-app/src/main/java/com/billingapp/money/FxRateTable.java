@@ -0,0 +1,145 @@
+package com.billingapp.money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Immutable snapshot of the FX rate table. Per currency pair it holds the effective dates (epoch
+// days, ascending) and the rate from each date on, so a lookup is a binary search over a primitive
+// array with no locking or I/O. FxRateService builds a new table on reload and swaps it in whole.
+public final class FxRateTable {
+    public static final FxRateTable EMPTY = new FxRateTable(Map.of(), null, 0, Instant.EPOCH);
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    // 1 base = rate quote, from effectiveFrom until the pair's next effective date
+    public record Rate(String base, String quote, LocalDate effectiveFrom, BigDecimal rate) {
+    }
+
+    private record Series(long[] effectiveDays, BigDecimal[] rates) {
+        // Latest rate effective on `day`; before the first effective date the earliest rate applies
+        BigDecimal on(long day) {
+            int low = 0;
+            int high = effectiveDays.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (effectiveDays[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return rates[Math.max(high, 0)];
+        }
+    }
+
+    private final Map<String, Series> pairs;
+    private final String pivot;
+    private final int size;
+    private final Instant loadedAt;
+
+    private FxRateTable(Map<String, Series> pairs, String pivot, int size, Instant loadedAt) {
+        this.pairs = pairs;
+        this.pivot = pivot;
+        this.size = size;
+        this.loadedAt = loadedAt;
+    }
+
+    // Pairs missing in both directions are crossed through `pivot` (e.g. EUR->INR as EUR->USD->INR).
+    // Non-positive rates are dropped; for a repeated (pair, date) the last one wins.
+    public static FxRateTable of(Collection<Rate> rates, String pivot, Instant loadedAt) {
+        Map<String, List<Rate>> byPair = new HashMap<>();
+        int size = 0;
+        for (Rate rate : rates) {
+            if (rate.rate() == null || rate.rate().signum() <= 0 || rate.effectiveFrom() == null) {
+                continue;
+            }
+            byPair.computeIfAbsent(key(code(rate.base()), code(rate.quote())), k -> new ArrayList<>()).add(rate);
+            size++;
+        }
+        Map<String, Series> pairs = new HashMap<>(byPair.size() * 2);
+        byPair.forEach((key, list) -> {
+            list.sort(Comparator.comparing(Rate::effectiveFrom));
+            long[] days = new long[list.size()];
+            BigDecimal[] values = new BigDecimal[list.size()];
+            int n = 0;
+            for (Rate rate : list) {
+                long day = rate.effectiveFrom().toEpochDay();
+                if (n > 0 && days[n - 1] == day) {
+                    n--;
+                }
+                days[n] = day;
+                values[n] = rate.rate();
+                n++;
+            }
+            pairs.put(key, new Series(Arrays.copyOf(days, n), Arrays.copyOf(values, n)));
+        });
+        return new FxRateTable(Map.copyOf(pairs), pivot == null ? null : code(pivot), size, loadedAt);
+    }
+
+    // Units of `to` per unit of `from` on `day`, or null when no rate connects them
+    public BigDecimal rate(String from, String to, LocalDate day) {
+        if (from == null || to == null) {
+            return null;
+        }
+        String source = code(from);
+        String target = code(to);
+        if (source.equals(target)) {
+            return BigDecimal.ONE;
+        }
+        long epochDay = day.toEpochDay();
+        BigDecimal rate = pairRate(source, target, epochDay);
+        if (rate != null || pivot == null || source.equals(pivot) || target.equals(pivot)) {
+            return rate;
+        }
+        BigDecimal toPivot = pairRate(source, pivot, epochDay);
+        BigDecimal fromPivot = toPivot == null ? null : pairRate(pivot, target, epochDay);
+        return fromPivot == null ? null : toPivot.multiply(fromPivot, PRECISION);
+    }
+
+    // `amount` in `to`, rounded to its minor units; null when there is no rate (zero needs none)
+    public BigDecimal convert(BigDecimal amount, String from, String to, LocalDate day) {
+        if (amount.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal rate = rate(from, to, day);
+        if (rate == null) {
+            return null;
+        }
+        return amount.multiply(rate, PRECISION).setScale(CurrencyScale.of(code(to)), RoundingMode.HALF_EVEN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    private BigDecimal pairRate(String from, String to, long epochDay) {
+        Series direct = pairs.get(key(from, to));
+        if (direct != null) {
+            return direct.on(epochDay);
+        }
+        Series inverse = pairs.get(key(to, from));
+        return inverse == null ? null : BigDecimal.ONE.divide(inverse.on(epochDay), PRECISION);
+    }
+
+    private static String key(String from, String to) {
+        return from + '/' + to;
+    }
+
+    private static String code(String currency) {
+        return currency.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,147 @@
+package com.billingapp.money;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+// Bridges the BigDecimal/double entity fields and the minor-unit engine. Prices are converted
+// once per line at the invoice currency's scale; tax is per line (the item's own rate, else the
+// rule for its category when rules are given, else the invoice rate), added on top or taken out
+// of inclusive prices, and rounded with ROUNDING; the invoice-level discount comes off the grand total.
+public final class InvoiceCalculator {
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private InvoiceCalculator() {
+    }
+
+    // One line as recalculate prices it, at the invoice currency's scale: net after the line
+    // discount (inclusive prices have the tax taken out), its tax, and the rate that was applied
+    public record Line(BigDecimal net, BigDecimal tax, BigDecimal taxPercentage) {
+        public BigDecimal total() {
+            return net.add(tax);
+        }
+    }
+
+    public static void recalculate(Invoice invoice) {
+        recalculate(invoice, null);
+    }
+
+    // rules == null: flat rates only
+    public static void recalculate(Invoice invoice, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        long invoiceRate = MoneyMath.toRate(invoice.getTaxPercentage());
+        InvoiceTotals totals = new InvoiceTotals(ROUNDING);
+
+        List<InvoiceItem> items = invoice.getItems();
+        if (items == null || items.isEmpty()) {
+            // No lines: the client-supplied subtotal is the single taxable amount
+            totals.addLine(MoneyMath.toMinor(invoice.getSubtotal(), scale, ROUNDING), 1, 0, invoiceRate,
+                    invoice.isTaxInclusive());
+        } else {
+            for (InvoiceItem item : items) {
+                addItem(totals, item, scale, invoiceRate, rules, invoice.isTaxInclusive());
+            }
+        }
+
+        finish(invoice, totals, rules);
+    }
+
+    // Totals as currently stored on the invoice, ready for addItem/removeItem. An invoice without
+    // items starts from zero, since its free-form subtotal is replaced once lines exist. Rows
+    // written before per-line tax existed (taxAmount == null) are recalculated from their items once.
+    public static InvoiceTotals start(Invoice invoice, boolean hasItems, CompiledTaxRules rules) {
+        if (!hasItems) {
+            return new InvoiceTotals(ROUNDING);
+        }
+        if (invoice.getTaxAmount() == null) {
+            recalculate(invoice, rules);
+        }
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        return new InvoiceTotals(ROUNDING).seed(
+                MoneyMath.toMinor(invoice.getSubtotal(), scale, ROUNDING),
+                MoneyMath.toMinor(invoice.getTaxAmount(), scale, ROUNDING));
+    }
+
+    public static void addItem(InvoiceTotals totals, Invoice invoice, InvoiceItem item, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        addItem(totals, item, scale, MoneyMath.toRate(invoice.getTaxPercentage()), rules, invoice.isTaxInclusive());
+    }
+
+    // The item must still hold the values it was added with
+    public static void removeItem(InvoiceTotals totals, Invoice invoice, InvoiceItem item, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        long unitPrice = MoneyMath.toMinor(item.getPrice(), scale, ROUNDING);
+        long rate = rateOf(item, unitPrice, scale, MoneyMath.toRate(invoice.getTaxPercentage()), rules);
+        totals.removeLine(unitPrice, item.getQuantity(), MoneyMath.toMinor(item.getDiscountAmount(), scale, ROUNDING),
+                rate, invoice.isTaxInclusive());
+    }
+
+    // Writes subtotal, tax and total back to the invoice, and the CGST/SGST/IGST split when the
+    // rules report GST (CGST takes the odd minor unit of an intra-state tax)
+    public static void finish(Invoice invoice, InvoiceTotals totals, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        invoice.setSubtotal(MoneyMath.toDecimal(totals.subtotal(), scale));
+        invoice.setTaxAmount(MoneyMath.toDecimal(totals.tax(), scale));
+        invoice.setTotal(MoneyMath.toDecimal(
+                totals.total(MoneyMath.toMinor(invoice.getDiscountAmount(), scale, ROUNDING)), scale));
+
+        if (rules == null || rules.split() != CompiledTaxRules.Split.GST) {
+            invoice.setCgstAmount(null);
+            invoice.setSgstAmount(null);
+            invoice.setIgstAmount(null);
+        } else if (rules.intraState(invoice.getSupplierState(), invoice.getPlaceOfSupply())) {
+            long central = MoneyMath.divide(totals.tax(), 2, ROUNDING);
+            invoice.setCgstAmount(MoneyMath.toDecimal(central, scale));
+            invoice.setSgstAmount(MoneyMath.toDecimal(totals.tax() - central, scale));
+            invoice.setIgstAmount(MoneyMath.toDecimal(0, scale));
+        } else {
+            invoice.setCgstAmount(MoneyMath.toDecimal(0, scale));
+            invoice.setSgstAmount(MoneyMath.toDecimal(0, scale));
+            invoice.setIgstAmount(MoneyMath.toDecimal(totals.tax(), scale));
+        }
+    }
+
+    // Net (after line discount, before tax) amount of one line, for rollups and line displays
+    public static BigDecimal lineNet(InvoiceItem item, String currency) {
+        int scale = CurrencyScale.of(currency);
+        InvoiceTotals totals = new InvoiceTotals(ROUNDING);
+        totals.addLine(MoneyMath.toMinor(item.getPrice(), scale, ROUNDING), item.getQuantity(),
+                MoneyMath.toMinor(item.getDiscountAmount(), scale, ROUNDING), 0);
+        return MoneyMath.toDecimal(totals.lastNet(), scale);
+    }
+
+    // rules: those the invoice was priced with (TaxRuleService.rulesOf), null for flat rates
+    public static Line line(Invoice invoice, InvoiceItem item, CompiledTaxRules rules) {
+        int scale = CurrencyScale.of(invoice.getCurrency());
+        long unitPrice = MoneyMath.toMinor(item.getPrice(), scale, ROUNDING);
+        long rate = rateOf(item, unitPrice, scale, MoneyMath.toRate(invoice.getTaxPercentage()), rules);
+        InvoiceTotals totals = new InvoiceTotals(ROUNDING).addLine(unitPrice, item.getQuantity(),
+                MoneyMath.toMinor(item.getDiscountAmount(), scale, ROUNDING), rate, invoice.isTaxInclusive());
+        return new Line(MoneyMath.toDecimal(totals.lastNet(), scale), MoneyMath.toDecimal(totals.lastTax(), scale),
+                MoneyMath.toPercent(rate));
+    }
+
+    private static void addItem(InvoiceTotals totals, InvoiceItem item, int scale, long invoiceRate,
+                                CompiledTaxRules rules, boolean inclusive) {
+        long unitPrice = MoneyMath.toMinor(item.getPrice(), scale, ROUNDING);
+        totals.addLine(unitPrice, item.getQuantity(), MoneyMath.toMinor(item.getDiscountAmount(), scale, ROUNDING),
+                rateOf(item, unitPrice, scale, invoiceRate, rules), inclusive);
+    }
+
+    // An explicit item rate wins (overrides and exemptions), then the rule for the item's category
+    private static long rateOf(InvoiceItem item, long unitPrice, int scale, long invoiceRate, CompiledTaxRules rules) {
+        if (item.getTaxPercentage() != null) {
+            return MoneyMath.toRate(item.getTaxPercentage());
+        }
+        if (rules != null) {
+            long rate = rules.rate(item.getTaxCategory(), unitPrice, scale);
+            if (rate != CompiledTaxRules.NO_RULE) {
+                return rate;
+            }
+        }
+        return invoiceRate;
+    }
+}
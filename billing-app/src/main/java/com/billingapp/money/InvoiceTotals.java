@@ -0,0 +1,108 @@
+package com.billingapp.money;
+
+import java.math.RoundingMode;
+
+// Running totals for one invoice in minor units. Tax is computed and rounded per line, so
+// adding or removing a line changes the invoice totals by exactly that line's amounts and
+// incremental updates agree with a full recalculation. Reusable via reset(); addLine does
+// not allocate.
+public final class InvoiceTotals {
+    private RoundingMode rounding;
+    private long subtotal;
+    private long lineDiscounts;
+    private long tax;
+    private int lines;
+
+    // Per-line outputs of the last addLine call
+    private long lastNet;
+    private long lastTax;
+
+    public InvoiceTotals(RoundingMode rounding) {
+        this.rounding = rounding;
+    }
+
+    public InvoiceTotals reset(RoundingMode rounding) {
+        this.rounding = rounding;
+        subtotal = 0;
+        lineDiscounts = 0;
+        tax = 0;
+        lines = 0;
+        lastNet = 0;
+        lastTax = 0;
+        return this;
+    }
+
+    // Starts from totals already stored on an invoice, so lines can be added or removed
+    // without visiting the others. lines() and lineDiscounts() then count only the changes.
+    public InvoiceTotals seed(long subtotal, long tax) {
+        this.subtotal = subtotal;
+        this.tax = tax;
+        return this;
+    }
+
+    // unitPrice and discount in minor units, rate as MoneyMath.toRate. The discount applies to
+    // the line before tax and cannot exceed the line amount.
+    public InvoiceTotals addLine(long unitPrice, long quantity, long discount, long rate) {
+        return line(1, unitPrice, quantity, discount, rate, false);
+    }
+
+    // inclusive: unitPrice and discount already contain the tax, which is taken out of the line
+    // (net + tax = the discounted line amount) instead of added on top
+    public InvoiceTotals addLine(long unitPrice, long quantity, long discount, long rate, boolean inclusive) {
+        return line(1, unitPrice, quantity, discount, rate, inclusive);
+    }
+
+    // Exact inverse of addLine with the same arguments
+    public InvoiceTotals removeLine(long unitPrice, long quantity, long discount, long rate) {
+        return line(-1, unitPrice, quantity, discount, rate, false);
+    }
+
+    public InvoiceTotals removeLine(long unitPrice, long quantity, long discount, long rate, boolean inclusive) {
+        return line(-1, unitPrice, quantity, discount, rate, inclusive);
+    }
+
+    private InvoiceTotals line(int sign, long unitPrice, long quantity, long discount, long rate, boolean inclusive) {
+        long gross = MoneyMath.multiply(unitPrice, quantity);
+        long appliedDiscount = Math.min(Math.max(discount, 0), Math.max(gross, 0));
+        long amount = gross - appliedDiscount;
+        long net = inclusive ? MoneyMath.removeRate(amount, rate, rounding) : amount;
+        long lineTax = inclusive ? amount - net : MoneyMath.applyRate(net, rate, rounding);
+        subtotal = Math.addExact(subtotal, sign * net);
+        lineDiscounts = Math.addExact(lineDiscounts, sign * appliedDiscount);
+        tax = Math.addExact(tax, sign * lineTax);
+        lines += sign;
+        lastNet = net;
+        lastTax = lineTax;
+        return this;
+    }
+
+    // Sum of line amounts after line discounts, before tax
+    public long subtotal() {
+        return subtotal;
+    }
+
+    public long lineDiscounts() {
+        return lineDiscounts;
+    }
+
+    public long tax() {
+        return tax;
+    }
+
+    public int lines() {
+        return lines;
+    }
+
+    public long lastNet() {
+        return lastNet;
+    }
+
+    public long lastTax() {
+        return lastTax;
+    }
+
+    // Grand total after the invoice-level discount; never below zero
+    public long total(long invoiceDiscount) {
+        return Math.max(0, Math.subtractExact(Math.addExact(subtotal, tax), Math.max(invoiceDiscount, 0)));
+    }
+}
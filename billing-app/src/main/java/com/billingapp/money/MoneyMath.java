@@ -0,0 +1,126 @@
+package com.billingapp.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-scale arithmetic on long minor units (paise, cents). Every operation that can lose
+// precision takes an explicit RoundingMode, and overflow throws ArithmeticException instead
+// of wrapping. Nothing here allocates except the BigDecimal conversions at the edges.
+public final class MoneyMath {
+    // Tax rates are carried as percent with 4 decimals: 18% = 180_000, 2.5% = 25_000
+    public static final int RATE_SCALE = 4;
+    public static final long RATE_ONE_PERCENT = 10_000L;
+    private static final long RATE_DIVISOR = 100 * RATE_ONE_PERCENT;
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private MoneyMath() {
+    }
+
+    public static long pow10(int scale) {
+        if (scale < 0 || scale >= POW10.length) {
+            throw new ArithmeticException("unsupported scale " + scale);
+        }
+        return POW10[scale];
+    }
+
+    public static long toMinor(BigDecimal amount, int scale, RoundingMode mode) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(scale, mode).unscaledValue().longValueExact();
+    }
+
+    // Converts a double price without going through BigDecimal in the common case. Values that
+    // already have at most `scale` decimals (99.99 is stored as 99.98999...) are recognised by
+    // round-tripping the candidate; values close to a rounding boundary fall back to
+    // BigDecimal.valueOf, whose shortest decimal string is what the user typed (1.005, not 1.00499...).
+    public static long toMinor(double amount, int scale, RoundingMode mode) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new ArithmeticException("not a finite amount: " + amount);
+        }
+        double scaled = amount * pow10(scale);
+        if (Math.abs(scaled) >= 0x1p52) {
+            throw new ArithmeticException("amount out of range: " + amount);
+        }
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (fraction < 1e-7 || fraction > 1 - 1e-7) {
+            long exact = Math.round(scaled);
+            if (exact / (double) pow10(scale) == amount) {
+                return exact;
+            }
+            return toMinor(BigDecimal.valueOf(amount), scale, mode);
+        }
+        if (Math.abs(fraction - 0.5) < 1e-7 || mode == RoundingMode.UNNECESSARY) {
+            return toMinor(BigDecimal.valueOf(amount), scale, mode);
+        }
+        long down = (long) floor;
+        return switch (mode) {
+            case FLOOR -> down;
+            case CEILING -> down + 1;
+            case DOWN -> scaled < 0 ? down + 1 : down;
+            case UP -> scaled < 0 ? down : down + 1;
+            default -> fraction > 0.5 ? down + 1 : down;
+        };
+    }
+
+    public static BigDecimal toDecimal(long minor, int scale) {
+        return BigDecimal.valueOf(minor, scale);
+    }
+
+    // Percentage (e.g. 18, 2.5) to the fixed-scale rate used by applyRate
+    public static long toRate(BigDecimal percent) {
+        if (percent == null) {
+            return 0L;
+        }
+        return percent.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Inverse of toRate without trailing zeros: 180_000 -> 18, 25_000 -> 2.5
+    public static BigDecimal toPercent(long rate) {
+        BigDecimal percent = BigDecimal.valueOf(rate, RATE_SCALE).stripTrailingZeros();
+        return percent.scale() < 0 ? percent.setScale(0) : percent;
+    }
+
+    // amount x rate%, rounded once
+    public static long applyRate(long amount, long rate, RoundingMode mode) {
+        return divide(Math.multiplyExact(amount, rate), RATE_DIVISOR, mode);
+    }
+
+    // Pre-tax part of an amount that already includes rate%: amount x 100 / (100 + rate), rounded once
+    public static long removeRate(long amount, long rate, RoundingMode mode) {
+        return divide(Math.multiplyExact(amount, RATE_DIVISOR), RATE_DIVISOR + rate, mode);
+    }
+
+    public static long multiply(long unitMinor, long quantity) {
+        return Math.multiplyExact(unitMinor, quantity);
+    }
+
+    // numerator / divisor (divisor > 0) with the given rounding; floor arithmetic keeps it allocation-free
+    public static long divide(long numerator, long divisor, RoundingMode mode) {
+        if (divisor <= 0) {
+            throw new ArithmeticException("divisor must be positive");
+        }
+        long quotient = Math.floorDiv(numerator, divisor);
+        long remainder = Math.floorMod(numerator, divisor);
+        if (remainder == 0) {
+            return quotient;
+        }
+        boolean negative = numerator < 0;
+        // Compare the remainder with half the divisor without overflowing
+        int half = Long.compare(remainder, divisor - remainder);
+        return switch (mode) {
+            case FLOOR -> quotient;
+            case CEILING -> quotient + 1;
+            case DOWN -> negative ? quotient + 1 : quotient;
+            case UP -> negative ? quotient : quotient + 1;
+            case HALF_UP -> half > 0 || (half == 0 && !negative) ? quotient + 1 : quotient;
+            case HALF_DOWN -> half > 0 || (half == 0 && negative) ? quotient + 1 : quotient;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0) ? quotient + 1 : quotient;
+            case UNNECESSARY -> throw new ArithmeticException("rounding necessary");
+        };
+    }
+}
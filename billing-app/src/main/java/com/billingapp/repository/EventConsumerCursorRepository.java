@@ -0,0 +1,25 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.EventConsumerCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface EventConsumerCursorRepository extends JpaRepository<EventConsumerCursor, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM EventConsumerCursor c WHERE c.consumer = :consumer")
+    Optional<EventConsumerCursor> findForUpdate(@Param("consumer") String consumer);
+
+    @Modifying
+    @Query("UPDATE EventConsumerCursor c SET c.lastError = :error, c.updatedAt = :now WHERE c.consumer = :consumer")
+    int recordError(@Param("consumer") String consumer, @Param("error") String error, @Param("now") Instant now);
+}
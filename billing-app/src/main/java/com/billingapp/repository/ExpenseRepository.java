@@ -1,6 +1,14 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.Expense;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.user.id = :userId")
     Double getTotalExpenses(@Param("userId") Long userId);
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.InvoiceEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceEventRepository extends JpaRepository<InvoiceEvent, Long> {
+
+    // Committed events after the cursor, in id order. Ids are not committed in order, so the page
+    // may have holes; OutboxRelay decides whether to wait for them
+    @Query("SELECT e FROM InvoiceEvent e WHERE e.id > :id ORDER BY e.id")
+    List<InvoiceEvent> findAfter(@Param("id") long id, Pageable limit);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM InvoiceEvent e")
+    long findMaxId();
+
+    List<InvoiceEvent> findByInvoiceIdOrderByCreatedAtAscIdAsc(Long invoiceId);
+}
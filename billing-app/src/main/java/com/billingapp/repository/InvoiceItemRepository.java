@@ -2,8 +2,23 @@ package com.billingapp.repository;
 
 import com.billingapp.model.InvoiceItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
+
+    // Only the lines a patch touches, never the whole collection
+    @Query("SELECT it FROM InvoiceItem it WHERE it.invoice.id = :invoiceId AND it.id IN :ids")
+    List<InvoiceItem> findByInvoiceIdAndIdIn(@Param("invoiceId") Long invoiceId, @Param("ids") Collection<Long> ids);
+
+    boolean existsByInvoiceId(Long invoiceId);
+
+    @Query("SELECT it.invoice.id FROM InvoiceItem it WHERE it.id = :id")
+    Optional<Long> findInvoiceIdById(@Param("id") Long id);
 }
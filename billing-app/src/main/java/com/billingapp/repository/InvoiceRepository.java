@@ -1,20 +1,91 @@
-package com.example.billingapp.repository;
+package com.billingapp.repository;
 
-import com.example.billingapp.model.Invoice;
+import com.billingapp.dto.InvoiceExportRow;
+import com.billingapp.dto.InvoiceSummary;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
-    List<Invoice> findByUser(User user); // Fetch invoices only for a specific user
-}
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
-}
-@Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
-    
-    @Query("SELECT SUM(i.totalAmount) FROM Invoice i WHERE i.user.id = :userId AND i.status = 'Paid'")
-    Double getTotalIncome(@Param("userId") Long userId);
+    List<Invoice> findByUser(User user); // Fetch invoices only for a specific user
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    // SELECT ... FOR UPDATE on the invoice row only (items stay lazy)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id")
+    Optional<Invoice> findForUpdateById(@Param("id") Long id);
+
+
+    // Keyset page, newest first. Pass afterId = null for the first page and
+    // request one row more than the page size to know whether another page exists.
+    @Query("SELECT new com.billingapp.dto.InvoiceSummary(i.id, i.title, i.customerName, i.status, i.currency, i.total, i.invoiceDate, i.user.id) "
+            + "FROM Invoice i "
+            + "WHERE (:afterId IS NULL OR i.id < :afterId) "
+            + "AND (:userId IS NULL OR i.user.id = :userId) "
+            + "AND (:status IS NULL OR i.status = :status) "
+            + "AND (:currency IS NULL OR i.currency = :currency) "
+            + "AND (:fromDate IS NULL OR i.invoiceDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR i.invoiceDate < :toDate) "
+            + "ORDER BY i.id DESC")
+    List<InvoiceSummary> findSummariesAfter(@Param("afterId") Long afterId,
+                                            @Param("userId") Long userId,
+                                            @Param("status") String status,
+                                            @Param("currency") String currency,
+                                            @Param("fromDate") Date fromDate,
+                                            @Param("toDate") Date toDate,
+                                            Pageable limit);
+
+    // One invoice and its items in one query; the user stays an unloaded proxy (only its id is read)
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.items WHERE i.id = :id")
+    Optional<Invoice> findDetailById(@Param("id") Long id);
+
+    // Loads a page of invoices together with their items in one query
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.items WHERE i.id IN :ids ORDER BY i.id")
+    List<Invoice> findAllWithItemsByIdIn(@Param("ids") List<Long> ids);
+
+    // Keyset walk (ascending) over the unpaid invoices of a tax jurisdiction, for bulk recalculation
+    @Query("SELECT i.id FROM Invoice i WHERE i.taxJurisdiction = :jurisdiction AND i.status <> 'Paid' "
+            + "AND i.id > :afterId ORDER BY i.id")
+    List<Long> findUnpaidIdsByTaxJurisdiction(@Param("jurisdiction") String jurisdiction,
+                                              @Param("afterId") long afterId,
+                                              Pageable limit);
+
+    // Forward-only cursor over invoices joined with their items, ordered so that all rows of
+    // one invoice are adjacent. Must be consumed inside a read-only transaction and closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.billingapp.dto.InvoiceExportRow(i.id, i.title, i.customerName, i.status, i.currency, "
+            + "i.subtotal, i.taxPercentage, i.taxAmount, i.discountAmount, i.total, "
+            + "i.cgstAmount, i.sgstAmount, i.igstAmount, i.taxInclusive, i.invoiceDate, i.user.id, "
+            + "it.id, it.name, it.price, it.quantity, it.discountAmount, it.taxPercentage) "
+            + "FROM Invoice i LEFT JOIN i.items it "
+            + "WHERE (:userId IS NULL OR i.user.id = :userId) "
+            + "AND (:status IS NULL OR i.status = :status) "
+            + "AND (:currency IS NULL OR i.currency = :currency) "
+            + "AND (:fromDate IS NULL OR i.invoiceDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR i.invoiceDate < :toDate) "
+            + "ORDER BY i.id, it.id")
+    Stream<InvoiceExportRow> streamExportRows(@Param("userId") Long userId,
+                                              @Param("status") String status,
+                                              @Param("currency") String currency,
+                                              @Param("fromDate") Date fromDate,
+                                              @Param("toDate") Date toDate);
 }
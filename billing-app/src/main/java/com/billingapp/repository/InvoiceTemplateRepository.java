@@ -0,0 +1,9 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.InvoiceTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InvoiceTemplateRepository extends JpaRepository<InvoiceTemplate, Long> {
+}
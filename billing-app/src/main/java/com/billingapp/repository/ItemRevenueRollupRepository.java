@@ -0,0 +1,67 @@
+package com.billingapp.repository;
+
+import com.billingapp.dto.TopItem;
+import com.billingapp.model.ItemRevenueRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ItemRevenueRollupRepository extends JpaRepository<ItemRevenueRollup, ItemRevenueRollup.Key> {
+
+    // Native writes name their table (query space) so Hibernate does not evict every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_revenue_rollups"))
+    @Query(value = "INSERT INTO item_revenue_rollups (user_id, period_start, currency, item_name, revenue, quantity) "
+            + "VALUES (:userId, :periodStart, :currency, :itemName, :revenue, :quantity) "
+            + "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), quantity = quantity + VALUES(quantity)",
+            nativeQuery = true)
+    void increment(@Param("userId") Long userId,
+                   @Param("periodStart") LocalDate periodStart,
+                   @Param("currency") String currency,
+                   @Param("itemName") String itemName,
+                   @Param("revenue") BigDecimal revenue,
+                   @Param("quantity") long quantity);
+
+    @Query("SELECT new com.billingapp.dto.TopItem(r.itemName, r.currency, SUM(r.revenue), SUM(r.quantity)) "
+            + "FROM ItemRevenueRollup r WHERE r.userId = :userId "
+            + "AND r.periodStart >= :from AND r.periodStart < :to "
+            + "AND (:currency IS NULL OR r.currency = :currency) "
+            + "GROUP BY r.itemName, r.currency "
+            + "HAVING SUM(r.revenue) <> 0 "
+            + "ORDER BY SUM(r.revenue) DESC")
+    List<TopItem> findTopItems(@Param("userId") Long userId,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to,
+                               @Param("currency") String currency,
+                               Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ItemRevenueRollup r WHERE :userId IS NULL OR r.userId = :userId")
+    int deleteForUser(@Param("userId") Long userId);
+
+    // Same normalisation of item names as ItemRevenueService.entriesOf
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_revenue_rollups"))
+    @Query(value = "INSERT INTO item_revenue_rollups (user_id, period_start, currency, item_name, revenue, quantity) "
+            + "SELECT i.user_id, COALESCE(DATE_FORMAT(i.invoice_date, '%Y-%m-01'), '1970-01-01') AS bucket, "
+            + "COALESCE(i.currency, :defaultCurrency) AS cur, "
+            + "COALESCE(NULLIF(TRIM(it.name), ''), '" + ItemRevenueRollup.UNNAMED + "') AS item, "
+            + "SUM(GREATEST(it.price * it.quantity - LEAST(COALESCE(it.discount_amount, 0), it.price * it.quantity), 0)), "
+            + "SUM(it.quantity) "
+            + "FROM invoice_item it JOIN invoices i ON i.id = it.invoice_id "
+            + "WHERE i.status = 'Paid' AND (:userId IS NULL OR i.user_id = :userId) "
+            + "GROUP BY i.user_id, bucket, cur, item",
+            nativeQuery = true)
+    int rebuild(@Param("userId") Long userId, @Param("defaultCurrency") String defaultCurrency);
+}
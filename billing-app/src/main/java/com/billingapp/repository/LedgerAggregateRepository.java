@@ -0,0 +1,104 @@
+package com.billingapp.repository;
+
+import com.billingapp.dto.CurrencyAmount;
+import com.billingapp.model.LedgerAggregate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LedgerAggregateRepository extends JpaRepository<LedgerAggregate, LedgerAggregate.Key> {
+
+    // Atomic in-place increment; concurrent writers to the same bucket never lose an update
+    // Native writes name their table (query space) so Hibernate does not evict every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ledger_aggregates"))
+    @Query(value = "INSERT INTO ledger_aggregates (user_id, period_type, period_start, currency, income, expenses, receivables) "
+            + "VALUES (:userId, :periodType, :periodStart, :currency, :income, :expenses, :receivables) "
+            + "ON DUPLICATE KEY UPDATE income = income + VALUES(income), expenses = expenses + VALUES(expenses), "
+            + "receivables = receivables + VALUES(receivables)",
+            nativeQuery = true)
+    void increment(@Param("userId") Long userId,
+                   @Param("periodType") String periodType,
+                   @Param("periodStart") LocalDate periodStart,
+                   @Param("currency") String currency,
+                   @Param("income") BigDecimal income,
+                   @Param("expenses") BigDecimal expenses,
+                   @Param("receivables") BigDecimal receivables);
+
+    List<LedgerAggregate> findByUserIdAndPeriodType(Long userId, LedgerAggregate.PeriodType periodType);
+
+    // One row per bucket and currency; amounts are summed after conversion, never across currencies
+    @Query("SELECT a FROM LedgerAggregate a WHERE a.userId = :userId AND a.periodType = :periodType "
+            + "AND a.periodStart >= :from AND a.periodStart < :to ORDER BY a.periodStart")
+    List<LedgerAggregate> findBuckets(@Param("userId") Long userId,
+                                      @Param("periodType") LedgerAggregate.PeriodType periodType,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM LedgerAggregate a WHERE :userId IS NULL OR a.userId = :userId")
+    int deleteForUser(@Param("userId") Long userId);
+
+    // Rebuild from the fact tables; one statement per bucket granularity and source
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ledger_aggregates"))
+    @Query(value = "INSERT INTO ledger_aggregates (user_id, period_type, period_start, currency, income, expenses, receivables) "
+            + "SELECT i.user_id, :periodType, "
+            + "CASE :periodType WHEN 'DAY' THEN COALESCE(DATE(i.invoice_date), '1970-01-01') "
+            + "WHEN 'MONTH' THEN COALESCE(DATE_FORMAT(i.invoice_date, '%Y-%m-01'), '1970-01-01') "
+            + "ELSE '1970-01-01' END AS bucket, "
+            + "COALESCE(i.currency, :defaultCurrency) AS cur, "
+            + "SUM(CASE WHEN i.status = 'Paid' THEN COALESCE(i.total, 0) ELSE 0 END), 0, "
+            + "SUM(CASE WHEN i.status = 'Paid' THEN 0 ELSE COALESCE(i.total, 0) END) "
+            + "FROM invoices i WHERE (:userId IS NULL OR i.user_id = :userId) "
+            + "GROUP BY i.user_id, bucket, cur "
+            + "ON DUPLICATE KEY UPDATE income = income + VALUES(income), receivables = receivables + VALUES(receivables)",
+            nativeQuery = true)
+    int rebuildInvoices(@Param("userId") Long userId,
+                        @Param("periodType") String periodType,
+                        @Param("defaultCurrency") String defaultCurrency);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ledger_aggregates"))
+    @Query(value = "INSERT INTO ledger_aggregates (user_id, period_type, period_start, currency, income, expenses, receivables) "
+            + "SELECT e.user_id, :periodType, "
+            + "CASE :periodType WHEN 'DAY' THEN COALESCE(DATE(e.`date`), '1970-01-01') "
+            + "WHEN 'MONTH' THEN COALESCE(DATE_FORMAT(e.`date`, '%Y-%m-01'), '1970-01-01') "
+            + "ELSE '1970-01-01' END AS bucket, "
+            + "COALESCE(e.currency, :defaultCurrency) AS cur, 0, SUM(COALESCE(e.amount, 0)), 0 "
+            + "FROM expenses e WHERE (:userId IS NULL OR e.user_id = :userId) "
+            + "GROUP BY e.user_id, bucket, cur "
+            + "ON DUPLICATE KEY UPDATE expenses = expenses + VALUES(expenses)",
+            nativeQuery = true)
+    int rebuildExpenses(@Param("userId") Long userId,
+                        @Param("periodType") String periodType,
+                        @Param("defaultCurrency") String defaultCurrency);
+
+    @Query("SELECT new com.billingapp.dto.CurrencyAmount(a.currency, SUM(a.income)) "
+            + "FROM LedgerAggregate a WHERE a.userId = :userId AND a.periodType = :periodType "
+            + "AND a.periodStart >= :from AND a.periodStart < :to "
+            + "GROUP BY a.currency ORDER BY SUM(a.income) DESC")
+    List<CurrencyAmount> sumIncomeByCurrency(@Param("userId") Long userId,
+                                             @Param("periodType") LedgerAggregate.PeriodType periodType,
+                                             @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to);
+
+    @Query("SELECT new com.billingapp.dto.CurrencyAmount(a.currency, SUM(a.receivables)) "
+            + "FROM LedgerAggregate a WHERE a.userId = :userId AND a.periodType = :periodType "
+            + "AND a.periodStart >= :from AND a.periodStart < :to "
+            + "GROUP BY a.currency")
+    List<CurrencyAmount> sumReceivablesByCurrency(@Param("userId") Long userId,
+                                                  @Param("periodType") LedgerAggregate.PeriodType periodType,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to);
+}
@@ -0,0 +1,35 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.OutboundEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: rows another node is claiming are passed over
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboundEmail e WHERE e.status = com.billingapp.model.OutboundEmail.Status.PENDING "
+            + "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<OutboundEmail> findDueForUpdate(@Param("now") Instant now, Pageable limit);
+
+    // Messages whose worker died mid-send go back to the queue
+    @Modifying
+    @Query("UPDATE OutboundEmail e SET e.status = com.billingapp.model.OutboundEmail.Status.PENDING "
+            + "WHERE e.status = com.billingapp.model.OutboundEmail.Status.SENDING AND e.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") Instant cutoff);
+
+    long countByStatus(OutboundEmail.Status status);
+}
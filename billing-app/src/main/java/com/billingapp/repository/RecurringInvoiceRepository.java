@@ -0,0 +1,38 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.RecurringInvoice;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringInvoiceRepository extends JpaRepository<RecurringInvoice, Long> {
+
+    // Earliest due first; lock timeout -2 is Hibernate's SKIP LOCKED, so nodes claim disjoint rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM RecurringInvoice r WHERE r.active = true AND r.nextRunAt <= :now ORDER BY r.nextRunAt")
+    List<RecurringInvoice> findDueForUpdate(@Param("now") Instant now, Pageable limit);
+
+    @Query("SELECT DISTINCT r FROM RecurringInvoice r LEFT JOIN FETCH r.items WHERE r.id = :id")
+    Optional<RecurringInvoice> findWithItemsById(@Param("id") Long id);
+
+    List<RecurringInvoice> findByUserIdOrderByIdDesc(Long userId);
+
+    // Bumps the optimistic version too, so a template loaded before the move cannot write the old rules back
+    @Modifying
+    @Query("UPDATE RecurringInvoice r SET r.taxRuleVersion = :version, r.version = r.version + 1 "
+            + "WHERE r.taxJurisdiction = :jurisdiction AND (r.taxRuleVersion IS NULL OR r.taxRuleVersion <> :version)")
+    int moveToTaxRuleVersion(@Param("jurisdiction") String jurisdiction, @Param("version") int version);
+}
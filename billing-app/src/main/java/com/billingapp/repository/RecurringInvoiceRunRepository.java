@@ -0,0 +1,33 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.RecurringInvoiceRun;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringInvoiceRunRepository extends JpaRepository<RecurringInvoiceRun, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: runs another node is claiming are passed over
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM RecurringInvoiceRun r WHERE r.status = com.billingapp.model.RecurringInvoiceRun.Status.PENDING "
+            + "AND r.availableAt <= :now ORDER BY r.availableAt")
+    List<RecurringInvoiceRun> findAvailableForUpdate(@Param("now") Instant now, Pageable limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecurringInvoiceRun r WHERE r.id = :id")
+    Optional<RecurringInvoiceRun> findForUpdateById(@Param("id") Long id);
+
+    List<RecurringInvoiceRun> findTop50ByRecurringInvoiceIdOrderByScheduledForDesc(Long recurringInvoiceId);
+}
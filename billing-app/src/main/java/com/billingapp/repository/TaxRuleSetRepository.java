@@ -0,0 +1,19 @@
+package com.billingapp.repository;
+
+import com.billingapp.model.TaxRuleSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TaxRuleSetRepository extends JpaRepository<TaxRuleSet, Long> {
+
+    @Query("SELECT DISTINCT s FROM TaxRuleSet s LEFT JOIN FETCH s.rules WHERE s.jurisdiction = :jurisdiction AND s.version = :version")
+    Optional<TaxRuleSet> findWithRules(@Param("jurisdiction") String jurisdiction, @Param("version") int version);
+
+    @Query("SELECT MAX(s.version) FROM TaxRuleSet s WHERE s.jurisdiction = :jurisdiction")
+    Optional<Integer> findLatestVersion(@Param("jurisdiction") String jurisdiction);
+}
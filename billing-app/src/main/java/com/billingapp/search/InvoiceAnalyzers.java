@@ -0,0 +1,80 @@
+package com.billingapp.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Text fields are split into lower-cased, accent-folded words. Their ".prefix" twins also index
+// every leading fragment of each word (edge n-grams), so a typeahead prefix is a single term
+// lookup instead of a scan of the term dictionary.
+public final class InvoiceAnalyzers {
+    // Fragments longer than this are not indexed; longer query prefixes are cut to this length
+    public static final int MAX_PREFIX_LENGTH = 20;
+
+    private InvoiceAnalyzers() {
+    }
+
+    public static Analyzer indexing() {
+        Analyzer words = words();
+        Analyzer prefixes = new WordAnalyzer(true);
+        return new PerFieldAnalyzerWrapper(words, Map.of(
+                InvoiceDocument.prefixField(InvoiceDocument.CUSTOMER), prefixes,
+                InvoiceDocument.prefixField(InvoiceDocument.TITLE), prefixes,
+                InvoiceDocument.prefixField(InvoiceDocument.ITEMS), prefixes));
+    }
+
+    public static Analyzer words() {
+        return new WordAnalyzer(false);
+    }
+
+    // The words of `text` as the index stores them
+    public static List<String> terms(Analyzer analyzer, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(InvoiceDocument.CUSTOMER, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static final class WordAnalyzer extends Analyzer {
+        private final boolean prefixes;
+
+        WordAnalyzer(boolean prefixes) {
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer source = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(source));
+            if (prefixes) {
+                stream = new EdgeNGramTokenFilter(stream, 1, MAX_PREFIX_LENGTH, true);
+            }
+            return new TokenStreamComponents(source, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
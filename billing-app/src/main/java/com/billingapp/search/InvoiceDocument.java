@@ -0,0 +1,89 @@
+package com.billingapp.search;
+
+import com.billingapp.dto.InvoiceSearchHit;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+// One Lucene document per invoice. Item names are folded into the invoice's document, so a match
+// on an item finds its invoice. Fields shown in results are stored, so hits need no database read.
+public final class InvoiceDocument {
+    public static final String ID = "id";
+    public static final String USER_ID = "userId";
+    public static final String STATUS = "status";
+    public static final String CURRENCY = "currency";
+    public static final String INVOICE_DATE = "invoiceDate";
+    public static final String TOTAL = "total";
+    public static final String CUSTOMER = "customer";
+    public static final String TITLE = "title";
+    public static final String ITEMS = "items";
+
+    private InvoiceDocument() {
+    }
+
+    public static String prefixField(String field) {
+        return field + ".prefix";
+    }
+
+    public static Term idTerm(Long invoiceId) {
+        return new Term(ID, invoiceId.toString());
+    }
+
+    public static Document of(Invoice invoice) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, invoice.getId().toString(), Field.Store.YES));
+        if (invoice.getUser() != null) {
+            doc.add(new StringField(USER_ID, invoice.getUser().getId().toString(), Field.Store.NO));
+        }
+        addKeyword(doc, STATUS, invoice.getStatus());
+        addKeyword(doc, CURRENCY, invoice.getCurrency());
+        if (invoice.getInvoiceDate() != null) {
+            long millis = invoice.getInvoiceDate().getTime();
+            doc.add(new LongPoint(INVOICE_DATE, millis));
+            doc.add(new NumericDocValuesField(INVOICE_DATE, millis));
+            doc.add(new StoredField(INVOICE_DATE, millis));
+        }
+        if (invoice.getTotal() != null) {
+            doc.add(new StoredField(TOTAL, invoice.getTotal().toPlainString()));
+        }
+        addText(doc, CUSTOMER, invoice.getCustomerName(), true);
+        addText(doc, TITLE, invoice.getTitle(), true);
+        for (InvoiceItem item : invoice.getItems()) {
+            addText(doc, ITEMS, item.getName(), false);
+        }
+        return doc;
+    }
+
+    public static InvoiceSearchHit hit(Document doc, Float score) {
+        IndexableField date = doc.getField(INVOICE_DATE);
+        String total = doc.get(TOTAL);
+        return new InvoiceSearchHit(Long.valueOf(doc.get(ID)), doc.get(TITLE), doc.get(CUSTOMER), doc.get(STATUS),
+                doc.get(CURRENCY), total == null ? null : new BigDecimal(total),
+                date == null ? null : new Date(date.numericValue().longValue()), score);
+    }
+
+    private static void addKeyword(Document doc, String field, String value) {
+        if (value != null) {
+            doc.add(new StringField(field, value, Field.Store.YES));
+        }
+    }
+
+    private static void addText(Document doc, String field, String value, boolean stored) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        doc.add(new TextField(field, value, stored ? Field.Store.YES : Field.Store.NO));
+        doc.add(new TextField(prefixField(field), value, Field.Store.NO));
+    }
+}
@@ -0,0 +1,74 @@
+package com.billingapp.search;
+
+import com.billingapp.dto.InvoiceFilter;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.util.List;
+
+// Builds the Lucene query for a search box input. Every word must match one of customer name
+// (boosted most), title or an item name; in prefix mode a word matches any word it begins.
+// Filters are non-scoring clauses, which Lucene caches and applies before scoring.
+// The input is never parsed as query syntax, so users cannot inject operators or wildcards.
+public final class InvoiceSearchQuery {
+    private static final float CUSTOMER_BOOST = 3f;
+    private static final float TITLE_BOOST = 2f;
+    private static final float ITEMS_BOOST = 1f;
+
+    private InvoiceSearchQuery() {
+    }
+
+    // Returns null when the text has no searchable words (only filters apply)
+    public static Query text(Analyzer analyzer, String text, boolean prefix) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<String> terms = InvoiceAnalyzers.terms(analyzer, text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String term : terms) {
+            String value = prefix && term.length() > InvoiceAnalyzers.MAX_PREFIX_LENGTH
+                    ? term.substring(0, InvoiceAnalyzers.MAX_PREFIX_LENGTH) : term;
+            all.add(new BooleanQuery.Builder()
+                    .add(field(InvoiceDocument.CUSTOMER, value, prefix, CUSTOMER_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(field(InvoiceDocument.TITLE, value, prefix, TITLE_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(field(InvoiceDocument.ITEMS, value, prefix, ITEMS_BOOST), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+        return all.build();
+    }
+
+    public static Query filtered(Query text, InvoiceFilter filter) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        query.add(text != null ? text : new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        if (filter.userId() != null) {
+            query.add(new TermQuery(new Term(InvoiceDocument.USER_ID, filter.userId().toString())), BooleanClause.Occur.FILTER);
+        }
+        if (filter.status() != null) {
+            query.add(new TermQuery(new Term(InvoiceDocument.STATUS, filter.status())), BooleanClause.Occur.FILTER);
+        }
+        if (filter.currency() != null) {
+            query.add(new TermQuery(new Term(InvoiceDocument.CURRENCY, filter.currency())), BooleanClause.Occur.FILTER);
+        }
+        if (filter.from() != null || filter.to() != null) {
+            long from = filter.from() == null ? Long.MIN_VALUE : filter.from().getTime();
+            long to = filter.to() == null ? Long.MAX_VALUE : filter.to().getTime() - 1;
+            query.add(LongPoint.newRangeQuery(InvoiceDocument.INVOICE_DATE, from, to), BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    private static Query field(String field, String term, boolean prefix, float boost) {
+        String name = prefix ? InvoiceDocument.prefixField(field) : field;
+        return new BoostQuery(new TermQuery(new Term(name, term)), boost);
+    }
+}
@@ -0,0 +1,42 @@
+package com.billingapp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+// Picks the BCrypt cost for this machine: the highest cost whose hash time stays within the
+// target latency. Each cost step doubles the work, so one measurement at MIN_STRENGTH is
+// enough to extrapolate. Never goes below MIN_STRENGTH, whatever the hardware.
+public final class BcryptCalibrator {
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 14;
+    private static final int SAMPLES = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(BcryptCalibrator.class);
+
+    private BcryptCalibrator() {
+    }
+
+    public static int calibrate(Duration targetLatency) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MIN_STRENGTH);
+        encoder.encode("warm-up");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-" + i);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = MIN_STRENGTH;
+        long estimate = best;
+        while (strength < MAX_STRENGTH && estimate * 2 <= targetLatency.toNanos()) {
+            strength++;
+            estimate *= 2;
+        }
+        log.info("BCrypt cost {} selected ({} ms at cost {}, target {} ms)", strength,
+                best / 1_000_000, MIN_STRENGTH, targetLatency.toMillis());
+        return strength;
+    }
+}
@@ -0,0 +1,25 @@
+package com.billingapp.security;
+
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.Instant;
+
+// Authenticated caller as carried in the token; resolving it needs no database lookup
+public record JwtPrincipal(
+        Long userId,
+        String username,
+        boolean admin,
+        Instant expiresAt) {
+
+    // The user a listing, export or batch covers: the caller, except that an admin may name any
+    // user or none (every user). A non-admin naming another user gets AccessDeniedException (403).
+    public Long scope(Long requestedUserId) {
+        if (admin) {
+            return requestedUserId;
+        }
+        if (requestedUserId != null && !requestedUserId.equals(userId)) {
+            throw new AccessDeniedException("user " + userId + " cannot read another user's invoices");
+        }
+        return userId;
+    }
+}
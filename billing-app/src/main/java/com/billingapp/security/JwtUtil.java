@@ -1,34 +1,111 @@
 package com.billingapp.security;
 
-import io.jsonwebtoken.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 
+// HS256 tokens carrying the username (subject) and user id. The key and parser are built once;
+// verified tokens are remembered until they expire, so each token's signature is checked once.
 @Component
 public class JwtUtil {
-    private static final String SECRET_KEY = "your_secret_key";
-    private static final long EXPIRATION_TIME = 86400000; // 1 day
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ADMIN_CLAIM = "adm";
 
-    public String generateToken(String username) {
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration expiration;
+    private final Cache<String, JwtPrincipal> verified;
+
+    public JwtUtil(@Value("${billing.jwt.secret}") String secret,
+                   @Value("${billing.jwt.expiration:PT24H}") Duration expiration,
+                   @Value("${billing.jwt.cache-size:10000}") int cacheSize) {
+        // Throws WeakKeyException at startup for secrets shorter than 256 bits
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.expiration = expiration;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    // An entry lives until its token expires; reads and replacements do not extend it
+    private static final class TokenExpiry implements Expiry<String, JwtPrincipal> {
+        @Override
+        public long expireAfterCreate(String token, JwtPrincipal principal, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    // The admin flag is fixed for the token's lifetime; revoking it takes effect once the token expires
+    public String generateToken(Long userId, String username, boolean admin) {
+        Instant now = Instant.now();
         return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
+                .subject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ADMIN_CLAIM, admin ? Boolean.TRUE : null)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(expiration)))
+                .signWith(key)
                 .compact();
     }
 
+    // Verified principal for the token; throws JwtException if it is malformed, forged or expired
+    public JwtPrincipal authenticate(String token) {
+        JwtPrincipal cached = verified.getIfPresent(token);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        if (userId == null || claims.getExpiration() == null) {
+            throw new JwtException("token has no user id or expiry");
+        }
+        boolean admin = Boolean.TRUE.equals(claims.get(ADMIN_CLAIM, Boolean.class));
+        JwtPrincipal principal = new JwtPrincipal(userId.longValue(), claims.getSubject(), admin,
+                claims.getExpiration().toInstant());
+        verified.put(token, principal);
+        return principal;
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody().getSubject();
+        return authenticate(token).username();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token);
+            authenticate(token);
             return true;
-        } catch (Exception e) {
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    public Cache<String, JwtPrincipal> verifiedTokens() {
+        return verified;
+    }
+}
@@ -0,0 +1,84 @@
+package com.billingapp.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt on its own small pool so a login storm can use at most `threads` cores; request
+// threads only wait on a future. When the bounded queue is full, submits fail immediately with
+// RejectedExecutionException and the caller answers 503 instead of queueing unbounded work.
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    // Hash of a random password, checked when the user does not exist so both paths cost the same
+    private final String decoyHash;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${billing.auth.hash.threads:0}") int threads,
+                                  @Value("${billing.auth.hash.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = newHashExecutor(poolSize, queueCapacity);
+        this.decoyHash = passwordEncoder.encode(Long.toHexString(System.nanoTime()));
+    }
+
+    // Kept private rather than a bean so Boot still auto-configures applicationTaskExecutor
+    private static ThreadPoolExecutor newHashExecutor(int poolSize, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Outcome of a password check; upgradedHash is set when the stored hash used an older cost
+    public record Verification(boolean matches, String upgradedHash) {
+        static final Verification REJECTED = new Verification(false, null);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+    }
+
+    // storedHash == null (unknown user) still burns one hash on the decoy, then fails
+    public CompletableFuture<Verification> verify(CharSequence rawPassword, String storedHash) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (storedHash == null) {
+                passwordEncoder.matches(rawPassword, decoyHash);
+                return Verification.REJECTED;
+            }
+            if (!passwordEncoder.matches(rawPassword, storedHash)) {
+                return Verification.REJECTED;
+            }
+            // Rehash in the same task while the plain text is at hand
+            String upgraded = passwordEncoder.upgradeEncoding(storedHash) ? passwordEncoder.encode(rawPassword) : null;
+            return new Verification(true, upgraded);
+        }, executor);
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+}
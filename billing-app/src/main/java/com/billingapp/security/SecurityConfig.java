@@ -0,0 +1,66 @@
+package com.billingapp.security;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
+
+@Configuration
+public class SecurityConfig {
+
+    // Cost from billing.auth.bcrypt.strength, or calibrated at startup to the target latency when 0.
+    // Stored hashes with a lower cost are upgraded on the next successful login.
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${billing.auth.bcrypt.strength:0}") int strength,
+                                           @Value("${billing.auth.bcrypt.target-latency:PT0.25S}") Duration targetLatency) {
+        return new BCryptPasswordEncoder(strength > 0 ? strength : BcryptCalibrator.calibrate(targetLatency));
+    }
+
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
+        return authConfig.getAuthenticationManager();
+    }
+
+    // Stateless: every request carries its JWT, no session or CSRF token is kept
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtil jwtUtil) throws Exception {
+        return http
+                .csrf(AbstractHttpConfigurer::disable)
+                .cors(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Streamed responses (exports, PDF batches) finish on an async dispatch that carries no
+                        // JWT; the request that started them was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/auth/**", "/actuator/health").permitAll()
+                        // Scraped on the private management port (management.server.port)
+                        .requestMatchers("/actuator/prometheus").permitAll()
+                        // WebSocket handshake; STOMP CONNECT carries and checks the JWT (WebSocketConfig)
+                        .requestMatchers("/ws/**").permitAll()
+                        // Maintenance jobs that span every user's data
+                        .requestMatchers(HttpMethod.POST, "/api/dashboard/aggregates/rebuild", "/api/analytics/items/rebuild")
+                        .hasRole("ADMIN")
+                        // Tax rule sets are shared by every user of a jurisdiction; reading them stays open
+                        .requestMatchers(HttpMethod.POST, "/api/tax/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil), UsernamePasswordAuthenticationFilter.class)
+                .build();
+    }
+}
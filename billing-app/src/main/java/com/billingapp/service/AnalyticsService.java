@@ -0,0 +1,141 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.CurrencyAmount;
+import com.billingapp.dto.LedgerPoint;
+import com.billingapp.dto.ReceivablesAgeing;
+import com.billingapp.dto.TopItem;
+import com.billingapp.model.LedgerAggregate.PeriodType;
+import com.billingapp.repository.ItemRevenueRollupRepository;
+import com.billingapp.repository.LedgerAggregateRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Read side of the dashboard analytics. Everything is answered from ledger_aggregates and
+// item_revenue_rollups, so the cost depends on the number of buckets in range, not on the
+// number of invoices or line items behind them.
+@Service
+public class AnalyticsService {
+    public static final int MAX_TOP_ITEMS = 100;
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    private final LedgerAggregateRepository ledgerAggregateRepository;
+    private final LedgerAggregateService ledgerAggregateService;
+    private final ItemRevenueRollupRepository itemRevenueRollupRepository;
+
+    public AnalyticsService(LedgerAggregateRepository ledgerAggregateRepository,
+                            LedgerAggregateService ledgerAggregateService,
+                            ItemRevenueRollupRepository itemRevenueRollupRepository) {
+        this.ledgerAggregateRepository = ledgerAggregateRepository;
+        this.ledgerAggregateService = ledgerAggregateService;
+        this.itemRevenueRollupRepository = itemRevenueRollupRepository;
+    }
+
+    // Buckets in [from, to) in `currency` (null = reporting currency); weeks start on Monday and
+    // are summed from the day buckets, each converted at its own day's rate
+    @Transactional(readOnly = true)
+    public List<LedgerPoint> series(Long userId, Granularity granularity, LocalDate from, LocalDate to, String currency) {
+        return switch (granularity) {
+            case DAY -> ledgerAggregateService.series(userId, PeriodType.DAY, from, to, currency);
+            case MONTH -> ledgerAggregateService.series(userId, PeriodType.MONTH, from, to, currency);
+            case WEEK -> weekly(ledgerAggregateService.series(userId, PeriodType.DAY, weekStart(from), to, currency));
+        };
+    }
+
+    private static List<LedgerPoint> weekly(List<LedgerPoint> days) {
+        List<LedgerPoint> weeks = new ArrayList<>();
+        LocalDate week = null;
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        boolean complete = true;
+        for (LedgerPoint day : days) {
+            LocalDate start = weekStart(day.periodStart());
+            if (!start.equals(week)) {
+                if (week != null) {
+                    weeks.add(new LedgerPoint(week, day.currency(), income, expenses, complete));
+                }
+                week = start;
+                income = BigDecimal.ZERO;
+                expenses = BigDecimal.ZERO;
+                complete = true;
+            }
+            income = income.add(day.income());
+            expenses = expenses.add(day.expenses());
+            complete &= day.complete();
+        }
+        if (week != null) {
+            weeks.add(new LedgerPoint(week, days.get(0).currency(), income, expenses, complete));
+        }
+        return weeks;
+    }
+
+    private static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Item rollups are monthly, so the range is widened to whole months
+    @Transactional(readOnly = true)
+    public List<TopItem> topItems(Long userId, LocalDate from, LocalDate to, String currency, int limit) {
+        LocalDate toMonth = to.withDayOfMonth(1).equals(to) ? to : to.withDayOfMonth(1).plusMonths(1);
+        return itemRevenueRollupRepository.findTopItems(userId, from.withDayOfMonth(1), toMonth, currency,
+                PageRequest.ofSize(Math.max(1, Math.min(limit, MAX_TOP_ITEMS))));
+    }
+
+    @Transactional(readOnly = true)
+    public List<CurrencyAmount> revenueByCurrency(Long userId, LocalDate from, LocalDate to) {
+        return ledgerAggregateRepository.sumIncomeByCurrency(userId, PeriodType.DAY, from, to);
+    }
+
+    // Current = invoice date within the last 30 days (or in the future). Undated invoices sit
+    // in the 1970 bucket and therefore show up as over 90 days.
+    @Transactional(readOnly = true)
+    public List<ReceivablesAgeing> receivablesAgeing(Long userId, LocalDate asOf) {
+        LocalDate d30 = asOf.minusDays(30);
+        LocalDate d60 = asOf.minusDays(60);
+        LocalDate d90 = asOf.minusDays(90);
+
+        Map<String, BigDecimal> total = byCurrency(ledgerAggregateRepository.sumReceivablesByCurrency(
+                userId, PeriodType.TOTAL, LedgerAggregateService.ALL_TIME, LedgerAggregateService.ALL_TIME.plusDays(1)));
+        Map<String, BigDecimal> over90 = byCurrency(ledgerAggregateRepository.sumReceivablesByCurrency(
+                userId, PeriodType.DAY, LedgerAggregateService.ALL_TIME, d90));
+        Map<String, BigDecimal> days61To90 = byCurrency(ledgerAggregateRepository.sumReceivablesByCurrency(
+                userId, PeriodType.DAY, d90, d60));
+        Map<String, BigDecimal> days31To60 = byCurrency(ledgerAggregateRepository.sumReceivablesByCurrency(
+                userId, PeriodType.DAY, d60, d30));
+
+        TreeSet<String> currencies = new TreeSet<>(total.keySet());
+        currencies.addAll(over90.keySet());
+        List<ReceivablesAgeing> result = new ArrayList<>();
+        for (String currency : currencies) {
+            BigDecimal sum = total.getOrDefault(currency, BigDecimal.ZERO);
+            BigDecimal old = over90.getOrDefault(currency, BigDecimal.ZERO);
+            BigDecimal b90 = days61To90.getOrDefault(currency, BigDecimal.ZERO);
+            BigDecimal b60 = days31To60.getOrDefault(currency, BigDecimal.ZERO);
+            if (sum.signum() == 0) {
+                continue;
+            }
+            BigDecimal current = sum.subtract(old).subtract(b90).subtract(b60);
+            result.add(new ReceivablesAgeing(currency, asOf, current, b60, b90, old, sum));
+        }
+        return result;
+    }
+
+    private static Map<String, BigDecimal> byCurrency(List<CurrencyAmount> amounts) {
+        Map<String, BigDecimal> map = new TreeMap<>();
+        for (CurrencyAmount amount : amounts) {
+            map.put(amount.currency(), amount.amount());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,89 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceExportRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// One CSV line per invoice item (invoice columns repeated); invoices without items get one line
+public class CsvInvoiceExportWriter implements InvoiceExportWriter {
+
+    private static final String HEADER = "invoice_id,title,customer_name,status,currency,subtotal,tax_percentage,"
+            + "tax_amount,discount_amount,total,cgst_amount,sgst_amount,igst_amount,tax_inclusive,invoice_date,"
+            + "user_id,item_id,item_name,item_price,item_quantity,item_discount_amount,item_tax_percentage\n";
+
+    private final Writer out;
+
+    public CsvInvoiceExportWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.out.write(HEADER);
+    }
+
+    @Override
+    public void write(InvoiceExportRow row) throws IOException {
+        field(row.invoiceId()).append(',');
+        text(row.title()).append(',');
+        text(row.customerName()).append(',');
+        text(row.status()).append(',');
+        text(row.currency()).append(',');
+        field(row.subtotal()).append(',');
+        field(row.taxPercentage()).append(',');
+        field(row.taxAmount()).append(',');
+        field(row.discountAmount()).append(',');
+        field(row.total()).append(',');
+        field(row.cgstAmount()).append(',');
+        field(row.sgstAmount()).append(',');
+        field(row.igstAmount()).append(',');
+        field(row.taxInclusive()).append(',');
+        field(row.invoiceDate() == null ? null : row.invoiceDate().toInstant()).append(',');
+        field(row.userId()).append(',');
+        field(row.itemId()).append(',');
+        text(row.itemName()).append(',');
+        field(row.itemPrice()).append(',');
+        field(row.itemQuantity()).append(',');
+        field(row.itemDiscountAmount()).append(',');
+        field(row.itemTaxPercentage()).append('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private Writer field(Object value) throws IOException {
+        if (value != null) {
+            out.write(value.toString());
+        }
+        return out;
+    }
+
+    // RFC 4180 quoting, only when the value needs it
+    private Writer text(String value) throws IOException {
+        if (value == null) {
+            return out;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return out;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return out;
+    }
+}
@@ -0,0 +1,58 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.EmailStatus;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.model.OutboundEmail;
+import com.billingapp.repository.OutboundEmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// Front door of the mail queue: requests only insert a row; MailDispatcher does the SMTP work
+@Service
+public class EmailService {
+
+    @Autowired
+    private OutboundEmailRepository outboundEmailRepository;
+
+    @Autowired
+    private InvoiceEventLog invoiceEventLog;
+
+    public OutboundEmail sendInvoiceEmail(String toEmail, String subject, String body) {
+        return enqueue(toEmail, subject, body, true, null, null);
+    }
+
+    // The queued row and its EMAIL_QUEUED event commit together
+    @Transactional
+    public OutboundEmail sendInvoicePdf(String toEmail, Long invoiceId, Long userId) {
+        OutboundEmail email = enqueue(toEmail, "Your Invoice", "Please find your invoice attached.", false, invoiceId,
+                userId);
+        invoiceEventLog.email(invoiceId, InvoiceEvent.Type.EMAIL_QUEUED, toEmail);
+        return email;
+    }
+
+    // Empty when the email does not exist or was not queued by the user
+    public Optional<EmailStatus> getStatus(Long id, Long userId) {
+        return outboundEmailRepository.findById(id)
+                .filter(email -> userId.equals(email.getUserId()))
+                .map(EmailStatus::from);
+    }
+
+    private OutboundEmail enqueue(String toEmail, String subject, String body, boolean html, Long invoiceId,
+                                  Long userId) {
+        OutboundEmail email = new OutboundEmail();
+        email.setRecipient(toEmail);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setHtml(html);
+        email.setInvoiceId(invoiceId);
+        email.setUserId(userId);
+        email.setStatus(OutboundEmail.Status.PENDING);
+        email.setCreatedAt(Instant.now());
+        email.setNextAttemptAt(email.getCreatedAt());
+        return outboundEmailRepository.save(email);
+    }
+}
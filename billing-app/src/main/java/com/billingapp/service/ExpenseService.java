@@ -0,0 +1,66 @@
+package com.billingapp.service;
+
+import com.billingapp.model.Expense;
+import com.billingapp.model.User;
+import com.billingapp.repository.ExpenseRepository;
+import com.billingapp.service.LedgerAggregateService.LedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.Optional;
+
+@Service
+public class ExpenseService {
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private LedgerAggregateService ledgerAggregateService;
+
+    @Transactional
+    public Expense createExpense(User user, Expense expense) {
+        // An id in the request body would make save() overwrite that (possibly another user's) expense
+        expense.setId(null);
+        expense.setUser(user);
+        if (expense.getDate() == null) {
+            expense.setDate(new Date());
+        }
+        Expense saved = expenseRepository.save(expense);
+        ledgerAggregateService.recordChange(LedgerEntry.NONE, ledgerAggregateService.entryOf(saved));
+        return saved;
+    }
+
+    // Empty when the expense does not exist or is not the user's
+    @Transactional
+    public Optional<Expense> updateExpense(Long userId, Long id, Expense details) {
+        return owned(userId, id).map(expense -> {
+            LedgerEntry before = ledgerAggregateService.entryOf(expense);
+            expense.setDescription(details.getDescription());
+            expense.setAmount(details.getAmount());
+            expense.setCurrency(details.getCurrency());
+            if (details.getDate() != null) {
+                expense.setDate(details.getDate());
+            }
+            Expense saved = expenseRepository.save(expense);
+            ledgerAggregateService.recordChange(before, ledgerAggregateService.entryOf(saved));
+            return saved;
+        });
+    }
+
+    @Transactional
+    public boolean deleteExpense(Long userId, Long id) {
+        Optional<Expense> expense = owned(userId, id);
+        expense.ifPresent(existing -> {
+            ledgerAggregateService.recordChange(ledgerAggregateService.entryOf(existing), LedgerEntry.NONE);
+            expenseRepository.delete(existing);
+        });
+        return expense.isPresent();
+    }
+
+    private Optional<Expense> owned(Long userId, Long id) {
+        return expenseRepository.findById(id).filter(expense -> expense.getUser().getId().equals(userId));
+    }
+}
@@ -0,0 +1,154 @@
+package com.billingapp.service;
+
+import com.billingapp.model.FxRate;
+import com.billingapp.money.FxRateTable;
+import com.billingapp.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the FX rate table in memory. The fx_rates table is the source of truth; it is optionally
+// seeded from a CSV file (billing.fx.file) at startup and re-read every reload interval, so rates
+// written by any node reach all of them. Readers take the current snapshot without locking and
+// never touch the database; a reload builds a complete new table and swaps it in atomically.
+@Service
+public class FxRateService {
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateRepository fxRateRepository;
+    private final TransactionTemplate tx;
+    private final String reportingCurrency;
+    private final String pivotCurrency;
+    private final String file;
+    private final AtomicReference<FxRateTable> table = new AtomicReference<>(FxRateTable.EMPTY);
+
+    public FxRateService(FxRateRepository fxRateRepository, PlatformTransactionManager transactionManager,
+                         @Value("${billing.reporting-currency:INR}") String reportingCurrency,
+                         @Value("${billing.fx.pivot-currency:USD}") String pivotCurrency,
+                         @Value("${billing.fx.file:}") String file) {
+        this.fxRateRepository = fxRateRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.reportingCurrency = reportingCurrency;
+        this.pivotCurrency = pivotCurrency;
+        this.file = file;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importFile() {
+        if (file.isBlank()) {
+            return;
+        }
+        List<FxRateTable.Rate> rates = parse(Path.of(file));
+        int changed = tx.execute(status -> upsert(rates));
+        log.info("Imported {} FX rates from {} ({} new or changed)", rates.size(), file, changed);
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${billing.fx.reload-ms:300000}")
+    public void reload() {
+        List<FxRateTable.Rate> rates = tx.execute(status -> fxRateRepository.findAll().stream()
+                .map(r -> new FxRateTable.Rate(r.getBaseCurrency(), r.getQuoteCurrency(), r.getEffectiveFrom(), r.getRate()))
+                .toList());
+        table.set(FxRateTable.of(rates, pivotCurrency, Instant.now()));
+    }
+
+    public FxRateTable current() {
+        return table.get();
+    }
+
+    public String reportingCurrency() {
+        return reportingCurrency;
+    }
+
+    private int upsert(List<FxRateTable.Rate> rates) {
+        Map<String, FxRate> existing = new HashMap<>();
+        for (FxRate row : fxRateRepository.findAll()) {
+            existing.put(rowKey(row.getBaseCurrency(), row.getQuoteCurrency(), row.getEffectiveFrom()), row);
+        }
+        List<FxRate> changed = new ArrayList<>();
+        for (FxRateTable.Rate rate : rates) {
+            FxRate row = existing.get(rowKey(rate.base(), rate.quote(), rate.effectiveFrom()));
+            if (row == null) {
+                row = new FxRate();
+                row.setBaseCurrency(rate.base());
+                row.setQuoteCurrency(rate.quote());
+                row.setEffectiveFrom(rate.effectiveFrom());
+                existing.put(rowKey(rate.base(), rate.quote(), rate.effectiveFrom()), row);
+            } else if (row.getRate().compareTo(rate.rate()) == 0) {
+                continue;
+            }
+            row.setRate(rate.rate());
+            changed.add(row);
+        }
+        fxRateRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private static String rowKey(String base, String quote, LocalDate effectiveFrom) {
+        return base + '/' + quote + '@' + effectiveFrom;
+    }
+
+    // CSV: effective_from,base,quote,rate (e.g. 2025-04-01,USD,INR,85.42); blank lines, # comments
+    // and a header line are ignored. Any other malformed line fails the import.
+    private static List<FxRateTable.Rate> parse(Path path) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read FX rate file " + path, e);
+        }
+        List<FxRateTable.Rate> rates = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#") || (i == 0 && line.startsWith("effective_from"))) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            try {
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException("expected 4 fields");
+                }
+                String base = currency(fields[1]);
+                String quote = currency(fields[2]);
+                BigDecimal rate = new BigDecimal(fields[3].trim());
+                if (rate.signum() <= 0 || base.equals(quote)) {
+                    throw new IllegalArgumentException("rate must be positive and between two currencies");
+                }
+                rates.add(new FxRateTable.Rate(base, quote, LocalDate.parse(fields[0].trim()), rate));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalStateException(path + " line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return rates;
+    }
+
+    private static String currency(String field) {
+        String code = field.trim().toUpperCase(Locale.ROOT);
+        if (code.length() != 3) {
+            throw new IllegalArgumentException("not a currency code: " + field);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,220 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.BulkInvoiceResponse;
+import com.billingapp.dto.BulkInvoiceResult;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.User;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.InvoiceCalculator;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class InvoiceBulkService {
+    public static final int MAX_INVOICES_PER_REQUEST = 10_000;
+
+    private final EntityManager entityManager;
+    private final LedgerAggregateService ledgerAggregateService;
+    private final ItemRevenueService itemRevenueService;
+    private final InvoiceEventLog invoiceEventLog;
+    private final TaxRuleService taxRuleService;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public InvoiceBulkService(EntityManager entityManager, LedgerAggregateService ledgerAggregateService,
+                              ItemRevenueService itemRevenueService, InvoiceEventLog invoiceEventLog,
+                              TaxRuleService taxRuleService, BillingMetrics billingMetrics,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${billing.bulk.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.ledgerAggregateService = ledgerAggregateService;
+        this.itemRevenueService = itemRevenueService;
+        this.invoiceEventLog = invoiceEventLog;
+        this.taxRuleService = taxRuleService;
+        this.billingMetrics = billingMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // Validates every record, then persists the valid ones in chunked transactions. Each chunk is
+    // flushed as JDBC batches (see hibernate.jdbc.batch_size) and the persistence context cleared.
+    // A chunk that fails at the database is replayed record by record so one bad row only fails itself.
+    public BulkInvoiceResponse importInvoices(User owner, List<Invoice> invoices) {
+        BulkInvoiceResult[] results = new BulkInvoiceResult[invoices.size()];
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+
+        for (int i = 0; i < invoices.size(); i++) {
+            Invoice invoice = invoices.get(i);
+            String error = prepare(owner, invoice);
+            if (error != null) {
+                results[i] = BulkInvoiceResult.rejected(i, error);
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == chunkSize) {
+                persistChunk(invoices, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persistChunk(invoices, chunk, results);
+        }
+
+        int created = 0, rejected = 0, failed = 0;
+        for (BulkInvoiceResult result : results) {
+            switch (result.status()) {
+                case CREATED -> created++;
+                case REJECTED -> rejected++;
+                case FAILED -> failed++;
+            }
+        }
+        return new BulkInvoiceResponse(created, rejected, failed, Arrays.asList(results));
+    }
+
+    private void persistChunk(List<Invoice> invoices, List<Integer> indexes, BulkInvoiceResult[] results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // One aggregate increment per touched bucket for the whole chunk
+                LedgerAggregateService.Changes ledger = new LedgerAggregateService.Changes();
+                ItemRevenueService.Changes items = new ItemRevenueService.Changes();
+                for (int index : indexes) {
+                    Invoice invoice = invoices.get(index);
+                    entityManager.persist(invoice);
+                    ledger.replace(LedgerAggregateService.LedgerEntry.NONE, ledgerAggregateService.entryOf(invoice));
+                    items.replace(List.of(), itemRevenueService.entriesOf(invoice));
+                }
+                ledgerAggregateService.apply(ledger);
+                itemRevenueService.apply(items);
+                invoiceEventLog.created(indexes.stream().map(invoices::get).toList());
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (int index : indexes) {
+                results[index] = BulkInvoiceResult.created(index, invoices.get(index).getId());
+            }
+        } catch (RuntimeException chunkFailure) {
+            for (int index : indexes) {
+                results[index] = persistOne(index, invoices.get(index));
+            }
+        }
+    }
+
+    private BulkInvoiceResult persistOne(int index, Invoice invoice) {
+        resetIds(invoice);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.persist(invoice);
+                ledgerAggregateService.recordChange(LedgerAggregateService.LedgerEntry.NONE, ledgerAggregateService.entryOf(invoice));
+                itemRevenueService.recordChange(List.of(), itemRevenueService.entriesOf(invoice));
+                invoiceEventLog.created(List.of(invoice));
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return BulkInvoiceResult.created(index, invoice.getId());
+        } catch (RuntimeException e) {
+            resetIds(invoice);
+            return BulkInvoiceResult.failed(index, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    // Ids handed out by the pooled generator are kept on the objects after a rollback
+    private static void resetIds(Invoice invoice) {
+        invoice.setId(null);
+        for (InvoiceItem item : invoice.getItems()) {
+            item.setId(null);
+        }
+    }
+
+    // Returns a validation message, or null once the invoice is linked, defaulted and totalled
+    private String prepare(User owner, Invoice invoice) {
+        if (invoice == null) {
+            return "invoice is required";
+        }
+        if (invoice.getId() != null) {
+            return "id must not be set";
+        }
+        if (invoice.getCustomerName() == null || invoice.getCustomerName().isBlank()) {
+            return "customerName is required";
+        }
+        if (invoice.getCurrency() == null || invoice.getCurrency().length() != 3) {
+            return "currency must be a 3-letter code";
+        }
+        if (invoice.getTaxPercentage() == null) {
+            invoice.setTaxPercentage(BigDecimal.ZERO);
+        }
+        if (invoice.getDiscountAmount() == null) {
+            invoice.setDiscountAmount(BigDecimal.ZERO);
+        }
+        if (invoice.getTaxPercentage().signum() < 0 || invoice.getTaxPercentage().compareTo(BigDecimal.valueOf(100)) > 0) {
+            return "taxPercentage must be between 0 and 100";
+        }
+        if (invoice.getDiscountAmount().signum() < 0) {
+            return "discountAmount must not be negative";
+        }
+        if (invoice.getItems() == null) {
+            return "items must not be null";
+        }
+
+        for (int i = 0; i < invoice.getItems().size(); i++) {
+            InvoiceItem item = invoice.getItems().get(i);
+            if (item == null) {
+                return "items[" + i + "] is required";
+            }
+            if (item.getId() != null) {
+                return "items[" + i + "].id must not be set";
+            }
+            if (item.getName() == null || item.getName().isBlank()) {
+                return "items[" + i + "].name is required";
+            }
+            if (item.getQuantity() <= 0) {
+                return "items[" + i + "].quantity must be positive";
+            }
+            if (!Double.isFinite(item.getPrice())) {
+                return "items[" + i + "].price must be a finite number";
+            }
+            if (item.getPrice() < 0) {
+                return "items[" + i + "].price must not be negative";
+            }
+            if (item.getTaxPercentage() != null
+                    && (item.getTaxPercentage().signum() < 0 || item.getTaxPercentage().compareTo(BigDecimal.valueOf(100)) > 0)) {
+                return "items[" + i + "].taxPercentage must be between 0 and 100";
+            }
+            if (item.getDiscountAmount() != null && item.getDiscountAmount().signum() < 0) {
+                return "items[" + i + "].discountAmount must not be negative";
+            }
+            if (item.getTaxCategory() != null) {
+                if (item.getTaxCategory().length() > 64) {
+                    return "items[" + i + "].taxCategory is longer than 64 characters";
+                }
+                item.setTaxCategory(item.getTaxCategory().isBlank() ? null : CompiledTaxRules.normalize(item.getTaxCategory()));
+            }
+            item.setInvoice(invoice);
+        }
+
+        invoice.setUser(owner);
+        invoice.applyDefaults();
+        long startedAt = System.nanoTime();
+        try {
+            InvoiceCalculator.recalculate(invoice, taxRuleService.rulesFor(invoice));
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } catch (ArithmeticException e) {
+            return "amounts out of range: " + e.getMessage();
+        } finally {
+            billingMetrics.record(BillingMetrics.INVOICE_TOTALS, startedAt);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,161 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceChange;
+import com.billingapp.dto.InvoiceChangeBatch;
+import com.billingapp.model.InvoiceEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-user invoice change feed, fed from the invoice event log by OutboxRelay. Changes are
+// parked per invoice and flushed every debounce interval, so a burst of edits to one invoice
+// becomes one entry and a bulk edit one message per user. Each flushed change gets an offset and is kept in a bounded per-user
+// buffer, from which a reconnecting client resumes; older gaps are answered with resync.
+@Service
+public class InvoiceChangeFeed implements InvoiceEventConsumer {
+    public static final String DESTINATION = "/queue/invoice-changes";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int bufferSize;
+    private final int maxBatch;
+    // Seeded from the clock so offsets keep increasing across restarts and stale ones resync
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1_000);
+    private final Cache<Long, UserFeed> feeds;
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    public InvoiceChangeFeed(SimpMessagingTemplate messagingTemplate,
+                             @Value("${billing.feed.buffer-size:256}") int bufferSize,
+                             @Value("${billing.feed.max-batch:200}") int maxBatch,
+                             @Value("${billing.feed.idle-expiry:PT1H}") Duration idleExpiry) {
+        this.messagingTemplate = messagingTemplate;
+        this.bufferSize = bufferSize;
+        this.maxBatch = maxBatch;
+        this.feeds = Caffeine.newBuilder().expireAfterAccess(idleExpiry).build();
+    }
+
+    private final class UserFeed {
+        // ReentrantLock rather than synchronized so virtual threads never pin on it
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, InvoiceChange> pending = new LinkedHashMap<>();
+        final ArrayDeque<InvoiceChange> retained = new ArrayDeque<>(bufferSize);
+        // Changes at or below floor are no longer retained
+        long floor = sequence.get();
+        long latest = floor;
+        boolean overflowed;
+    }
+
+    @Override
+    public String consumerName() {
+        return "invoice-change-feed";
+    }
+
+    // Only parks the changes; the debounced flush sends them, so a redelivered batch is harmless
+    @Override
+    public void handle(List<InvoiceEvent> events) {
+        for (InvoiceEvent event : events) {
+            InvoiceChange change = InvoiceChange.of(event);
+            Long userId = event.getUserId();
+            if (change == null || userId == null) {
+                continue;
+            }
+            UserFeed feed = feeds.get(userId, id -> new UserFeed());
+            feed.lock.lock();
+            try {
+                if (feed.pending.size() >= maxBatch) {
+                    feed.overflowed = true;
+                } else {
+                    feed.pending.merge(change.invoiceId(), change, InvoiceChange::coalesce);
+                }
+            } finally {
+                feed.lock.unlock();
+            }
+            dirtyUsers.add(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.feed.debounce-ms:250}")
+    public void flush() {
+        for (Long userId : dirtyUsers) {
+            dirtyUsers.remove(userId);
+            UserFeed feed = feeds.getIfPresent(userId);
+            if (feed == null) {
+                continue;
+            }
+            InvoiceChangeBatch batch = drain(feed);
+            if (batch != null) {
+                messagingTemplate.convertAndSendToUser(userId.toString(), DESTINATION, batch);
+            }
+        }
+    }
+
+    private InvoiceChangeBatch drain(UserFeed feed) {
+        feed.lock.lock();
+        try {
+            long since = feed.latest;
+            if (feed.overflowed) {
+                // Too many changes for one message: drop them and tell the client to refetch once
+                feed.pending.clear();
+                feed.retained.clear();
+                feed.overflowed = false;
+                feed.latest = sequence.incrementAndGet();
+                feed.floor = feed.latest;
+                return new InvoiceChangeBatch(since, feed.latest, true, List.of());
+            }
+            if (feed.pending.isEmpty()) {
+                return null;
+            }
+            List<InvoiceChange> changes = new ArrayList<>(feed.pending.size());
+            for (InvoiceChange change : feed.pending.values()) {
+                InvoiceChange sequenced = change.withOffset(sequence.incrementAndGet());
+                if (feed.retained.size() == bufferSize) {
+                    feed.floor = feed.retained.removeFirst().offset();
+                }
+                feed.retained.addLast(sequenced);
+                changes.add(sequenced);
+            }
+            feed.pending.clear();
+            feed.latest = changes.get(changes.size() - 1).offset();
+            return new InvoiceChangeBatch(since, feed.latest, false, List.copyOf(changes));
+        } finally {
+            feed.lock.unlock();
+        }
+    }
+
+    public int pendingUsers() {
+        return dirtyUsers.size();
+    }
+
+    // Retained changes after `since`; resync when part of that range is no longer held
+    public InvoiceChangeBatch since(Long userId, long since) {
+        UserFeed feed = feeds.get(userId, id -> new UserFeed());
+        feed.lock.lock();
+        try {
+            if (since < feed.floor) {
+                return new InvoiceChangeBatch(since, feed.latest, true, List.of());
+            }
+            List<InvoiceChange> changes = new ArrayList<>();
+            for (InvoiceChange change : feed.retained) {
+                if (change.offset() > since) {
+                    changes.add(change);
+                }
+            }
+            return new InvoiceChangeBatch(since, Math.max(since, feed.latest), false, changes);
+        } finally {
+            feed.lock.unlock();
+        }
+    }
+}
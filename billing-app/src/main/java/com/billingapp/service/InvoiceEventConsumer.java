@@ -0,0 +1,15 @@
+package com.billingapp.service;
+
+import com.billingapp.model.InvoiceEvent;
+
+import java.util.List;
+
+// In-process subscriber to the invoice event log. OutboxRelay delivers committed events in
+// order, in batches, at least once: a batch whose handler throws is delivered again.
+public interface InvoiceEventConsumer {
+
+    // Stable name; the consumer's read position is stored under it
+    String consumerName();
+
+    void handle(List<InvoiceEvent> events);
+}
@@ -0,0 +1,104 @@
+package com.billingapp.service;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.repository.InvoiceEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Writes invoice lifecycle events. MANDATORY: an event only exists if the change it records
+// commits, so callers append inside their own write transaction (the outbox half of the pattern).
+// Ids of events whose transaction rolls back are remembered, so OutboxRelay need not wait out the
+// hole they leave; holes left by other nodes close after billing.outbox.gap-timeout instead.
+@Service
+public class InvoiceEventLog {
+
+    private final InvoiceEventRepository invoiceEventRepository;
+    private final Cache<Long, Boolean> rolledBack = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public InvoiceEventLog(InvoiceEventRepository invoiceEventRepository) {
+        this.invoiceEventRepository = invoiceEventRepository;
+    }
+
+    // Call after the invoice is flushed so the event carries the version just written
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Invoice invoice, InvoiceEvent.Type type) {
+        track(List.of(invoiceEventRepository.save(eventOf(invoice, type, null))));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemsChanged(Invoice invoice, List<Long> itemIds) {
+        track(List.of(invoiceEventRepository.save(eventOf(invoice, InvoiceEvent.Type.ITEMS_CHANGED, itemIds))));
+    }
+
+    // Persisted with the invoices' own inserts, so JDBC batching covers the events too
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(List<Invoice> invoices) {
+        List<InvoiceEvent> events = new ArrayList<>(invoices.size());
+        for (Invoice invoice : invoices) {
+            events.add(eventOf(invoice, InvoiceEvent.Type.CREATED, null));
+        }
+        track(invoiceEventRepository.saveAll(events));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void email(Long invoiceId, InvoiceEvent.Type type, String detail) {
+        InvoiceEvent event = new InvoiceEvent();
+        event.setInvoiceId(invoiceId);
+        event.setType(type);
+        event.setDetail(detail == null || detail.length() <= 1000 ? detail : detail.substring(0, 1000));
+        event.setCreatedAt(Instant.now());
+        track(List.of(invoiceEventRepository.save(event)));
+    }
+
+    // True when the id went to an event of a transaction on this node that rolled back
+    public boolean rolledBack(long id) {
+        return rolledBack.getIfPresent(id) != null;
+    }
+
+    // Ids are assigned on save, so they are known here even though the inserts are still batched
+    private void track(List<InvoiceEvent> events) {
+        List<Long> ids = events.stream().map(InvoiceEvent::getId).toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    ids.forEach(id -> rolledBack.put(id, Boolean.TRUE));
+                }
+            }
+        });
+    }
+
+    // Reading the id of the lazy Invoice.user proxy does not initialise it
+    private static InvoiceEvent eventOf(Invoice invoice, InvoiceEvent.Type type, List<Long> itemIds) {
+        InvoiceEvent event = new InvoiceEvent();
+        event.setInvoiceId(invoice.getId());
+        event.setUserId(invoice.getUser() == null ? null : invoice.getUser().getId());
+        event.setType(type);
+        event.setVersion(invoice.getVersion());
+        event.setStatus(invoice.getStatus());
+        event.setCurrency(invoice.getCurrency());
+        event.setSubtotal(invoice.getSubtotal());
+        event.setTaxAmount(invoice.getTaxAmount());
+        event.setTotal(invoice.getTotal());
+        if (itemIds != null && !itemIds.isEmpty()) {
+            event.setItemIds(itemIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+}
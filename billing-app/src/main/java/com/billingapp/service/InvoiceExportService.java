@@ -0,0 +1,50 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceExportRow;
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.repository.InvoiceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class InvoiceExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InvoiceRepository invoiceRepository;
+
+    public InvoiceExportService(InvoiceRepository invoiceRepository) {
+        this.invoiceRepository = invoiceRepository;
+    }
+
+    // Streams every matching invoice and item to out; returns the number of rows written.
+    // Rows are DTO projections read through a forward-only cursor, so nothing accumulates
+    // in the persistence context or on the heap.
+    @Transactional(readOnly = true)
+    public long export(InvoiceFilter filter, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip
+                ? new GZIPOutputStream(out, BUFFER_SIZE)
+                : new BufferedOutputStream(out, BUFFER_SIZE);
+        long rows = 0;
+        try (Stream<InvoiceExportRow> stream = invoiceRepository.streamExportRows(
+                filter.userId(), filter.status(), filter.currency(), filter.from(), filter.to());
+             InvoiceExportWriter writer = InvoiceExportWriter.create(format, target)) {
+            Iterator<InvoiceExportRow> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                rows++;
+            }
+        }
+        if (target instanceof GZIPOutputStream gz) {
+            gz.finish();
+        }
+        target.flush();
+        return rows;
+    }
+}
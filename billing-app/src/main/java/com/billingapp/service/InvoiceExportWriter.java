@@ -0,0 +1,27 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceExportRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Serializes export rows straight to an output stream. Rows must arrive grouped by invoice id.
+public interface InvoiceExportWriter extends AutoCloseable {
+
+    void write(InvoiceExportRow row) throws IOException;
+
+    // Flushes buffered output; does not close the underlying stream
+    void finish() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+        finish();
+    }
+
+    static InvoiceExportWriter create(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonInvoiceExportWriter(out);
+            case CSV -> new CsvInvoiceExportWriter(out);
+        };
+    }
+}
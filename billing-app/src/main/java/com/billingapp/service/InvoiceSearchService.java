@@ -0,0 +1,276 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.dto.InvoiceSearchHit;
+import com.billingapp.dto.InvoiceSearchResult;
+import com.billingapp.dto.InvoiceSummary;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.search.InvoiceAnalyzers;
+import com.billingapp.search.InvoiceDocument;
+import com.billingapp.search.InvoiceSearchQuery;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Embedded Lucene index over customer names, titles and item names, kept on local disk and fed
+// from the invoice event log by OutboxRelay (so it trails commits by the relay's poll interval).
+// Each delivered batch re-reads the touched invoices and is committed to the index before the
+// relay moves its cursor. The index is rebuilt from the database in the background when it is
+// missing or was written with an older layout; searches meanwhile see a partial index.
+@Service
+public class InvoiceSearchService implements InvoiceEventConsumer {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    // Bump when documents or analysis change so every node rebuilds its index on startup
+    private static final String LAYOUT_VERSION = "1";
+    private static final String LAYOUT_KEY = "layout";
+    private static final int PAGE_SIZE = 500;
+    private static final Logger log = LoggerFactory.getLogger(InvoiceSearchService.class);
+
+    private static final Sort BY_RELEVANCE = new Sort(SortField.FIELD_SCORE, newestFirst());
+    private static final Sort BY_DATE = new Sort(newestFirst());
+
+    private final InvoiceRepository invoiceRepository;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate readOnlyTx;
+    private final Analyzer queryAnalyzer = InvoiceAnalyzers.words();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ExecutorService rebuildRunner = Executors.newVirtualThreadPerTaskExecutor();
+    // Invoices changed while a rebuild runs; re-read once it finishes so no stale page wins
+    private volatile Set<Long> touchedDuringRebuild;
+
+    public InvoiceSearchService(InvoiceRepository invoiceRepository, BillingMetrics billingMetrics,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${billing.search.directory:search-index/}") String indexDirectory,
+                                @Value("${billing.search.ram-buffer-mb:64}") double ramBufferMb) throws IOException {
+        this.invoiceRepository = invoiceRepository;
+        this.billingMetrics = billingMetrics;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.directory = FSDirectory.open(Paths.get(indexDirectory));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(InvoiceAnalyzers.indexing())
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(ramBufferMb));
+        this.searcherManager = new SearcherManager(writer, new SearcherFactory());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        rebuildRunner.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (!LAYOUT_VERSION.equals(commitData().get(LAYOUT_KEY))) {
+            rebuildRunner.execute(this::rebuild);
+        }
+    }
+
+    @Override
+    public String consumerName() {
+        return "invoice-search";
+    }
+
+    @Override
+    public void handle(List<InvoiceEvent> events) {
+        Set<Long> invoiceIds = new LinkedHashSet<>();
+        for (InvoiceEvent event : events) {
+            switch (event.getType()) {
+                case CREATED, UPDATED, STATUS_CHANGED, PAID, ITEMS_CHANGED, DELETED -> invoiceIds.add(event.getInvoiceId());
+                default -> {
+                }
+            }
+        }
+        if (invoiceIds.isEmpty()) {
+            return;
+        }
+        Set<Long> touched = touchedDuringRebuild;
+        if (touched != null) {
+            touched.addAll(invoiceIds);
+        }
+        try {
+            // Runs inside the relay's transaction, so the invoices are read as of this batch
+            reindex(invoiceIds);
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Makes recent index writes visible to searches
+    @Scheduled(fixedDelayString = "${billing.search.refresh-ms:500}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public InvoiceSearchResult search(String text, boolean prefix, InvoiceFilter filter, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        Query textQuery = InvoiceSearchQuery.text(queryAnalyzer, text, prefix);
+        Query query = InvoiceSearchQuery.filtered(textQuery, filter);
+        long startedAt = System.nanoTime();
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(query, size, textQuery != null ? BY_RELEVANCE : BY_DATE, textQuery != null);
+            StoredFields stored = searcher.storedFields();
+            List<InvoiceSearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Float score = textQuery != null ? scoreDoc.score : null;
+                hits.add(InvoiceDocument.hit(stored.document(scoreDoc.doc), score));
+            }
+            return new InvoiceSearchResult(top.totalHits.value, top.totalHits.relation == TotalHits.Relation.EQUAL_TO,
+                    List.copyOf(hits));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (searcher != null) {
+                release(searcher);
+            }
+            billingMetrics.record(BillingMetrics.SEARCH, startedAt);
+        }
+    }
+
+    // Indexes the current state of each invoice; ids that no longer exist are removed
+    private void reindex(Set<Long> invoiceIds) throws IOException {
+        List<Long> ids = new ArrayList<>(invoiceIds);
+        for (int from = 0; from < ids.size(); from += PAGE_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + PAGE_SIZE, ids.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            for (Invoice invoice : invoiceRepository.findAllWithItemsByIdIn(chunk)) {
+                writer.updateDocument(InvoiceDocument.idTerm(invoice.getId()), InvoiceDocument.of(invoice));
+                missing.remove(invoice.getId());
+            }
+            for (Long id : missing) {
+                writer.deleteDocuments(InvoiceDocument.idTerm(id));
+            }
+        }
+    }
+
+    // Walks every invoice in keyset pages (newest first, so recent invoices are searchable soonest)
+    private void rebuild() {
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+        try {
+            log.info("Rebuilding invoice search index");
+            writer.deleteAll();
+            Long afterId = null;
+            long indexed = 0;
+            boolean more = true;
+            while (more && !Thread.currentThread().isInterrupted()) {
+                Long lastId = afterId;
+                List<Long> ids = readOnlyTx.execute(status -> indexPage(lastId));
+                indexed += ids.size();
+                more = ids.size() == PAGE_SIZE;
+                afterId = ids.isEmpty() ? afterId : ids.get(ids.size() - 1);
+            }
+            Set<Long> touched = touchedDuringRebuild;
+            touchedDuringRebuild = null;
+            readOnlyTx.executeWithoutResult(status -> {
+                try {
+                    reindex(touched);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!more) {
+                writer.setLiveCommitData(Map.of(LAYOUT_KEY, LAYOUT_VERSION).entrySet());
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.info("Invoice search index rebuilt: {} invoices", indexed);
+        } catch (IOException | RuntimeException e) {
+            // The layout marker is not written, so the next start tries again
+            touchedDuringRebuild = null;
+            log.error("Invoice search index rebuild failed", e);
+        }
+    }
+
+    private List<Long> indexPage(Long afterId) {
+        List<InvoiceSummary> summaries = invoiceRepository.findSummariesAfter(afterId, null, null, null, null, null,
+                PageRequest.ofSize(PAGE_SIZE));
+        List<Long> ids = new ArrayList<>(summaries.size());
+        for (InvoiceSummary summary : summaries) {
+            ids.add(summary.id());
+        }
+        try {
+            for (Invoice invoice : invoiceRepository.findAllWithItemsByIdIn(ids)) {
+                writer.updateDocument(InvoiceDocument.idTerm(invoice.getId()), InvoiceDocument.of(invoice));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    // Invoices without a date sort last
+    private static SortField newestFirst() {
+        SortField field = new SortField(InvoiceDocument.INVOICE_DATE, SortField.Type.LONG, true);
+        field.setMissingValue(Long.MIN_VALUE);
+        return field;
+    }
+
+    private Map<String, String> commitData() {
+        Map<String, String> data = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(entry -> data.put(entry.getKey(), entry.getValue()));
+        }
+        return data;
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,22 +1,393 @@
-package com.example.billingapp.service;
+package com.billingapp.service;
 
-import com.example.billingapp.model.Invoice;
-import com.example.billingapp.repository.InvoiceRepository;
+import com.billingapp.config.CacheConfig;
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.dto.InvoiceItemPatch;
+import com.billingapp.dto.InvoiceItemPatchResult;
+import com.billingapp.dto.InvoicePage;
+import com.billingapp.dto.InvoiceSummary;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.money.InvoiceTotals;
+import com.billingapp.repository.InvoiceItemRepository;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.service.ItemRevenueService.ItemEntry;
+import com.billingapp.service.LedgerAggregateService.LedgerEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 public class InvoiceService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_ITEM_OPERATIONS = 1_000;
+
     @Autowired
     private InvoiceRepository invoiceRepository;
 
+    @Autowired
+    private InvoiceItemRepository invoiceItemRepository;
+
+    @Autowired
+    private LedgerAggregateService ledgerAggregateService;
+
+    @Autowired
+    private ItemRevenueService itemRevenueService;
+
+    @Autowired
+    private InvoiceEventLog invoiceEventLog;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private BillingMetrics billingMetrics;
+
+    @Autowired
+    private TaxRuleService taxRuleService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Every invoice write goes through here so the ledger and item rollups change, and the
+    // invoice event is appended, in the same transaction
+
+    @Transactional
     public Invoice saveInvoice(Invoice invoice) {
-        return invoiceRepository.save(invoice);
+        invoice.applyDefaults();
+        calculateTotal(invoice);
+        Invoice saved = invoiceRepository.save(invoice);
+        ledgerAggregateService.recordChange(LedgerEntry.NONE, ledgerAggregateService.entryOf(saved));
+        itemRevenueService.recordChange(List.of(), itemRevenueService.entriesOf(saved));
+        invoiceEventLog.append(saved, InvoiceEvent.Type.CREATED);
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Invoice> updateInvoice(Long id, Invoice invoiceDetails) {
+        return invoiceRepository.findById(id).map(invoice -> {
+            LedgerEntry before = ledgerAggregateService.entryOf(invoice);
+            List<ItemEntry> itemsBefore = itemRevenueService.entriesOf(invoice);
+            String statusBefore = invoice.getStatus();
+            invoice.setCustomerName(invoiceDetails.getCustomerName());
+            invoice.setTaxPercentage(invoiceDetails.getTaxPercentage());
+            invoice.setDiscountAmount(invoiceDetails.getDiscountAmount());
+            invoice.setCurrency(invoiceDetails.getCurrency());
+            invoice.setLogo(invoiceDetails.getLogo());
+            if (!Objects.equals(invoice.getTaxJurisdiction(), invoiceDetails.getTaxJurisdiction())) {
+                // A new jurisdiction starts on its latest rules
+                invoice.setTaxJurisdiction(invoiceDetails.getTaxJurisdiction());
+                invoice.setTaxRuleVersion(null);
+            }
+            invoice.setTaxInclusive(invoiceDetails.isTaxInclusive());
+            invoice.setSupplierState(invoiceDetails.getSupplierState());
+            invoice.setPlaceOfSupply(invoiceDetails.getPlaceOfSupply());
+            if (invoiceDetails.getStatus() != null) {
+                invoice.setStatus(invoiceDetails.getStatus());
+            }
+            calculateTotal(invoice);
+            // Flushed now so the event records the version this update writes
+            Invoice saved = invoiceRepository.saveAndFlush(invoice);
+            ledgerAggregateService.recordChange(before, ledgerAggregateService.entryOf(saved));
+            itemRevenueService.recordChange(itemsBefore, itemRevenueService.entriesOf(saved));
+            evictDetail(id);
+            invoiceEventLog.append(saved, becamePaid(statusBefore, saved) ? InvoiceEvent.Type.PAID : InvoiceEvent.Type.UPDATED);
+            return saved;
+        });
+    }
+
+    @Transactional
+    public Optional<Invoice> updateStatus(Long id, String status) {
+        return invoiceRepository.findById(id).map(invoice -> {
+            LedgerEntry before = ledgerAggregateService.entryOf(invoice);
+            List<ItemEntry> itemsBefore = itemRevenueService.entriesOf(invoice);
+            String statusBefore = invoice.getStatus();
+            invoice.setStatus(status);
+            Invoice saved = invoiceRepository.saveAndFlush(invoice);
+            ledgerAggregateService.recordChange(before, ledgerAggregateService.entryOf(saved));
+            itemRevenueService.recordChange(itemsBefore, itemRevenueService.entriesOf(saved));
+            evictDetail(id);
+            invoiceEventLog.append(saved, becamePaid(statusBefore, saved) ? InvoiceEvent.Type.PAID : InvoiceEvent.Type.STATUS_CHANGED);
+            return saved;
+        });
+    }
+
+    @Transactional
+    public boolean deleteInvoice(Long id) {
+        Optional<Invoice> invoice = invoiceRepository.findById(id);
+        invoice.ifPresent(existing -> {
+            ledgerAggregateService.recordChange(ledgerAggregateService.entryOf(existing), LedgerEntry.NONE);
+            itemRevenueService.recordChange(itemRevenueService.entriesOf(existing), List.of());
+            invoiceRepository.delete(existing);
+            evictDetail(id);
+            invoiceEventLog.append(existing, InvoiceEvent.Type.DELETED);
+        });
+        return invoice.isPresent();
+    }
+
+    // Applies add/update/remove operations as deltas on the stored totals: only the touched
+    // lines are loaded and the items collection is never initialised, so the cost depends on
+    // the size of the patch, not of the invoice. The invoice row is locked for the duration,
+    // so concurrent patches serialise, and every patch bumps the version exactly once.
+    // Empty when the invoice does not exist or is not the user's.
+    @Transactional
+    public Optional<InvoiceItemPatchResult> patchItems(Long userId, Long invoiceId, InvoiceItemPatch patch) {
+        List<InvoiceItemPatch.Operation> operations = patch.operations();
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("operations must not be empty");
+        }
+        if (operations.size() > MAX_ITEM_OPERATIONS) {
+            throw new IllegalArgumentException("at most " + MAX_ITEM_OPERATIONS + " operations per patch");
+        }
+
+        Optional<Invoice> invoiceOpt = invoiceRepository.findForUpdateById(invoiceId)
+                .filter(invoice -> invoice.getUser() != null && invoice.getUser().getId().equals(userId));
+        if (invoiceOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        Invoice invoice = invoiceOpt.get();
+        if (patch.expectedVersion() != null && patch.expectedVersion() != invoice.getVersion()) {
+            throw new OptimisticLockingFailureException("invoice " + invoiceId + " is at version "
+                    + invoice.getVersion() + ", not " + patch.expectedVersion());
+        }
+        BigDecimal storedSubtotal = invoice.getSubtotal();
+        BigDecimal storedTax = invoice.getTaxAmount();
+        BigDecimal storedTotal = invoice.getTotal();
+
+        Map<Long, InvoiceItem> existing = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        for (InvoiceItemPatch.Operation op : operations) {
+            if (op.op() == null) {
+                throw new IllegalArgumentException("op is required");
+            }
+            if (op.op() != InvoiceItemPatch.Op.ADD) {
+                if (op.itemId() == null) {
+                    throw new IllegalArgumentException(op.op() + " needs an itemId");
+                }
+                ids.add(op.itemId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            for (InvoiceItem item : invoiceItemRepository.findByInvoiceIdAndIdIn(invoiceId, ids)) {
+                existing.put(item.getId(), item);
+            }
+        }
+
+        LedgerEntry before = ledgerAggregateService.entryOf(invoice);
+        ItemRevenueService.Changes itemChanges = new ItemRevenueService.Changes();
+        CompiledTaxRules rules = taxRuleService.rulesFor(invoice);
+        InvoiceTotals totals = InvoiceCalculator.start(invoice,
+                !existing.isEmpty() || invoiceItemRepository.existsByInvoiceId(invoiceId), rules);
+        List<Long> itemIds = new ArrayList<>(operations.size());
+
+        for (InvoiceItemPatch.Operation op : operations) {
+            switch (op.op()) {
+                case ADD -> {
+                    InvoiceItem item = new InvoiceItem();
+                    item.setInvoice(invoice);
+                    apply(op, item, true);
+                    invoiceItemRepository.save(item);
+                    if (Hibernate.isInitialized(invoice.getItems())) {
+                        invoice.getItems().add(item);
+                    }
+                    InvoiceCalculator.addItem(totals, invoice, item, rules);
+                    itemChanges.replace(List.of(), itemRevenueService.entriesOf(invoice, item));
+                    itemIds.add(item.getId());
+                }
+                case UPDATE -> {
+                    InvoiceItem item = lineOf(existing, op);
+                    List<ItemEntry> itemBefore = itemRevenueService.entriesOf(invoice, item);
+                    InvoiceCalculator.removeItem(totals, invoice, item, rules);
+                    apply(op, item, false);
+                    InvoiceCalculator.addItem(totals, invoice, item, rules);
+                    itemChanges.replace(itemBefore, itemRevenueService.entriesOf(invoice, item));
+                    itemIds.add(item.getId());
+                }
+                case REMOVE -> {
+                    InvoiceItem item = lineOf(existing, op);
+                    InvoiceCalculator.removeItem(totals, invoice, item, rules);
+                    itemChanges.replace(itemRevenueService.entriesOf(invoice, item), List.of());
+                    if (Hibernate.isInitialized(invoice.getItems())) {
+                        invoice.getItems().remove(item);
+                    }
+                    invoiceItemRepository.delete(item);
+                    existing.remove(item.getId());
+                    itemIds.add(item.getId());
+                }
+            }
+        }
+
+        InvoiceCalculator.finish(invoice, totals, rules);
+        if (sameAmount(storedSubtotal, invoice.getSubtotal()) && sameAmount(storedTax, invoice.getTaxAmount())
+                && sameAmount(storedTotal, invoice.getTotal())) {
+            // Totals unchanged (e.g. a rename), so the row is not dirty; bump the version explicitly
+            entityManager.lock(invoice, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        }
+        Invoice saved = invoiceRepository.saveAndFlush(invoice);
+        ledgerAggregateService.recordChange(before, ledgerAggregateService.entryOf(saved));
+        itemRevenueService.apply(itemChanges);
+        evictDetail(invoiceId);
+        invoiceEventLog.itemsChanged(saved, itemIds);
+        return Optional.of(new InvoiceItemPatchResult(saved.getId(), saved.getVersion(), saved.getSubtotal(),
+                saved.getTaxAmount(), saved.getTotal(), itemIds));
+    }
+
+    @Transactional
+    public Optional<InvoiceItemPatchResult> addItem(Long userId, Long invoiceId, InvoiceItem item) {
+        return patchItems(userId, invoiceId, InvoiceItemPatch.of(InvoiceItemPatch.Operation.add(item)));
+    }
+
+    @Transactional
+    public Optional<InvoiceItemPatchResult> updateItem(Long userId, Long itemId, InvoiceItem item) {
+        return invoiceItemRepository.findInvoiceIdById(itemId).flatMap(invoiceId ->
+                patchItems(userId, invoiceId, InvoiceItemPatch.of(InvoiceItemPatch.Operation.update(itemId, item))));
+    }
+
+    @Transactional
+    public Optional<InvoiceItemPatchResult> removeItem(Long userId, Long invoiceId, Long itemId) {
+        return patchItems(userId, invoiceId, InvoiceItemPatch.of(InvoiceItemPatch.Operation.remove(itemId)));
+    }
+
+    @Transactional
+    public Optional<InvoiceItemPatchResult> removeItem(Long userId, Long itemId) {
+        return invoiceItemRepository.findInvoiceIdById(itemId).flatMap(invoiceId -> removeItem(userId, invoiceId, itemId));
+    }
+
+    // The cache manager is transaction-aware, so the eviction runs after commit, once the new
+    // state is visible to the next reader (and not at all if the transaction rolls back)
+    private void evictDetail(Long invoiceId) {
+        Cache cache = cacheManager.getCache(CacheConfig.INVOICE_DETAILS);
+        if (cache != null) {
+            cache.evict(invoiceId);
+        }
+    }
+
+    // Rule-based when the invoice has a tax jurisdiction (IllegalArgumentException if it has no rules)
+    private void calculateTotal(Invoice invoice) {
+        CompiledTaxRules rules = taxRuleService.rulesFor(invoice);
+        long startedAt = System.nanoTime();
+        try {
+            InvoiceCalculator.recalculate(invoice, rules);
+        } finally {
+            billingMetrics.record(BillingMetrics.INVOICE_TOTALS, startedAt);
+        }
     }
 
-    public List<Invoice> getAllInvoices() {
-        return invoiceRepository.findAll();
+    private static boolean becamePaid(String statusBefore, Invoice invoice) {
+        return "Paid".equals(invoice.getStatus()) && !"Paid".equals(statusBefore);
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static InvoiceItem lineOf(Map<Long, InvoiceItem> existing, InvoiceItemPatch.Operation op) {
+        InvoiceItem item = existing.get(op.itemId());
+        if (item == null) {
+            throw new IllegalArgumentException("item " + op.itemId() + " is not on this invoice");
+        }
+        return item;
+    }
+
+    private static void apply(InvoiceItemPatch.Operation op, InvoiceItem item, boolean isNew) {
+        if (op.name() != null) {
+            if (op.name().isBlank()) {
+                throw new IllegalArgumentException("name must not be blank");
+            }
+            item.setName(op.name());
+        } else if (isNew) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (op.price() != null) {
+            if (op.price() < 0 || op.price().isNaN() || op.price().isInfinite()) {
+                throw new IllegalArgumentException("price must not be negative");
+            }
+            item.setPrice(op.price());
+        } else if (isNew) {
+            throw new IllegalArgumentException("price is required");
+        }
+        if (op.quantity() != null) {
+            if (op.quantity() <= 0) {
+                throw new IllegalArgumentException("quantity must be positive");
+            }
+            item.setQuantity(op.quantity());
+        } else if (isNew) {
+            throw new IllegalArgumentException("quantity is required");
+        }
+        if (op.taxPercentage() != null) {
+            if (op.taxPercentage().signum() < 0 || op.taxPercentage().compareTo(BigDecimal.valueOf(100)) > 0) {
+                throw new IllegalArgumentException("taxPercentage must be between 0 and 100");
+            }
+            item.setTaxPercentage(op.taxPercentage());
+        }
+        if (op.discountAmount() != null) {
+            if (op.discountAmount().signum() < 0) {
+                throw new IllegalArgumentException("discountAmount must not be negative");
+            }
+            item.setDiscountAmount(op.discountAmount());
+        }
+        if (op.taxCategory() != null) {
+            if (op.taxCategory().length() > 64) {
+                throw new IllegalArgumentException("taxCategory is longer than 64 characters");
+            }
+            item.setTaxCategory(op.taxCategory().isBlank() ? null : CompiledTaxRules.normalize(op.taxCategory()));
+        }
+    }
+
+    // Invoice plus items in a single query, detached into a DTO before the transaction ends.
+    // Paid invoices no longer change, so their details are kept in the near cache.
+    @Cacheable(cacheNames = CacheConfig.INVOICE_DETAILS, unless = "#result == null || !'Paid'.equals(#result.status())")
+    @Transactional(readOnly = true)
+    public Optional<InvoiceDetail> getInvoiceDetail(Long id) {
+        long startedAt = System.nanoTime();
+        try {
+            return invoiceRepository.findDetailById(id).map(this::detailOf);
+        } finally {
+            billingMetrics.record(BillingMetrics.INVOICE_LOAD, startedAt);
+        }
+    }
+
+    // Lines are priced with the tax rules the invoice was saved with; items must be loaded
+    public InvoiceDetail detailOf(Invoice invoice) {
+        return InvoiceDetail.from(invoice, taxRuleService.rulesOf(invoice));
+    }
+
+    public InvoicePage listInvoices(InvoiceFilter filter, String cursor, Integer pageSize) {
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        Long afterId = InvoiceCursor.decode(cursor);
+
+        // Fetch one extra row so we know whether there is a next page without a COUNT(*)
+        List<InvoiceSummary> rows = invoiceRepository.findSummariesAfter(afterId,
+                filter.userId(), filter.status(), filter.currency(), filter.from(), filter.to(),
+                PageRequest.ofSize(size + 1));
+
+        if (rows.size() <= size) {
+            return new InvoicePage(rows, rows.size(), null);
+        }
+        List<InvoiceSummary> page = rows.subList(0, size);
+        return new InvoicePage(page, size, InvoiceCursor.encode(page.get(size - 1).id()));
     }
-}
\ No newline at end of file
+}
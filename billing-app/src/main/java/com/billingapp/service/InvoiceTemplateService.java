@@ -0,0 +1,135 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceTemplateView;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.InvoiceTemplate;
+import com.billingapp.repository.InvoiceTemplateRepository;
+import com.billingapp.template.CharBufferPool;
+import com.billingapp.template.CompiledInvoiceTemplate;
+import com.billingapp.template.TemplateWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+// Renders invoices as HTML from compiled templates: the built-in one, or the owner's own.
+// Compiled user templates are cached; expiry bounds staleness when another node saves one.
+@Service
+public class InvoiceTemplateService {
+    public static final int MAX_TEMPLATE_LENGTH = 64 * 1024;
+    private static final String DEFAULT_TEMPLATE = "templates/invoice.html";
+
+    private final InvoiceTemplateRepository invoiceTemplateRepository;
+    private final BillingMetrics billingMetrics;
+    private final String defaultSource;
+    private final CompiledInvoiceTemplate defaultTemplate;
+    private final CharBufferPool buffers;
+    private final Cache<Long, UserTemplate> userTemplates;
+
+    public InvoiceTemplateService(InvoiceTemplateRepository invoiceTemplateRepository, BillingMetrics billingMetrics,
+                                  @Value("${billing.template.buffer-pool-size:64}") int bufferPoolSize,
+                                  @Value("${billing.template.buffer-size:8192}") int bufferSize,
+                                  @Value("${billing.template.cache-size:10000}") int cacheSize) throws IOException {
+        this.invoiceTemplateRepository = invoiceTemplateRepository;
+        this.billingMetrics = billingMetrics;
+        try (InputStream in = new ClassPathResource(DEFAULT_TEMPLATE).getInputStream()) {
+            this.defaultSource = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        this.defaultTemplate = CompiledInvoiceTemplate.compile(defaultSource);
+        this.buffers = new CharBufferPool(bufferPoolSize, bufferSize);
+        this.userTemplates = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats()
+                .build();
+    }
+
+    private record UserTemplate(CompiledInvoiceTemplate template, String logo) {
+    }
+
+    // Streams the page to `out` in buffer-sized chunks; nothing is held beyond one pooled buffer
+    public void render(InvoiceDetail invoice, Writer out) {
+        UserTemplate owner = invoice.userId() == null ? new UserTemplate(defaultTemplate, null) : templateFor(invoice.userId());
+        String invoiceLogo = safeLogo(invoice.logo());
+        String logo = invoiceLogo != null ? invoiceLogo : owner.logo();
+        long startedAt = System.nanoTime();
+        try (TemplateWriter writer = new TemplateWriter(out, buffers)) {
+            owner.template().render(invoice, logo, writer);
+        } finally {
+            billingMetrics.record(BillingMetrics.HTML_RENDER, startedAt);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public InvoiceTemplateView getTemplate(Long userId) {
+        return invoiceTemplateRepository.findById(userId)
+                .map(t -> new InvoiceTemplateView(t.getSource(), t.getLogo(), true, t.getUpdatedAt()))
+                .orElseGet(() -> new InvoiceTemplateView(defaultSource, null, false, null));
+    }
+
+    // Compiles before saving, so a broken template is refused (IllegalArgumentException) rather than
+    // stored. Not one transaction: the cache is invalidated once the save has committed.
+    public InvoiceTemplateView saveTemplate(Long userId, String source, String logo) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("source is required");
+        }
+        if (source.length() > MAX_TEMPLATE_LENGTH) {
+            throw new IllegalArgumentException("template is larger than " + MAX_TEMPLATE_LENGTH + " characters");
+        }
+        if (logo != null && !logo.isBlank() && safeLogo(logo) == null) {
+            throw new IllegalArgumentException("logo must be an http(s) URL or a data:image URI");
+        }
+        CompiledInvoiceTemplate.compile(source);
+
+        InvoiceTemplate template = invoiceTemplateRepository.findById(userId).orElseGet(InvoiceTemplate::new);
+        template.setUserId(userId);
+        template.setSource(source);
+        template.setLogo(logo == null || logo.isBlank() ? null : logo);
+        template.setUpdatedAt(Instant.now());
+        invoiceTemplateRepository.save(template);
+        userTemplates.invalidate(userId);
+        return new InvoiceTemplateView(template.getSource(), template.getLogo(), true, template.getUpdatedAt());
+    }
+
+    public void resetTemplate(Long userId) {
+        invoiceTemplateRepository.findById(userId).ifPresent(invoiceTemplateRepository::delete);
+        userTemplates.invalidate(userId);
+    }
+
+    public int availableBuffers() {
+        return buffers.available();
+    }
+
+    public Cache<Long, ?> compiledTemplates() {
+        return userTemplates;
+    }
+
+    private UserTemplate templateFor(Long userId) {
+        return userTemplates.get(userId, id -> {
+            Optional<InvoiceTemplate> stored = invoiceTemplateRepository.findById(id);
+            return stored
+                    .map(t -> new UserTemplate(CompiledInvoiceTemplate.compile(t.getSource()), safeLogo(t.getLogo())))
+                    .orElseGet(() -> new UserTemplate(defaultTemplate, null));
+        });
+    }
+
+    // Only schemes an <img src> can use harmlessly; anything else is treated as no logo
+    private static String safeLogo(String logo) {
+        if (logo == null) {
+            return null;
+        }
+        String value = logo.trim();
+        return value.startsWith("https://") || value.startsWith("http://") || value.startsWith("data:image/") ? value : null;
+    }
+}
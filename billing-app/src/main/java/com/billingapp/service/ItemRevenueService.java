@@ -0,0 +1,139 @@
+package com.billingapp.service;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.ItemRevenueRollup;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.repository.ItemRevenueRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps item_revenue_rollups in step with invoice writes, the same way LedgerAggregateService
+// does for the ledger: callers snapshot what an invoice contributed before their change and
+// only the difference is applied, as atomic increments inside the caller's transaction.
+// Only paid invoices count; a line's revenue is its net amount (after the line discount) before tax
+// and before the invoice-level discount.
+@Service
+public class ItemRevenueService {
+
+    private final ItemRevenueRollupRepository itemRevenueRollupRepository;
+    private final String reportingCurrency;
+
+    public ItemRevenueService(ItemRevenueRollupRepository itemRevenueRollupRepository,
+                              @Value("${billing.reporting-currency:INR}") String reportingCurrency) {
+        this.itemRevenueRollupRepository = itemRevenueRollupRepository;
+        this.reportingCurrency = reportingCurrency;
+    }
+
+    public record ItemEntry(Long userId, LocalDate month, String currency, String itemName,
+                            BigDecimal revenue, long quantity) {
+    }
+
+    // Detached copy of the invoice's contribution; take it before mutating the invoice
+    public List<ItemEntry> entriesOf(Invoice invoice) {
+        if (!counts(invoice) || invoice.getItems() == null || invoice.getItems().isEmpty()) {
+            return List.of();
+        }
+        List<ItemEntry> entries = new ArrayList<>(invoice.getItems().size());
+        for (InvoiceItem item : invoice.getItems()) {
+            entries.add(entryOf(invoice, item));
+        }
+        return entries;
+    }
+
+    // Contribution of a single line, for item-level edits that must not walk the whole invoice
+    public List<ItemEntry> entriesOf(Invoice invoice, InvoiceItem item) {
+        return counts(invoice) ? List.of(entryOf(invoice, item)) : List.of();
+    }
+
+    private static boolean counts(Invoice invoice) {
+        return invoice != null && invoice.getUser() != null && "Paid".equals(invoice.getStatus());
+    }
+
+    private ItemEntry entryOf(Invoice invoice, InvoiceItem item) {
+        String currency = invoice.getCurrency() != null ? invoice.getCurrency() : reportingCurrency;
+        return new ItemEntry(invoice.getUser().getId(), toMonth(invoice.getInvoiceDate()), currency,
+                itemName(item.getName()), InvoiceCalculator.lineNet(item, currency), item.getQuantity());
+    }
+
+    // Same normalisation as the rebuild query in ItemRevenueRollupRepository
+    static String itemName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return ItemRevenueRollup.UNNAMED;
+        }
+        return name.trim();
+    }
+
+    // Accumulates per-key deltas so a multi-invoice write issues one increment per touched row
+    public static final class Changes {
+        private record Key(Long userId, LocalDate month, String currency, String itemName) {
+        }
+
+        private static final class Delta {
+            private BigDecimal revenue = BigDecimal.ZERO;
+            private long quantity;
+        }
+
+        private final Map<Key, Delta> deltas = new HashMap<>();
+
+        public Changes replace(List<ItemEntry> before, List<ItemEntry> after) {
+            add(before, -1);
+            add(after, 1);
+            return this;
+        }
+
+        private void add(List<ItemEntry> entries, int sign) {
+            for (ItemEntry entry : entries) {
+                Delta delta = deltas.computeIfAbsent(
+                        new Key(entry.userId(), entry.month(), entry.currency(), entry.itemName()), k -> new Delta());
+                delta.revenue = sign > 0 ? delta.revenue.add(entry.revenue()) : delta.revenue.subtract(entry.revenue());
+                delta.quantity += sign * entry.quantity();
+            }
+        }
+    }
+
+    @Transactional
+    public void recordChange(List<ItemEntry> before, List<ItemEntry> after) {
+        if (before.isEmpty() && after.isEmpty()) {
+            return;
+        }
+        apply(new Changes().replace(before, after));
+    }
+
+    @Transactional
+    public void apply(Changes changes) {
+        changes.deltas.forEach((key, delta) -> {
+            if (delta.revenue.signum() != 0 || delta.quantity != 0) {
+                itemRevenueRollupRepository.increment(key.userId(), key.month(), key.currency(), key.itemName(),
+                        delta.revenue, delta.quantity);
+            }
+        });
+    }
+
+    // Recomputes every row from paid invoices; userId == null rebuilds all users
+    @Transactional
+    public void rebuild(Long userId) {
+        itemRevenueRollupRepository.deleteForUser(userId);
+        itemRevenueRollupRepository.rebuild(userId, reportingCurrency);
+    }
+
+    private static LocalDate toMonth(Date date) {
+        if (date == null) {
+            return LedgerAggregateService.ALL_TIME;
+        }
+        LocalDate day = date instanceof java.sql.Date sqlDate
+                ? sqlDate.toLocalDate()
+                : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return day.withDayOfMonth(1);
+    }
+}
@@ -0,0 +1,203 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.LedgerPoint;
+import com.billingapp.model.Expense;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.LedgerAggregate;
+import com.billingapp.model.LedgerAggregate.PeriodType;
+import com.billingapp.money.FxRateTable;
+import com.billingapp.repository.LedgerAggregateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps ledger_aggregates in step with invoice and expense writes. Callers describe what a
+// record contributed before and after their change; only the difference is written, as
+// atomic increments on the day, month and all-time buckets, inside the caller's transaction.
+@Service
+public class LedgerAggregateService {
+    public static final LocalDate ALL_TIME = LocalDate.EPOCH;
+
+    private final LedgerAggregateRepository ledgerAggregateRepository;
+    private final FxRateService fxRateService;
+    private final String reportingCurrency;
+
+    public LedgerAggregateService(LedgerAggregateRepository ledgerAggregateRepository, FxRateService fxRateService,
+                                  @Value("${billing.reporting-currency:INR}") String reportingCurrency) {
+        this.ledgerAggregateRepository = ledgerAggregateRepository;
+        this.fxRateService = fxRateService;
+        this.reportingCurrency = reportingCurrency;
+    }
+
+    // What one invoice or expense adds to the ledger. Paid invoices count as income, all
+    // other invoices as open receivables.
+    public record LedgerEntry(Long userId, LocalDate day, String currency, BigDecimal income, BigDecimal expenses,
+                              BigDecimal receivables) {
+
+        public static final LedgerEntry NONE = new LedgerEntry(null, ALL_TIME, "", BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public boolean isEmpty() {
+            return userId == null || (income.signum() == 0 && expenses.signum() == 0 && receivables.signum() == 0);
+        }
+    }
+
+    public LedgerEntry entryOf(Invoice invoice) {
+        if (invoice == null || invoice.getUser() == null || invoice.getTotal() == null) {
+            return LedgerEntry.NONE;
+        }
+        String currency = invoice.getCurrency() != null ? invoice.getCurrency() : reportingCurrency;
+        boolean paid = "Paid".equals(invoice.getStatus());
+        return new LedgerEntry(invoice.getUser().getId(), toDay(invoice.getInvoiceDate()), currency,
+                paid ? invoice.getTotal() : BigDecimal.ZERO, BigDecimal.ZERO, paid ? BigDecimal.ZERO : invoice.getTotal());
+    }
+
+    public LedgerEntry entryOf(Expense expense) {
+        if (expense == null || expense.getUser() == null || expense.getAmount() == null) {
+            return LedgerEntry.NONE;
+        }
+        String currency = expense.getCurrency() != null ? expense.getCurrency() : reportingCurrency;
+        return new LedgerEntry(expense.getUser().getId(), toDay(expense.getDate()), currency,
+                BigDecimal.ZERO, BigDecimal.valueOf(expense.getAmount()), BigDecimal.ZERO);
+    }
+
+    // Accumulates bucket deltas so a multi-record write issues one increment per touched bucket
+    public static final class Changes {
+        private record Bucket(Long userId, PeriodType periodType, LocalDate periodStart, String currency) {
+        }
+
+        private final Map<Bucket, BigDecimal[]> deltas = new HashMap<>();
+
+        public Changes replace(LedgerEntry before, LedgerEntry after) {
+            add(before, -1);
+            add(after, 1);
+            return this;
+        }
+
+        private void add(LedgerEntry entry, int sign) {
+            if (entry.isEmpty()) {
+                return;
+            }
+            add(new Bucket(entry.userId(), PeriodType.DAY, entry.day(), entry.currency()), entry, sign);
+            add(new Bucket(entry.userId(), PeriodType.MONTH, entry.day().withDayOfMonth(1), entry.currency()), entry, sign);
+            add(new Bucket(entry.userId(), PeriodType.TOTAL, ALL_TIME, entry.currency()), entry, sign);
+        }
+
+        private void add(Bucket bucket, LedgerEntry entry, int sign) {
+            BigDecimal[] sums = deltas.computeIfAbsent(bucket, b -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            sums[0] = sign > 0 ? sums[0].add(entry.income()) : sums[0].subtract(entry.income());
+            sums[1] = sign > 0 ? sums[1].add(entry.expenses()) : sums[1].subtract(entry.expenses());
+            sums[2] = sign > 0 ? sums[2].add(entry.receivables()) : sums[2].subtract(entry.receivables());
+        }
+    }
+
+    @Transactional
+    public void recordChange(LedgerEntry before, LedgerEntry after) {
+        apply(new Changes().replace(before, after));
+    }
+
+    @Transactional
+    public void apply(Changes changes) {
+        changes.deltas.forEach((bucket, sums) -> {
+            if (sums[0].signum() != 0 || sums[1].signum() != 0 || sums[2].signum() != 0) {
+                ledgerAggregateRepository.increment(bucket.userId(), bucket.periodType().name(), bucket.periodStart(),
+                        bucket.currency(), sums[0], sums[1], sums[2]);
+            }
+        });
+    }
+
+    // Recomputes every bucket from invoices and expenses; userId == null rebuilds all users
+    @Transactional
+    public void rebuild(Long userId) {
+        ledgerAggregateRepository.deleteForUser(userId);
+        for (PeriodType type : PeriodType.values()) {
+            ledgerAggregateRepository.rebuildInvoices(userId, type.name(), reportingCurrency);
+            ledgerAggregateRepository.rebuildExpenses(userId, type.name(), reportingCurrency);
+        }
+    }
+
+    // All-time totals in `currency` (null = reporting currency). Summed from the month buckets so
+    // each month converts at its own rate; the TOTAL bucket mixes dates and cannot be converted.
+    @Transactional(readOnly = true)
+    public LedgerPoint totals(Long userId, String currency) {
+        String target = currency != null ? currency : reportingCurrency;
+        List<LedgerAggregate> months = ledgerAggregateRepository.findByUserIdAndPeriodType(userId, PeriodType.MONTH);
+        FxRateTable rates = fxRateService.current();
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        boolean complete = true;
+        for (LedgerAggregate row : months) {
+            BigDecimal rowIncome = rates.convert(row.getIncome(), row.getCurrency(), target, row.getPeriodStart());
+            BigDecimal rowExpenses = rates.convert(row.getExpenses(), row.getCurrency(), target, row.getPeriodStart());
+            if (rowIncome == null || rowExpenses == null) {
+                complete = false;
+                continue;
+            }
+            income = income.add(rowIncome);
+            expenses = expenses.add(rowExpenses);
+        }
+        return new LedgerPoint(ALL_TIME, target, income, expenses, complete);
+    }
+
+    // Buckets in [from, to) in `currency` (null = reporting currency); empty buckets are omitted
+    @Transactional(readOnly = true)
+    public List<LedgerPoint> series(Long userId, PeriodType periodType, LocalDate from, LocalDate to, String currency) {
+        if (periodType == PeriodType.MONTH) {
+            from = from.withDayOfMonth(1);
+        }
+        return convert(ledgerAggregateRepository.findBuckets(userId, periodType, from, to),
+                currency != null ? currency : reportingCurrency);
+    }
+
+    // Collapses per-currency rows (ordered by periodStart) into one point per bucket, converting
+    // each row at the rate effective on its bucket date from the in-memory snapshot
+    private List<LedgerPoint> convert(List<LedgerAggregate> rows, String currency) {
+        FxRateTable rates = fxRateService.current();
+        List<LedgerPoint> points = new ArrayList<>();
+        LocalDate period = null;
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        boolean complete = true;
+        for (LedgerAggregate row : rows) {
+            if (!row.getPeriodStart().equals(period)) {
+                if (period != null) {
+                    points.add(new LedgerPoint(period, currency, income, expenses, complete));
+                }
+                period = row.getPeriodStart();
+                income = BigDecimal.ZERO;
+                expenses = BigDecimal.ZERO;
+                complete = true;
+            }
+            BigDecimal rowIncome = rates.convert(row.getIncome(), row.getCurrency(), currency, period);
+            BigDecimal rowExpenses = rates.convert(row.getExpenses(), row.getCurrency(), currency, period);
+            if (rowIncome == null || rowExpenses == null) {
+                complete = false;
+                continue;
+            }
+            income = income.add(rowIncome);
+            expenses = expenses.add(rowExpenses);
+        }
+        if (period != null) {
+            points.add(new LedgerPoint(period, currency, income, expenses, complete));
+        }
+        return points;
+    }
+
+    private static LocalDate toDay(Date date) {
+        if (date == null) {
+            return ALL_TIME;
+        }
+        if (date instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
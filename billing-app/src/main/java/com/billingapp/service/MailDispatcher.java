@@ -0,0 +1,244 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.model.OutboundEmail;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.repository.OutboundEmailRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Drains the outbound_emails table. Due rows are claimed in one short transaction, split
+// into batches, and each batch is sent over a single SMTP session on one of max-connections
+// platform threads (JavaMailSender.send(MimeMessage...) connects once per call). Failures are
+// retried with exponential backoff until maxAttempts, after which the row is parked as FAILED.
+@Service
+public class MailDispatcher {
+
+    private final OutboundEmailRepository outboundEmailRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PdfRenderService pdfRenderService;
+    private final TaxRuleService taxRuleService;
+    private final InvoiceEventLog invoiceEventLog;
+    private final JavaMailSender mailSender;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate tx;
+    // Platform threads, one per SMTP connection: Angus Mail holds monitors (synchronized
+    // SMTPTransport methods) across socket I/O, which would pin a virtual thread's carrier
+    private final ExecutorService workers;
+    private final Semaphore connections;
+    private final int maxConnections;
+    private final int messagesPerConnection;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    public MailDispatcher(OutboundEmailRepository outboundEmailRepository, InvoiceRepository invoiceRepository,
+                          PdfRenderService pdfRenderService, TaxRuleService taxRuleService,
+                          InvoiceEventLog invoiceEventLog, JavaMailSender mailSender,
+                          BillingMetrics billingMetrics, PlatformTransactionManager transactionManager,
+                          @Value("${billing.mail.max-connections:4}") int maxConnections,
+                          @Value("${billing.mail.messages-per-connection:20}") int messagesPerConnection,
+                          @Value("${billing.mail.max-attempts:8}") int maxAttempts,
+                          @Value("${billing.mail.base-backoff:PT30S}") Duration baseBackoff,
+                          @Value("${billing.mail.max-backoff:PT1H}") Duration maxBackoff) {
+        this.outboundEmailRepository = outboundEmailRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.pdfRenderService = pdfRenderService;
+        this.taxRuleService = taxRuleService;
+        this.invoiceEventLog = invoiceEventLog;
+        this.mailSender = mailSender;
+        this.billingMetrics = billingMetrics;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.workers = newSmtpExecutor(maxConnections);
+        this.connections = new Semaphore(maxConnections);
+        this.maxConnections = maxConnections;
+        this.messagesPerConnection = messagesPerConnection;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    private static ExecutorService newSmtpExecutor(int maxConnections) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxConnections, runnable -> {
+            Thread thread = new Thread(runnable, "mail-smtp-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${billing.mail.poll-interval-ms:1000}")
+    public void dispatch() {
+        int free = connections.availablePermits();
+        if (free == 0) {
+            return;
+        }
+        List<OutboundEmail> claimed = claim(free * messagesPerConnection);
+        for (int from = 0; from < claimed.size(); from += messagesPerConnection) {
+            List<OutboundEmail> batch = claimed.subList(from, Math.min(from + messagesPerConnection, claimed.size()));
+            connections.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    sendBatch(batch);
+                } finally {
+                    connections.release();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.mail.stale-claim-check-ms:60000}")
+    public void releaseStaleClaims() {
+        tx.executeWithoutResult(status -> outboundEmailRepository.releaseStaleClaims(Instant.now().minus(Duration.ofMinutes(10))));
+    }
+
+    public int activeConnections() {
+        return maxConnections - connections.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private List<OutboundEmail> claim(int limit) {
+        return tx.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboundEmail> due = outboundEmailRepository.findDueForUpdate(now, PageRequest.ofSize(limit));
+            for (OutboundEmail email : due) {
+                email.setStatus(OutboundEmail.Status.SENDING);
+                email.setClaimedAt(now);
+            }
+            return new ArrayList<>(due);
+        });
+    }
+
+    private void sendBatch(List<OutboundEmail> batch) {
+        Map<MimeMessage, OutboundEmail> messages = new HashMap<>();
+        Map<Long, Exception> failures = new HashMap<>();
+        for (OutboundEmail email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (Exception e) {
+                failures.put(email.getId(), e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            long startedAt = System.nanoTime();
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    // Connection-level failure: nothing in this session went out
+                    messages.values().forEach(email -> failures.put(email.getId(), e));
+                } else {
+                    e.getFailedMessages().forEach((message, cause) -> {
+                        OutboundEmail email = messages.get(message);
+                        if (email != null) {
+                            failures.put(email.getId(), cause);
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                messages.values().forEach(email -> failures.put(email.getId(), e));
+            } finally {
+                billingMetrics.record(BillingMetrics.EMAIL_SEND, startedAt);
+            }
+        }
+
+        recordOutcome(batch, failures);
+    }
+
+    private MimeMessage toMimeMessage(OutboundEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, email.getInvoiceId() != null);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), email.isHtml());
+        if (email.getInvoiceId() != null) {
+            PdfRenderService.RenderedPdf pdf = pdfRenderService.render(loadInvoice(email.getInvoiceId())).join();
+            helper.addAttachment("Invoice.pdf", new FileSystemResource(pdf.path()));
+        }
+        return message;
+    }
+
+    private InvoiceDetail loadInvoice(Long invoiceId) {
+        return tx.execute(status -> {
+            List<Invoice> found = invoiceRepository.findAllWithItemsByIdIn(List.of(invoiceId));
+            if (found.isEmpty()) {
+                throw new IllegalStateException("Invoice " + invoiceId + " no longer exists");
+            }
+            return InvoiceDetail.from(found.get(0), taxRuleService.rulesOf(found.get(0)));
+        });
+    }
+
+    private void recordOutcome(List<OutboundEmail> batch, Map<Long, Exception> failures) {
+        tx.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            List<Long> ids = batch.stream().map(OutboundEmail::getId).toList();
+            for (OutboundEmail email : outboundEmailRepository.findAllById(ids)) {
+                email.setAttempts(email.getAttempts() + 1);
+                Exception failure = failures.get(email.getId());
+                if (failure == null) {
+                    email.setStatus(OutboundEmail.Status.SENT);
+                    email.setSentAt(now);
+                    email.setLastError(null);
+                    if (email.getInvoiceId() != null) {
+                        invoiceEventLog.email(email.getInvoiceId(), InvoiceEvent.Type.EMAIL_SENT, email.getRecipient());
+                    }
+                } else if (email.getAttempts() >= maxAttempts) {
+                    email.setStatus(OutboundEmail.Status.FAILED);
+                    email.setLastError(truncate(failure.getMessage()));
+                    if (email.getInvoiceId() != null) {
+                        invoiceEventLog.email(email.getInvoiceId(), InvoiceEvent.Type.EMAIL_FAILED, email.getLastError());
+                    }
+                } else {
+                    email.setStatus(OutboundEmail.Status.PENDING);
+                    email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                    email.setLastError(truncate(failure.getMessage()));
+                }
+            }
+        });
+    }
+
+    // base * 2^(attempt-1), capped, with up to 20% jitter so retries from one outage spread out
+    private Duration backoff(int attempt) {
+        long millis = baseBackoff.toMillis() << Math.min(attempt - 1, 20);
+        millis = Math.min(millis, maxBackoff.toMillis());
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(millis / 5 + 1));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -0,0 +1,98 @@
+package com.billingapp.service;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Writes a BitMatrix as a 1-bit grayscale PNG without going through BufferedImage/ImageIO.
+// A 200x200 QR code becomes ~25 bytes per row of raw pixels instead of a 160 KB ARGB raster.
+public final class MonochromePngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private MonochromePngEncoder() {
+    }
+
+    public static byte[] encode(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+
+        // Each scanline: filter type 0 followed by packed pixels, MSB first; bit set = white
+        byte[] raw = new byte[(rowBytes + 1) * height];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            raw[offset++] = 0;
+            for (int x = 0; x < width; x += 8) {
+                int packed = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    int px = x + bit;
+                    if (px >= width || !matrix.get(px, y)) {
+                        packed |= 0x80 >>> bit;
+                    }
+                }
+                raw[offset++] = (byte) packed;
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(raw.length / 4 + 128);
+        png.writeBytes(SIGNATURE);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // colour type: grayscale
+        header[10] = 0; // compression
+        header[11] = 0; // filter
+        header[12] = 0; // no interlace
+        writeChunk(png, "IHDR", header, header.length);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] compressed = new byte[raw.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            writeChunk(png, "IDAT", compressed, length);
+        } finally {
+            deflater.end();
+        }
+
+        writeChunk(png, "IEND", new byte[0], 0);
+        return png.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data, int length) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] lengthBytes = new byte[4];
+        writeInt(lengthBytes, 0, length);
+        out.writeBytes(lengthBytes);
+        out.writeBytes(typeBytes);
+        out.write(data, 0, length);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        writeInt(crcBytes, 0, (int) crc.getValue());
+        out.writeBytes(crcBytes);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,99 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceExportRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+// One JSON object per invoice per line, items nested. Only the invoice currently being
+// written is held open, so memory does not depend on the number of rows.
+public class NdjsonInvoiceExportWriter implements InvoiceExportWriter {
+
+    // No root separator: lines are ended with '\n' here, and the default " " would prefix every following line
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JsonGenerator json;
+    private Long currentInvoiceId;
+
+    public NdjsonInvoiceExportWriter(OutputStream out) throws IOException {
+        this.json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    @Override
+    public void write(InvoiceExportRow row) throws IOException {
+        if (!Objects.equals(row.invoiceId(), currentInvoiceId)) {
+            endInvoice();
+            startInvoice(row);
+        }
+        if (row.itemId() != null) {
+            json.writeStartObject();
+            json.writeNumberField("id", row.itemId());
+            json.writeStringField("name", row.itemName());
+            json.writeNumberField("price", row.itemPrice());
+            json.writeNumberField("quantity", row.itemQuantity());
+            writeDecimal("discountAmount", row.itemDiscountAmount());
+            writeDecimal("taxPercentage", row.itemTaxPercentage());
+            json.writeEndObject();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        endInvoice();
+        json.flush();
+    }
+
+    private void startInvoice(InvoiceExportRow row) throws IOException {
+        currentInvoiceId = row.invoiceId();
+        json.writeStartObject();
+        json.writeNumberField("id", row.invoiceId());
+        json.writeStringField("title", row.title());
+        json.writeStringField("customerName", row.customerName());
+        json.writeStringField("status", row.status());
+        json.writeStringField("currency", row.currency());
+        writeDecimal("subtotal", row.subtotal());
+        writeDecimal("taxPercentage", row.taxPercentage());
+        writeDecimal("taxAmount", row.taxAmount());
+        writeDecimal("discountAmount", row.discountAmount());
+        writeDecimal("total", row.total());
+        writeDecimal("cgstAmount", row.cgstAmount());
+        writeDecimal("sgstAmount", row.sgstAmount());
+        writeDecimal("igstAmount", row.igstAmount());
+        json.writeBooleanField("taxInclusive", row.taxInclusive());
+        if (row.invoiceDate() != null) {
+            json.writeNumberField("invoiceDate", row.invoiceDate().getTime());
+        } else {
+            json.writeNullField("invoiceDate");
+        }
+        json.writeNumberField("userId", row.userId());
+        json.writeArrayFieldStart("items");
+    }
+
+    private void endInvoice() throws IOException {
+        if (currentInvoiceId == null) {
+            return;
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+        currentInvoiceId = null;
+    }
+
+    private void writeDecimal(String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+}
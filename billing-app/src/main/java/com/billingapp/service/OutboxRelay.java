@@ -0,0 +1,135 @@
+package com.billingapp.service;
+
+import com.billingapp.model.EventConsumerCursor;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.repository.EventConsumerCursorRepository;
+import com.billingapp.repository.InvoiceEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Relay half of the outbox: polls the invoice event log and hands each consumer its next batch.
+// Delivery and the cursor move happen in one transaction holding the consumer's cursor row, so
+// after a crash a consumer resumes where it last committed (at-least-once). Cursors are kept per
+// node (billing.outbox.node-id) because consumers feed node-local state such as open sockets.
+// Events go out in id order, and ids are taken in append order, so a missing id is an event whose
+// transaction is still open: delivery stops there until it commits. A hole is passed once its
+// transaction is known to have rolled back, or once the event after it is older than gap-timeout.
+@Service
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // A consumer that keeps up drains at most this many batches per poll before yielding
+    private static final int MAX_BATCHES_PER_POLL = 10;
+
+    private final InvoiceEventRepository invoiceEventRepository;
+    private final EventConsumerCursorRepository cursorRepository;
+    private final InvoiceEventLog invoiceEventLog;
+    private final List<InvoiceEventConsumer> consumers;
+    private final TransactionTemplate tx;
+    private final String nodeId;
+    private final int batchSize;
+    private final Duration gapTimeout;
+
+    public OutboxRelay(InvoiceEventRepository invoiceEventRepository, EventConsumerCursorRepository cursorRepository,
+                       InvoiceEventLog invoiceEventLog, List<InvoiceEventConsumer> consumers,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${billing.outbox.node-id:local}") String nodeId,
+                       @Value("${billing.outbox.batch-size:500}") int batchSize,
+                       @Value("${billing.outbox.gap-timeout:PT1M}") Duration gapTimeout) {
+        this.invoiceEventRepository = invoiceEventRepository;
+        this.cursorRepository = cursorRepository;
+        this.invoiceEventLog = invoiceEventLog;
+        this.consumers = consumers;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.outbox.poll-interval-ms:200}")
+    public void relay() {
+        for (InvoiceEventConsumer consumer : consumers) {
+            String cursorName = nodeId + ":" + consumer.consumerName();
+            try {
+                for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+                    if (!deliverBatch(consumer, cursorName)) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // The batch rolled back and is retried next poll; other consumers are unaffected
+                tx.executeWithoutResult(status -> cursorRepository.recordError(cursorName,
+                        truncate(String.valueOf(e.getMessage())), Instant.now()));
+            }
+        }
+    }
+
+    // Returns true when a full batch was delivered, i.e. more events may be waiting
+    private boolean deliverBatch(InvoiceEventConsumer consumer, String cursorName) {
+        Boolean full = tx.execute(status -> {
+            Instant now = Instant.now();
+            EventConsumerCursor cursor = cursorRepository.findForUpdate(cursorName)
+                    .orElseGet(() -> newCursor(cursorName, now));
+            List<InvoiceEvent> events = deliverable(cursorName, cursor.getLastEventId(),
+                    invoiceEventRepository.findAfter(cursor.getLastEventId(), PageRequest.ofSize(batchSize)),
+                    now.minus(gapTimeout));
+            if (events.isEmpty()) {
+                return false;
+            }
+            consumer.handle(events);
+            InvoiceEvent last = events.get(events.size() - 1);
+            cursor.setLastCreatedAt(last.getCreatedAt());
+            cursor.setLastEventId(last.getId());
+            cursor.setUpdatedAt(now);
+            cursor.setLastError(null);
+            cursorRepository.save(cursor);
+            return events.size() == batchSize;
+        });
+        return Boolean.TRUE.equals(full);
+    }
+
+    // The leading run of the page that follows on from the cursor without an open hole
+    private List<InvoiceEvent> deliverable(String cursorName, long lastEventId, List<InvoiceEvent> page,
+                                           Instant gapDeadline) {
+        long expected = lastEventId + 1;
+        for (int i = 0; i < page.size(); i++) {
+            InvoiceEvent event = page.get(i);
+            while (expected < event.getId() && invoiceEventLog.rolledBack(expected)) {
+                expected++;
+            }
+            if (expected < event.getId()) {
+                if (event.getCreatedAt().isAfter(gapDeadline)) {
+                    return page.subList(0, i);
+                }
+                log.warn("Outbox consumer {} passing event ids {}..{}, not committed within {}",
+                        cursorName, expected, event.getId() - 1, gapTimeout);
+            }
+            expected = event.getId() + 1;
+        }
+        return page;
+    }
+
+    // A consumer seen for the first time starts at the present rather than replaying all history
+    private EventConsumerCursor newCursor(String cursorName, Instant now) {
+        EventConsumerCursor cursor = new EventConsumerCursor();
+        cursor.setConsumer(cursorName);
+        cursor.setLastCreatedAt(now);
+        cursor.setLastEventId(invoiceEventRepository.findMaxId());
+        cursor.setUpdatedAt(now);
+        return cursorRepository.save(cursor);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
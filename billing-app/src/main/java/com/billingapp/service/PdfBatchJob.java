@@ -0,0 +1,93 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.PdfBatchJobStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of one month-end style batch; counters are updated by the job thread and read by the status endpoint
+public class PdfBatchJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    public enum Delivery { STREAM, ARCHIVE }
+
+    private final String id;
+    private final Long ownerId; // User who started the job; only they (or an admin) may see it
+    private final Delivery delivery;
+    private final Path archive;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    PdfBatchJob(String id, Long ownerId, Delivery delivery, Path archive) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.delivery = delivery;
+        this.archive = archive;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Delivery getDelivery() {
+        return delivery;
+    }
+
+    public Path getArchive() {
+        return archive;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void queued() {
+        queued.incrementAndGet();
+    }
+
+    void rendered(long bytes) {
+        rendered.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(Throwable cause) {
+        error = cause.getMessage();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public PdfBatchJobStatus status() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsed = Duration.between(startedAt, end).toMillis();
+        long done = rendered.get();
+        double perSecond = elapsed == 0 ? 0 : done * 1000.0 / elapsed;
+        return new PdfBatchJobStatus(id, state.name(), delivery.name(), queued.get(), done, failed.get(),
+                bytesWritten.get(), startedAt, finishedAt, elapsed, perSecond, error);
+    }
+}
@@ -0,0 +1,244 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.dto.InvoiceSummary;
+import com.billingapp.model.Invoice;
+import com.billingapp.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Renders every invoice matching a filter through PdfRenderService and writes each PDF into
+// one ZIP as soon as it is ready. Invoices are read in keyset pages and at most `concurrency`
+// renders are in flight, so memory stays flat no matter how many invoices match.
+@Service
+public class PdfBatchService {
+    private static final int PAGE_SIZE = 200;
+    private static final Duration JOB_RETENTION = Duration.ofHours(24);
+
+    private final InvoiceRepository invoiceRepository;
+    private final PdfRenderService pdfRenderService;
+    private final TaxRuleService taxRuleService;
+    private final TransactionTemplate readOnlyTx;
+    private final Path archiveDirectory;
+    private final int concurrency;
+    private final ExecutorService archiveRunner = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, PdfBatchJob> jobs = new ConcurrentHashMap<>();
+
+    public PdfBatchService(InvoiceRepository invoiceRepository, PdfRenderService pdfRenderService,
+                           TaxRuleService taxRuleService, PlatformTransactionManager transactionManager,
+                           @Value("${billing.pdf.directory:invoices/}") String pdfDirectory,
+                           @Value("${billing.pdf.batch.concurrency:0}") int concurrency) throws IOException {
+        this.invoiceRepository = invoiceRepository;
+        this.pdfRenderService = pdfRenderService;
+        this.taxRuleService = taxRuleService;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.archiveDirectory = Paths.get(pdfDirectory, "batches");
+        this.concurrency = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors() * 2;
+        Files.createDirectories(archiveDirectory);
+    }
+
+    private record Completed(InvoiceDetail invoice, PdfRenderService.RenderedPdf pdf, Throwable error) {
+    }
+
+    private record Page(List<InvoiceDetail> invoices, Long lastId, boolean hasMore) {
+    }
+
+    // Single-writer side of the ZIP: only the job thread touches it
+    private static final class ZipSink {
+        private final ZipOutputStream zip;
+        private final PdfBatchJob job;
+        private final BlockingQueue<Completed> completed = new LinkedBlockingQueue<>();
+        private long submitted;
+        private long written;
+
+        ZipSink(ZipOutputStream zip, PdfBatchJob job) {
+            this.zip = zip;
+            this.job = job;
+        }
+
+        void drain() throws IOException {
+            Completed next;
+            while ((next = completed.poll()) != null) {
+                write(next);
+            }
+        }
+
+        void awaitAll() throws IOException, InterruptedException {
+            while (written < submitted) {
+                write(completed.take());
+            }
+        }
+
+        void write(Completed result) throws IOException {
+            written++;
+            if (result.error() != null) {
+                job.failed();
+                return;
+            }
+            zip.putNextEntry(new ZipEntry(result.pdf().fileName()));
+            long bytes = Files.copy(result.pdf().path(), zip);
+            zip.closeEntry();
+            job.rendered(bytes);
+        }
+    }
+
+    // Empty unless the job was started by userId; admins see every job
+    public Optional<PdfBatchJob> getJob(String jobId, Long userId, boolean admin) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> admin || job.getOwnerId().equals(userId));
+    }
+
+    public PdfBatchJob newStreamJob(Long ownerId) {
+        return register(new PdfBatchJob(UUID.randomUUID().toString(), ownerId, PdfBatchJob.Delivery.STREAM, null));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiveRunner.shutdown();
+    }
+
+    // Writes the ZIP straight to out on the calling thread (the streaming response thread)
+    public void streamZip(PdfBatchJob job, InvoiceFilter filter, OutputStream out) throws IOException {
+        run(job, filter, out);
+    }
+
+    // Builds the ZIP as a file in the background; download it once the job has COMPLETED
+    public PdfBatchJob startArchive(Long ownerId, InvoiceFilter filter) {
+        String jobId = UUID.randomUUID().toString();
+        PdfBatchJob job = register(new PdfBatchJob(jobId, ownerId, PdfBatchJob.Delivery.ARCHIVE,
+                archiveDirectory.resolve(jobId + ".zip")));
+        archiveRunner.execute(() -> {
+            try {
+                Path tmp = Files.createTempFile(archiveDirectory, "batch-", ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    run(job, filter, out);
+                }
+                Files.move(tmp, job.getArchive(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                job.fail(e);
+            }
+        });
+        return job;
+    }
+
+    private void run(PdfBatchJob job, InvoiceFilter filter, OutputStream out) throws IOException {
+        Semaphore window = new Semaphore(concurrency);
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024))) {
+            // PDFs are already compressed; spend as little CPU as possible re-deflating them
+            zip.setLevel(Deflater.BEST_SPEED);
+            ZipSink sink = new ZipSink(zip, job);
+            Page page = new Page(List.of(), null, true);
+            while (page.hasMore()) {
+                page = loadPage(filter, page.lastId());
+                for (InvoiceDetail invoice : page.invoices()) {
+                    while (!window.tryAcquire(50, TimeUnit.MILLISECONDS)) {
+                        sink.drain();
+                    }
+                    submit(invoice, window, sink);
+                    job.queued();
+                    sink.drain();
+                }
+            }
+            sink.awaitAll();
+            zip.finish();
+            job.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+            throw new IOException("PDF batch interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            job.fail(e);
+            throw e;
+        }
+    }
+
+    // The render pool is shared with interactive downloads, so a full queue means "wait and retry"
+    private void submit(InvoiceDetail invoice, Semaphore window, ZipSink sink) throws IOException, InterruptedException {
+        while (true) {
+            try {
+                pdfRenderService.render(invoice).whenComplete((pdf, error) -> {
+                    sink.completed.add(new Completed(invoice, pdf, error));
+                    window.release();
+                });
+                sink.submitted++;
+                return;
+            } catch (RejectedExecutionException e) {
+                Completed next = sink.completed.poll(20, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    sink.write(next);
+                }
+            }
+        }
+    }
+
+    private Page loadPage(InvoiceFilter filter, Long afterId) {
+        return readOnlyTx.execute(status -> {
+            List<InvoiceSummary> summaries = invoiceRepository.findSummariesAfter(afterId,
+                    filter.userId(), filter.status(), filter.currency(), filter.from(), filter.to(),
+                    PageRequest.ofSize(PAGE_SIZE));
+            if (summaries.isEmpty()) {
+                return new Page(List.of(), afterId, false);
+            }
+            List<Long> ids = new ArrayList<>(summaries.size());
+            for (InvoiceSummary summary : summaries) {
+                ids.add(summary.id());
+            }
+            List<InvoiceDetail> details = new ArrayList<>(ids.size());
+            for (Invoice invoice : invoiceRepository.findAllWithItemsByIdIn(ids)) {
+                details.add(InvoiceDetail.from(invoice, taxRuleService.rulesOf(invoice)));
+            }
+            return new Page(details, ids.get(ids.size() - 1), summaries.size() == PAGE_SIZE);
+        });
+    }
+
+    private PdfBatchJob register(PdfBatchJob job) {
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(old -> {
+            boolean expired = old.getFinishedAt() != null && old.getFinishedAt().isBefore(cutoff);
+            if (expired && old.getArchive() != null) {
+                try {
+                    Files.deleteIfExists(old.getArchive());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return expired;
+        });
+        jobs.put(job.getId(), job);
+        return job;
+    }
+}
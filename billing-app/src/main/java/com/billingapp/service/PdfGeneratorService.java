@@ -1,22 +1,24 @@
-package com.example.billing.service;
+package com.billingapp.service;
 
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceLine;
+import com.billingapp.metrics.BillingMetrics;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfWriter;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 @Service
 public class PdfGeneratorService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private final BillingMetrics billingMetrics;
+
+    public PdfGeneratorService(BillingMetrics billingMetrics) {
+        this.billingMetrics = billingMetrics;
+    }
 
     public byte[] generateInvoicePdf(String customerName, double totalAmount) throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -42,17 +44,31 @@ public class PdfGeneratorService {
         return outputStream.toByteArray();
     }
 
-    public void sendInvoiceEmail(String toEmail, String customerName, double totalAmount) throws MessagingException, IOException {
-        byte[] pdfBytes = generateInvoicePdf(customerName, totalAmount);
-
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+    // Full invoice layout written straight to out; the caller owns and closes the stream
+    public void renderInvoice(InvoiceDetail invoice, OutputStream out) throws DocumentException {
+        long startedAt = System.nanoTime();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out).setCloseStream(false);
+        document.open();
+        try {
+            document.add(new Paragraph("Invoice #" + invoice.id()));
+            document.add(new Paragraph("Customer: " + invoice.customerName()));
+            document.add(new Paragraph("\nItems:", FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
 
-        helper.setTo(toEmail);
-        helper.setSubject("Your Invoice");
-        helper.setText("Please find your invoice attached.", false);
-        helper.addAttachment("Invoice.pdf", () -> new java.io.ByteArrayInputStream(pdfBytes));
+            for (InvoiceLine item : invoice.items()) {
+                String discount = item.discountAmount() == null || item.discountAmount().signum() == 0
+                        ? "" : " - " + item.discountAmount().toPlainString();
+                document.add(new Paragraph(item.name() + " - " + item.quantity() + " x " + item.price() + discount
+                        + " + tax (" + item.taxPercentage().toPlainString() + "%) " + item.taxAmount().toPlainString()
+                        + " = " + item.lineTotal().toPlainString()));
+            }
 
-        mailSender.send(message);
+            document.add(new Paragraph("\nTax (" + invoice.taxPercentage() + "%): " + invoice.taxAmount()));
+            document.add(new Paragraph("Discount: " + invoice.discountAmount()));
+            document.add(new Paragraph("Total: " + invoice.total() + " " + invoice.currency(), FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
+        } finally {
+            document.close();
+            billingMetrics.record(BillingMetrics.PDF_RENDER, startedAt);
+        }
     }
 }
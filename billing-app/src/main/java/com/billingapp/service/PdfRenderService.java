@@ -0,0 +1,196 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceLine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders invoice PDFs off the request thread into a content-addressed file cache.
+// A file is named after the invoice id and a hash of everything that is printed, so an
+// unchanged invoice is served from disk and an edited one gets a fresh file. A file's modified
+// time records when it was last handed out, and replaced versions are only deleted once that is
+// older than billing.pdf.stale-grace, so callers are not left holding a path that has vanished.
+@Service
+public class PdfRenderService {
+    // Bump when the PDF layout changes so every cached file is re-rendered
+    private static final String LAYOUT_VERSION = "3";
+
+    private final PdfGeneratorService pdfGeneratorService;
+    private final ThreadPoolExecutor executor;
+    private final Path directory;
+    private final Duration staleGrace;
+    private final ConcurrentMap<String, CompletableFuture<RenderedPdf>> inFlight = new ConcurrentHashMap<>();
+
+    public PdfRenderService(PdfGeneratorService pdfGeneratorService,
+                            @Value("${billing.pdf.directory:invoices/}") String directory,
+                            @Value("${billing.pdf.render.threads:0}") int threads,
+                            @Value("${billing.pdf.render.queue-capacity:200}") int queueCapacity,
+                            @Value("${billing.pdf.stale-grace:PT10M}") Duration staleGrace) throws IOException {
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.executor = newRenderExecutor(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity);
+        this.directory = Paths.get(directory);
+        this.staleGrace = staleGrace;
+        Files.createDirectories(this.directory);
+    }
+
+    // Rendering is CPU bound: a fixed pool plus a bounded queue. When the queue is full the
+    // submit fails fast (AbortPolicy) and the caller answers 503 instead of piling up work.
+    // Kept private rather than a bean so Boot still auto-configures applicationTaskExecutor.
+    private static ThreadPoolExecutor newRenderExecutor(int poolSize, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-render-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public record RenderedPdf(Long invoiceId, String hash, Path path) {
+        public String fileName() {
+            return "invoice_" + invoiceId + ".pdf";
+        }
+    }
+
+    // Returns the cached file when present; otherwise queues one render per distinct content
+    // (concurrent callers share it). Throws RejectedExecutionException when the queue is full.
+    public CompletableFuture<RenderedPdf> render(InvoiceDetail invoice) {
+        String hash = contentHash(invoice);
+        RenderedPdf cached = new RenderedPdf(invoice.id(), hash, directory.resolve(cacheFileName(invoice.id(), hash)));
+        if (markServed(cached.path())) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String key = cached.path().toString();
+        CompletableFuture<RenderedPdf> future = inFlight.computeIfAbsent(key,
+                path -> CompletableFuture.supplyAsync(() -> renderToFile(invoice, cached), executor));
+        // Attached once the mapping exists: a render that already finished runs the callback at once, which
+        // inside computeIfAbsent would modify the map mid-update. remove(key, future) leaves a newer render alone
+        future.whenComplete((pdf, error) -> inFlight.remove(key, future));
+        return future;
+    }
+
+    public String contentHash(InvoiceDetail invoice) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, LAYOUT_VERSION);
+        update(digest, invoice.id());
+        update(digest, invoice.customerName());
+        update(digest, invoice.taxPercentage());
+        update(digest, invoice.taxAmount());
+        update(digest, invoice.discountAmount());
+        update(digest, invoice.total());
+        update(digest, invoice.currency());
+        for (InvoiceLine item : invoice.items()) {
+            update(digest, item.name());
+            update(digest, item.price());
+            update(digest, item.quantity());
+            update(digest, item.discountAmount());
+            update(digest, item.taxPercentage());
+            update(digest, item.taxAmount());
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    private RenderedPdf renderToFile(InvoiceDetail invoice, RenderedPdf target) {
+        try {
+            // Render beside the target and move it into place so readers never see a partial file
+            Path tmp = Files.createTempFile(directory, "render-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                pdfGeneratorService.renderInvoice(invoice, out);
+            } catch (Exception e) {
+                Files.deleteIfExists(tmp);
+                throw new IllegalStateException("Failed to render invoice " + invoice.id(), e);
+            }
+            Files.move(tmp, target.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteStaleVersions(target);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // False when the file is not there (or was just deleted), which makes the caller render it
+    private static boolean markServed(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            return Files.exists(file);
+        }
+    }
+
+    // Versions still within the grace period are left for the next render of the invoice to remove
+    private void deleteStaleVersions(RenderedPdf current) throws IOException {
+        FileTime cutoff = FileTime.from(Instant.now().minus(staleGrace));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "invoice_" + current.invoiceId() + "_*.pdf")) {
+            for (Path file : files) {
+                if (file.equals(current.path())) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed by a concurrent render of another version
+                }
+            }
+        }
+    }
+
+    private static String cacheFileName(Long invoiceId, String hash) {
+        return "invoice_" + invoiceId + "_" + hash + ".pdf";
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        digest.update(Objects.toString(value, "").getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
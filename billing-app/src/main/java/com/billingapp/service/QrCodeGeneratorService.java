@@ -1,35 +1,170 @@
 package com.billingapp.service;
 
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.money.CurrencyScale;
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.BitMatrix;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Path;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-public class QrCodeGeneratorService {
+public class QrCodeGeneratorService implements InvoiceEventConsumer {
+    public static final int PAYMENT_QR_SIZE = 200;
 
-    public String generateQrCode(String text, int width, int height) {
-        try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.CHARACTER_SET, "UTF-8",
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.MARGIN, 1);
+
+    // QRCodeWriter keeps no state between calls, so one instance serves every thread
+    private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+    private final LruCache<QrKey, QrImage> cache;
+    private final BillingMetrics billingMetrics;
+    // Encoding is pure CPU, so a couple of platform threads; a burst of events (bulk import) is
+    // capped by the queue and the overflow is dropped, to be encoded on its first page view instead
+    private final ExecutorService prerenderExecutor;
+    private final String payeeAddress;
+    private final String payeeName;
+    private final boolean prerenderEnabled;
+
+    public QrCodeGeneratorService(BillingMetrics billingMetrics,
+                                  @Value("${billing.qr.cache-size:10000}") int cacheSize,
+                                  @Value("${billing.qr.prerender:true}") boolean prerenderEnabled,
+                                  @Value("${billing.qr.prerender-threads:2}") int prerenderThreads,
+                                  @Value("${billing.qr.prerender-queue:1000}") int prerenderQueue,
+                                  @Value("${billing.upi.payee-address:yourupiid@upi}") String payeeAddress,
+                                  @Value("${billing.upi.payee-name:YourBusiness}") String payeeName) {
+        this.cache = new LruCache<>(cacheSize);
+        this.billingMetrics = billingMetrics;
+        this.prerenderEnabled = prerenderEnabled;
+        this.prerenderExecutor = newPrerenderExecutor(prerenderThreads, prerenderQueue);
+        this.payeeAddress = payeeAddress;
+        this.payeeName = payeeName;
+    }
+
+    private static ExecutorService newPrerenderExecutor(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "qr-prerender-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    private record QrKey(String text, int width, int height) {
+    }
 
-            ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
+    // PNG bytes plus a lazily computed Base64 form for callers that embed the image inline
+    private static final class QrImage {
+        private final byte[] png;
+        private volatile String base64;
 
-            byte[] pngData = pngOutputStream.toByteArray();
-            return Base64.getEncoder().encodeToString(pngData); // Return Base64 QR Code
-        } catch (WriterException | IOException e) {
+        QrImage(byte[] png) {
+            this.png = png;
+        }
+
+        String base64() {
+            String value = base64;
+            if (value == null) {
+                value = Base64.getEncoder().encodeToString(png);
+                base64 = value;
+            }
+            return value;
+        }
+    }
+
+    // Cached PNG for the payload; callers must not modify the returned array
+    public byte[] generateQrPng(String text, int width, int height) {
+        return image(text, width, height).png;
+    }
+
+    public String generateQrCode(String text, int width, int height) {
+        try {
+            return image(text, width, height).base64(); // Return Base64 QR Code
+        } catch (IllegalStateException e) {
             e.printStackTrace();
             return null;
         }
     }
-}
\ No newline at end of file
+
+    public String paymentPayload(Invoice invoice) {
+        return paymentPayload(invoice.getId(), invoice.getTotal(), invoice.getCurrency());
+    }
+
+    // The amount is written at the currency's scale: events carry totals at scale 4 and invoices at
+    // the currency's, and both must produce the same payload (it is the prerender cache key)
+    public String paymentPayload(Long invoiceId, BigDecimal total, String currency) {
+        String amount = total == null
+                ? null : total.setScale(CurrencyScale.of(currency), RoundingMode.HALF_UP).toPlainString();
+        return "upi://pay?pa=" + payeeAddress + "&pn=" + payeeName + "&mc=1234&tid=123456&tr=" + invoiceId
+                + "&tn=Invoice Payment&am=" + amount + "&cu=" + currency;
+    }
+
+    @Override
+    public String consumerName() {
+        return "qr-prerender";
+    }
+
+    // Warms the cache for invoices that are ready to be paid, so the first page view is a lookup.
+    // Driven by the invoice event log, so bulk imports are covered and requests never wait on it.
+    @Override
+    public void handle(List<InvoiceEvent> events) {
+        if (!prerenderEnabled) {
+            return;
+        }
+        for (InvoiceEvent event : events) {
+            switch (event.getType()) {
+                case CREATED, UPDATED, STATUS_CHANGED, ITEMS_CHANGED -> {
+                    if (!"Paid".equals(event.getStatus())) {
+                        String payload = paymentPayload(event.getInvoiceId(), event.getTotal(), event.getCurrency());
+                        prerenderExecutor.execute(() -> image(payload, PAYMENT_QR_SIZE, PAYMENT_QR_SIZE));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    public LruCache<?, ?> cache() {
+        return cache;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prerenderExecutor.shutdown();
+    }
+
+    private QrImage image(String text, int width, int height) {
+        return cache.computeIfAbsent(new QrKey(text, width, height), key -> {
+            long startedAt = System.nanoTime();
+            try {
+                BitMatrix bitMatrix = qrCodeWriter.encode(key.text(), BarcodeFormat.QR_CODE, key.width(), key.height(), HINTS);
+                return new QrImage(MonochromePngEncoder.encode(bitMatrix));
+            } catch (WriterException e) {
+                throw new IllegalStateException("Unable to encode QR code", e);
+            } finally {
+                billingMetrics.record(BillingMetrics.QR_ENCODE, startedAt);
+            }
+        });
+    }
+}
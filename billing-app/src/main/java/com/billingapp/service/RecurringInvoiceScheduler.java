@@ -0,0 +1,264 @@
+package com.billingapp.service;
+
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.RecurringInvoice;
+import com.billingapp.model.RecurringInvoiceItem;
+import com.billingapp.model.RecurringInvoiceRun;
+import com.billingapp.repository.RecurringInvoiceRepository;
+import com.billingapp.repository.RecurringInvoiceRunRepository;
+import com.billingapp.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Issues recurring invoices in two stages, both claimed in batches with SKIP LOCKED so any
+// number of nodes can poll at once without taking the same rows:
+//  1. Due templates (index on active, next_run_at, read earliest first: the shared priority
+//     queue) each get a run row for the occurrence and have nextRunAt moved to the one after.
+//  2. Available runs are leased (availableAt = now + lease) and generated on the worker pool,
+//     one transaction per run. A run whose node died becomes available again when the lease ends.
+// Generation re-locks the run and only proceeds while it is PENDING, and the run row is unique per
+// (template, occurrence), so however often a run is claimed it yields at most one invoice.
+@Service
+public class RecurringInvoiceScheduler {
+
+    private final RecurringInvoiceRepository recurringInvoiceRepository;
+    private final RecurringInvoiceRunRepository runRepository;
+    private final RecurringInvoiceService recurringInvoiceService;
+    private final InvoiceService invoiceService;
+    private final UserRepository userRepository;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate tx;
+    private final ExecutorService workers;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+
+    public RecurringInvoiceScheduler(RecurringInvoiceRepository recurringInvoiceRepository,
+                                     RecurringInvoiceRunRepository runRepository,
+                                     RecurringInvoiceService recurringInvoiceService, InvoiceService invoiceService,
+                                     UserRepository userRepository, BillingMetrics billingMetrics,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${billing.recurring.threads:8}") int threads,
+                                     @Value("${billing.recurring.max-in-flight:1000}") int maxInFlight,
+                                     @Value("${billing.recurring.batch-size:500}") int batchSize,
+                                     @Value("${billing.recurring.max-batches-per-poll:20}") int maxBatchesPerPoll,
+                                     @Value("${billing.recurring.lease:PT5M}") Duration lease,
+                                     @Value("${billing.recurring.max-attempts:5}") int maxAttempts,
+                                     @Value("${billing.recurring.base-backoff:PT1M}") Duration baseBackoff) {
+        this.recurringInvoiceRepository = recurringInvoiceRepository;
+        this.runRepository = runRepository;
+        this.recurringInvoiceService = recurringInvoiceService;
+        this.invoiceService = invoiceService;
+        this.userRepository = userRepository;
+        this.billingMetrics = billingMetrics;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.workers = newWorkerExecutor(threads);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+    }
+
+    private static ExecutorService newWorkerExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "recurring-invoice-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${billing.recurring.poll-interval-ms:1000}")
+    public void poll() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            if (scheduleDue() < batchSize) {
+                break;
+            }
+        }
+        dispatch();
+    }
+
+    // Never blocks the scheduler thread: claims only as many runs as there are free permits
+    private void dispatch() {
+        int free = Math.min(inFlight.availablePermits(), batchSize);
+        if (free == 0) {
+            return;
+        }
+        List<Long> claimed = claimRuns(free);
+        for (Long runId : claimed) {
+            inFlight.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    generate(runId);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    public int activeRuns() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    // Stage 1: one run per due occurrence. A template that fell behind (downtime) stays due and
+    // gets its next missed occurrence in the following batch, so every period is invoiced once.
+    private int scheduleDue() {
+        Integer count = tx.execute(status -> {
+            Instant now = Instant.now();
+            List<RecurringInvoice> due = recurringInvoiceRepository.findDueForUpdate(now, PageRequest.ofSize(batchSize));
+            List<RecurringInvoiceRun> runs = new ArrayList<>(due.size());
+            for (RecurringInvoice recurring : due) {
+                Instant occurrence = recurring.getNextRunAt();
+                if (recurring.getEndsAt() == null || !occurrence.isAfter(recurring.getEndsAt())) {
+                    runs.add(newRun(recurring.getId(), occurrence, now));
+                }
+                Instant next = recurringInvoiceService.nextRun(recurring.getCron(), recurring.getZone(), occurrence);
+                // No next occurrence: the schedule has finished and is never due again
+                boolean finished = next == null || (recurring.getEndsAt() != null && next.isAfter(recurring.getEndsAt()));
+                recurring.setNextRunAt(finished ? null : next);
+            }
+            runRepository.saveAll(runs);
+            return due.size();
+        });
+        return count == null ? 0 : count;
+    }
+
+    private static RecurringInvoiceRun newRun(Long recurringInvoiceId, Instant occurrence, Instant now) {
+        RecurringInvoiceRun run = new RecurringInvoiceRun();
+        run.setRecurringInvoiceId(recurringInvoiceId);
+        run.setScheduledFor(occurrence);
+        run.setStatus(RecurringInvoiceRun.Status.PENDING);
+        run.setAvailableAt(now);
+        run.setCreatedAt(now);
+        return run;
+    }
+
+    // Stage 2 claim: the lease hides the runs from other nodes while this one works on them
+    private List<Long> claimRuns(int limit) {
+        return tx.execute(status -> {
+            Instant now = Instant.now();
+            List<RecurringInvoiceRun> available = runRepository.findAvailableForUpdate(now, PageRequest.ofSize(limit));
+            List<Long> ids = new ArrayList<>(available.size());
+            for (RecurringInvoiceRun run : available) {
+                run.setAvailableAt(now.plus(lease));
+                run.setAttempts(run.getAttempts() + 1);
+                ids.add(run.getId());
+            }
+            return ids;
+        });
+    }
+
+    private void generate(Long runId) {
+        long startedAt = System.nanoTime();
+        try {
+            tx.executeWithoutResult(status -> {
+                RecurringInvoiceRun run = runRepository.findForUpdateById(runId).orElse(null);
+                if (run == null || run.getStatus() != RecurringInvoiceRun.Status.PENDING) {
+                    // Finished by another node after a lease ran out
+                    return;
+                }
+                RecurringInvoice recurring = recurringInvoiceRepository.findWithItemsById(run.getRecurringInvoiceId())
+                        .orElse(null);
+                if (recurring == null || !recurring.isActive()) {
+                    // Deleted or paused since the occurrence was scheduled
+                    run.setStatus(RecurringInvoiceRun.Status.SKIPPED);
+                } else {
+                    Invoice invoice = invoiceService.saveInvoice(toInvoice(recurring, run.getScheduledFor()));
+                    run.setInvoiceId(invoice.getId());
+                    run.setStatus(RecurringInvoiceRun.Status.DONE);
+                    run.setLastError(null);
+                }
+                run.setCompletedAt(Instant.now());
+            });
+        } catch (RuntimeException e) {
+            recordFailure(runId, e);
+        } finally {
+            billingMetrics.record(BillingMetrics.RECURRING_GENERATE, startedAt);
+        }
+    }
+
+    private Invoice toInvoice(RecurringInvoice recurring, Instant occurrence) {
+        Invoice invoice = new Invoice();
+        invoice.setUser(userRepository.getReferenceById(recurring.getUserId()));
+        invoice.setTitle(recurring.getTitle());
+        invoice.setCustomerName(recurring.getCustomerName());
+        invoice.setCurrency(recurring.getCurrency());
+        invoice.setTaxPercentage(recurring.getTaxPercentage());
+        invoice.setDiscountAmount(recurring.getDiscountAmount());
+        invoice.setLogo(recurring.getLogo());
+        invoice.setTaxJurisdiction(recurring.getTaxJurisdiction());
+        invoice.setTaxRuleVersion(recurring.getTaxRuleVersion());
+        invoice.setTaxInclusive(recurring.isTaxInclusive());
+        invoice.setSupplierState(recurring.getSupplierState());
+        invoice.setPlaceOfSupply(recurring.getPlaceOfSupply());
+        invoice.setStatus("Unpaid");
+        invoice.setInvoiceDate(Date.from(occurrence));
+        for (RecurringInvoiceItem template : recurring.getItems()) {
+            InvoiceItem item = new InvoiceItem(template.getName(), template.getPrice(), template.getQuantity(), invoice);
+            item.setTaxPercentage(template.getTaxPercentage());
+            item.setDiscountAmount(template.getDiscountAmount());
+            item.setTaxCategory(template.getTaxCategory());
+            invoice.getItems().add(item);
+        }
+        return invoice;
+    }
+
+    private void recordFailure(Long runId, RuntimeException failure) {
+        tx.executeWithoutResult(status -> runRepository.findForUpdateById(runId).ifPresent(run -> {
+            if (run.getStatus() != RecurringInvoiceRun.Status.PENDING) {
+                return;
+            }
+            run.setLastError(truncate(failure.getMessage()));
+            if (run.getAttempts() >= maxAttempts) {
+                run.setStatus(RecurringInvoiceRun.Status.FAILED);
+                run.setCompletedAt(Instant.now());
+            } else {
+                run.setAvailableAt(Instant.now().plus(backoff(run.getAttempts())));
+            }
+        }));
+    }
+
+    // base * 2^(attempt-1) with up to 20% jitter, so a run failing for every template does not retry in lockstep
+    private Duration backoff(int attempt) {
+        long millis = baseBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(millis / 5 + 1));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
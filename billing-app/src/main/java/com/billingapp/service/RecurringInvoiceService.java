@@ -0,0 +1,186 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.RecurringInvoiceRequest;
+import com.billingapp.dto.RecurringInvoiceRunView;
+import com.billingapp.dto.RecurringInvoiceView;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.RecurringInvoice;
+import com.billingapp.model.RecurringInvoiceItem;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.repository.RecurringInvoiceRepository;
+import com.billingapp.repository.RecurringInvoiceRunRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Recurring invoices: a copy of an invoice and its items plus a cron schedule. Occurrences are
+// issued by RecurringInvoiceScheduler; this service manages the templates and computes due times.
+@Service
+public class RecurringInvoiceService {
+    // Consecutive occurrences checked against the minimum period; cron spacing repeats within weeks
+    private static final int PERIOD_SAMPLES = 64;
+
+    private final RecurringInvoiceRepository recurringInvoiceRepository;
+    private final RecurringInvoiceRunRepository runRepository;
+    private final InvoiceRepository invoiceRepository;
+    // Parsed once per distinct expression; most schedules share a handful ("monthly on the 1st")
+    private final Cache<String, CronExpression> expressions = Caffeine.newBuilder().maximumSize(1_000).build();
+    private final Duration minPeriod;
+
+    public RecurringInvoiceService(RecurringInvoiceRepository recurringInvoiceRepository,
+                                   RecurringInvoiceRunRepository runRepository, InvoiceRepository invoiceRepository,
+                                   @Value("${billing.recurring.min-period:PT1H}") Duration minPeriod) {
+        this.recurringInvoiceRepository = recurringInvoiceRepository;
+        this.runRepository = runRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.minPeriod = minPeriod;
+    }
+
+    // Empty when the invoice does not exist or is not the user's; IllegalArgumentException for a bad schedule
+    @Transactional
+    public Optional<RecurringInvoiceView> createFromInvoice(Long userId, Long invoiceId, RecurringInvoiceRequest request) {
+        String cron = request.cron() == null ? null : request.cron().trim();
+        ZoneId zone = parseZone(request.zone());
+        Instant now = Instant.now();
+        Instant first = nextRun(cron, zone.getId(), now);
+        if (first == null) {
+            throw new IllegalArgumentException("cron never fires: " + cron);
+        }
+        requireMinPeriod(cron, zone, first);
+        if (request.endsAt() != null && !request.endsAt().isAfter(first)) {
+            throw new IllegalArgumentException("endsAt is before the first occurrence (" + first + ")");
+        }
+
+        List<Invoice> found = invoiceRepository.findAllWithItemsByIdIn(List.of(invoiceId));
+        if (found.isEmpty() || !userId.equals(found.get(0).getUser().getId())) {
+            return Optional.empty();
+        }
+        Invoice invoice = found.get(0);
+
+        RecurringInvoice recurring = new RecurringInvoice();
+        recurring.setUserId(userId);
+        recurring.setSourceInvoiceId(invoice.getId());
+        recurring.setTitle(invoice.getTitle());
+        recurring.setCustomerName(invoice.getCustomerName());
+        recurring.setCurrency(invoice.getCurrency());
+        recurring.setTaxPercentage(invoice.getTaxPercentage());
+        recurring.setDiscountAmount(invoice.getDiscountAmount());
+        recurring.setLogo(invoice.getLogo());
+        recurring.setTaxJurisdiction(invoice.getTaxJurisdiction());
+        recurring.setTaxRuleVersion(invoice.getTaxRuleVersion());
+        recurring.setTaxInclusive(invoice.isTaxInclusive());
+        recurring.setSupplierState(invoice.getSupplierState());
+        recurring.setPlaceOfSupply(invoice.getPlaceOfSupply());
+        for (InvoiceItem source : invoice.getItems()) {
+            RecurringInvoiceItem item = new RecurringInvoiceItem();
+            item.setRecurringInvoice(recurring);
+            item.setName(source.getName());
+            item.setPrice(source.getPrice());
+            item.setQuantity(source.getQuantity());
+            item.setTaxPercentage(source.getTaxPercentage());
+            item.setDiscountAmount(source.getDiscountAmount());
+            item.setTaxCategory(source.getTaxCategory());
+            recurring.getItems().add(item);
+        }
+        recurring.setCron(cron);
+        recurring.setZone(zone.getId());
+        recurring.setEndsAt(request.endsAt());
+        recurring.setActive(true);
+        recurring.setNextRunAt(first);
+        recurring.setCreatedAt(now);
+        return Optional.of(RecurringInvoiceView.from(recurringInvoiceRepository.save(recurring)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecurringInvoiceView> listForUser(Long userId) {
+        return recurringInvoiceRepository.findByUserIdOrderByIdDesc(userId).stream()
+                .map(RecurringInvoiceView::from)
+                .toList();
+    }
+
+    // Resuming schedules from now: occurrences missed while paused are not issued
+    @Transactional
+    public Optional<RecurringInvoiceView> setActive(Long userId, Long id, boolean active) {
+        return owned(userId, id).map(recurring -> {
+            if (active && !recurring.isActive()) {
+                Instant next = nextRun(recurring.getCron(), recurring.getZone(), Instant.now());
+                if (next == null || (recurring.getEndsAt() != null && next.isAfter(recurring.getEndsAt()))) {
+                    throw new IllegalArgumentException("schedule has no occurrences left");
+                }
+                recurring.setNextRunAt(next);
+            }
+            recurring.setActive(active);
+            return RecurringInvoiceView.from(recurring);
+        });
+    }
+
+    // Invoices already issued are kept; pending runs are skipped once the template is gone
+    @Transactional
+    public boolean delete(Long userId, Long id) {
+        return owned(userId, id).map(recurring -> {
+            recurringInvoiceRepository.delete(recurring);
+            return true;
+        }).orElse(false);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<List<RecurringInvoiceRunView>> recentRuns(Long userId, Long id) {
+        return owned(userId, id).map(recurring ->
+                runRepository.findTop50ByRecurringInvoiceIdOrderByScheduledForDesc(recurring.getId()).stream()
+                        .map(RecurringInvoiceRunView::from)
+                        .toList());
+    }
+
+    // First occurrence strictly after `after`, or null when the expression has none
+    public Instant nextRun(String cron, String zone, Instant after) {
+        if (cron == null || cron.isBlank()) {
+            throw new IllegalArgumentException("cron is required");
+        }
+        CronExpression expression = expressions.get(cron, CronExpression::parse);
+        ZonedDateTime next = expression.next(ZonedDateTime.ofInstant(after, ZoneId.of(zone)));
+        return next == null ? null : next.toInstant();
+    }
+
+    // "* * * * * *" is a valid cron but would issue an invoice every second
+    private void requireMinPeriod(String cron, ZoneId zone, Instant first) {
+        Instant previous = first;
+        for (int i = 0; i < PERIOD_SAMPLES; i++) {
+            Instant next = nextRun(cron, zone.getId(), previous);
+            if (next == null) {
+                return;
+            }
+            if (Duration.between(previous, next).compareTo(minPeriod) < 0) {
+                throw new IllegalArgumentException("cron fires more often than every " + minPeriod + ": " + cron);
+            }
+            previous = next;
+        }
+    }
+
+    private Optional<RecurringInvoice> owned(Long userId, Long id) {
+        return recurringInvoiceRepository.findById(id).filter(recurring -> recurring.getUserId().equals(userId));
+    }
+
+    private static ZoneId parseZone(String zone) {
+        if (zone == null || zone.isBlank()) {
+            return ZoneOffset.UTC;
+        }
+        try {
+            return ZoneId.of(zone.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("unknown zone: " + zone);
+        }
+    }
+}
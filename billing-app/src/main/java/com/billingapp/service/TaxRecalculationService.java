@@ -0,0 +1,210 @@
+package com.billingapp.service;
+
+import com.billingapp.config.CacheConfig;
+import com.billingapp.dto.TaxRecalculationResult;
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.repository.RecurringInvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Re-prices every unpaid invoice of a jurisdiction on one rule version, e.g. after a rate change.
+// Ids are walked in keyset pages; each page is a chunk recalculated in its own transaction on the
+// worker pool, with one ledger increment per touched bucket. The rules are compiled once and shared
+// by all chunks, so the per-line cost is a rate lookup and long arithmetic. Paid invoices keep the
+// amounts they were issued with. A chunk that fails (a concurrent edit of one of its invoices wins
+// the optimistic lock) is rolled back and reported; running the recalculation again picks it up.
+// Recurring templates of the jurisdiction move to the version first, so later occurrences match.
+@Service
+public class TaxRecalculationService {
+    private static final Logger log = LoggerFactory.getLogger(TaxRecalculationService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final RecurringInvoiceRepository recurringInvoiceRepository;
+    private final TaxRuleService taxRuleService;
+    private final LedgerAggregateService ledgerAggregateService;
+    private final InvoiceEventLog invoiceEventLog;
+    private final CacheManager cacheManager;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService workers;
+    private final int threads;
+    private final int chunkSize;
+
+    public TaxRecalculationService(InvoiceRepository invoiceRepository,
+                                   RecurringInvoiceRepository recurringInvoiceRepository, TaxRuleService taxRuleService,
+                                   LedgerAggregateService ledgerAggregateService, InvoiceEventLog invoiceEventLog,
+                                   CacheManager cacheManager, BillingMetrics billingMetrics,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${billing.tax.recalc.threads:4}") int threads,
+                                   @Value("${billing.tax.recalc.chunk-size:500}") int chunkSize) {
+        this.invoiceRepository = invoiceRepository;
+        this.recurringInvoiceRepository = recurringInvoiceRepository;
+        this.taxRuleService = taxRuleService;
+        this.ledgerAggregateService = ledgerAggregateService;
+        this.invoiceEventLog = invoiceEventLog;
+        this.cacheManager = cacheManager;
+        this.billingMetrics = billingMetrics;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.workers = newWorkerExecutor(threads);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    private static ExecutorService newWorkerExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tax-recalc-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Tally {
+        private final LongAdder invoices = new LongAdder();
+        private final LongAdder lines = new LongAdder();
+        private final LongAdder changed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+
+    // version == null: the latest published version. IllegalArgumentException when there is no such rule set.
+    // Blocks until every chunk is done; at most two chunks per worker are read ahead.
+    public TaxRecalculationResult recalculate(String jurisdiction, Integer version) {
+        long started = System.currentTimeMillis();
+        CompiledTaxRules rules = version == null
+                ? taxRuleService.latest(jurisdiction) : taxRuleService.rules(jurisdiction, version);
+        Integer schedules = tx.execute(status ->
+                recurringInvoiceRepository.moveToTaxRuleVersion(rules.jurisdiction(), rules.version()));
+        Tally tally = new Tally();
+        Semaphore pending = new Semaphore(threads * 2);
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = readOnlyTx.execute(status -> invoiceRepository.findUnpaidIdsByTaxJurisdiction(
+                    rules.jurisdiction(), from, PageRequest.ofSize(chunkSize)));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            pending.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    recalculateChunk(ids, rules, tally);
+                } finally {
+                    pending.release();
+                }
+            });
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        pending.acquireUninterruptibly(threads * 2);
+
+        TaxRecalculationResult result = new TaxRecalculationResult(rules.jurisdiction(), rules.version(),
+                tally.invoices.sum(), tally.lines.sum(), tally.changed.sum(), tally.failed.sum(),
+                schedules == null ? 0 : schedules, System.currentTimeMillis() - started);
+        log.info("Recalculated tax for {}: {}", rules.jurisdiction(), result);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void recalculateChunk(List<Long> ids, CompiledTaxRules rules, Tally tally) {
+        long startedAt = System.nanoTime();
+        try {
+            int[] counts = tx.execute(status -> recalculate(ids, rules));
+            tally.invoices.add(counts[0]);
+            tally.lines.add(counts[1]);
+            tally.changed.add(counts[2]);
+        } catch (RuntimeException e) {
+            log.warn("Tax recalculation of invoices {}..{} failed: {}", ids.get(0), ids.get(ids.size() - 1), e.toString());
+            tally.failed.add(ids.size());
+        } finally {
+            billingMetrics.record(BillingMetrics.TAX_RECALCULATE, startedAt);
+        }
+    }
+
+    // {invoices, lines, changed}
+    private int[] recalculate(List<Long> ids, CompiledTaxRules rules) {
+        LedgerAggregateService.Changes ledger = new LedgerAggregateService.Changes();
+        List<Invoice> changed = new ArrayList<>();
+        int invoices = 0;
+        int lines = 0;
+        for (Invoice invoice : invoiceRepository.findAllWithItemsByIdIn(ids)) {
+            // Paid, or moved to another jurisdiction, since the id was read
+            if ("Paid".equals(invoice.getStatus()) || !rules.jurisdiction().equals(invoice.getTaxJurisdiction())) {
+                continue;
+            }
+            invoices++;
+            lines += invoice.getItems().size();
+            LedgerAggregateService.LedgerEntry before = ledgerAggregateService.entryOf(invoice);
+            Amounts amounts = Amounts.of(invoice);
+            invoice.setTaxRuleVersion(rules.version());
+            InvoiceCalculator.recalculate(invoice, rules);
+            if (!amounts.sameAs(Amounts.of(invoice))) {
+                ledger.replace(before, ledgerAggregateService.entryOf(invoice));
+                changed.add(invoice);
+            }
+        }
+        if (!changed.isEmpty()) {
+            invoiceRepository.flush();
+            Cache details = cacheManager.getCache(CacheConfig.INVOICE_DETAILS);
+            for (Invoice invoice : changed) {
+                invoiceEventLog.append(invoice, InvoiceEvent.Type.UPDATED);
+                if (details != null) {
+                    details.evict(invoice.getId());
+                }
+            }
+            ledgerAggregateService.apply(ledger);
+        }
+        return new int[]{invoices, lines, changed.size()};
+    }
+
+    // What a recalculation can change; amounts compare by value, as Hibernate's dirty check does
+    private record Amounts(Integer version, BigDecimal subtotal, BigDecimal tax, BigDecimal total,
+                           BigDecimal cgst, BigDecimal sgst, BigDecimal igst) {
+
+        static Amounts of(Invoice invoice) {
+            return new Amounts(invoice.getTaxRuleVersion(), invoice.getSubtotal(), invoice.getTaxAmount(),
+                    invoice.getTotal(), invoice.getCgstAmount(), invoice.getSgstAmount(), invoice.getIgstAmount());
+        }
+
+        boolean sameAs(Amounts other) {
+            return Objects.equals(version, other.version) && same(subtotal, other.subtotal) && same(tax, other.tax)
+                    && same(total, other.total) && same(cgst, other.cgst) && same(sgst, other.sgst)
+                    && same(igst, other.igst);
+        }
+
+        private static boolean same(BigDecimal a, BigDecimal b) {
+            return a == null ? b == null : b != null && a.compareTo(b) == 0;
+        }
+    }
+}
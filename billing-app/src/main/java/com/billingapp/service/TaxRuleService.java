@@ -0,0 +1,136 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.TaxRuleSetView;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.TaxRule;
+import com.billingapp.model.TaxRuleSet;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.repository.TaxRuleSetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+// Publishes tax rule sets and serves them compiled. A (jurisdiction, version) never changes once
+// published, so compiled sets are cached without invalidation; only "which version is latest" is
+// cached with an expiry, bounding how long another node keeps using the previous version for new invoices.
+@Service
+public class TaxRuleService {
+
+    private final TaxRuleSetRepository taxRuleSetRepository;
+    private final Cache<String, CompiledTaxRules> compiled;
+    private final Cache<String, Integer> latestVersions;
+
+    public TaxRuleService(TaxRuleSetRepository taxRuleSetRepository,
+                          @Value("${billing.tax.cache-size:1000}") int cacheSize,
+                          @Value("${billing.tax.latest-version-ttl:PT1M}") Duration latestVersionTtl) {
+        this.taxRuleSetRepository = taxRuleSetRepository;
+        this.compiled = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+        this.latestVersions = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(latestVersionTtl).build();
+    }
+
+    // Rules for an invoice, or null when it has no jurisdiction (flat rates). An invoice without a
+    // version is stamped with the latest one, which it then keeps.
+    public CompiledTaxRules rulesFor(Invoice invoice) {
+        if (invoice.getTaxJurisdiction() == null || invoice.getTaxJurisdiction().isBlank()) {
+            return null;
+        }
+        String jurisdiction = jurisdiction(invoice.getTaxJurisdiction());
+        CompiledTaxRules rules = invoice.getTaxRuleVersion() == null
+                ? latest(jurisdiction) : rules(jurisdiction, invoice.getTaxRuleVersion());
+        invoice.setTaxJurisdiction(jurisdiction);
+        invoice.setTaxRuleVersion(rules.version());
+        return rules;
+    }
+
+    // Rules an invoice was priced with, for reading it back; unlike rulesFor nothing is stamped
+    public CompiledTaxRules rulesOf(Invoice invoice) {
+        if (invoice.getTaxJurisdiction() == null || invoice.getTaxJurisdiction().isBlank()) {
+            return null;
+        }
+        return invoice.getTaxRuleVersion() == null
+                ? latest(invoice.getTaxJurisdiction()) : rules(invoice.getTaxJurisdiction(), invoice.getTaxRuleVersion());
+    }
+
+    // IllegalArgumentException when the jurisdiction has no published rules
+    public CompiledTaxRules latest(String jurisdiction) {
+        String key = jurisdiction(jurisdiction);
+        Integer version = latestVersions.get(key, j -> taxRuleSetRepository.findLatestVersion(j).orElse(null));
+        if (version == null) {
+            throw new IllegalArgumentException("no tax rules published for " + key);
+        }
+        return rules(key, version);
+    }
+
+    public CompiledTaxRules rules(String jurisdiction, int version) {
+        String key = jurisdiction(jurisdiction);
+        return compiled.get(key + ':' + version, k -> taxRuleSetRepository.findWithRules(key, version)
+                .map(TaxRuleService::compile)
+                .orElseThrow(() -> new IllegalArgumentException("no tax rules " + key + " version " + version)));
+    }
+
+    // Compiles first, so an invalid rule set is refused (IllegalArgumentException) rather than stored.
+    // Two concurrent publishes for one jurisdiction collide on the unique version; one of them fails.
+    @Transactional
+    public TaxRuleSetView publish(TaxRuleSetView request) {
+        if (request.jurisdiction() == null || request.jurisdiction().isBlank()) {
+            throw new IllegalArgumentException("jurisdiction is required");
+        }
+        if (request.rules() == null || request.rules().isEmpty()) {
+            throw new IllegalArgumentException("rules must not be empty");
+        }
+        String jurisdiction = jurisdiction(request.jurisdiction());
+        if (jurisdiction.length() > 16) {
+            throw new IllegalArgumentException("jurisdiction is longer than 16 characters");
+        }
+        int version = taxRuleSetRepository.findLatestVersion(jurisdiction).orElse(0) + 1;
+
+        TaxRuleSet set = new TaxRuleSet();
+        set.setJurisdiction(jurisdiction);
+        set.setVersion(version);
+        set.setSplit(request.split() == null ? CompiledTaxRules.Split.NONE : request.split());
+        set.setCreatedAt(Instant.now());
+        for (TaxRuleSetView.Rule source : request.rules()) {
+            TaxRule rule = new TaxRule();
+            rule.setRuleSet(set);
+            rule.setCategory(source.category() == null ? null : CompiledTaxRules.normalize(source.category()));
+            rule.setMinUnitPrice(source.minUnitPrice() == null ? BigDecimal.ZERO : source.minUnitPrice());
+            rule.setRatePercent(source.ratePercent());
+            set.getRules().add(rule);
+        }
+        compile(set);
+        taxRuleSetRepository.saveAndFlush(set);
+        latestVersions.invalidate(jurisdiction);
+        return TaxRuleSetView.from(set);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TaxRuleSetView> find(String jurisdiction, Integer version) {
+        String key = jurisdiction(jurisdiction);
+        Optional<Integer> resolved = version != null ? Optional.of(version) : taxRuleSetRepository.findLatestVersion(key);
+        return resolved.flatMap(v -> taxRuleSetRepository.findWithRules(key, v)).map(TaxRuleSetView::from);
+    }
+
+    public Cache<String, ?> compiledRules() {
+        return compiled;
+    }
+
+    private static CompiledTaxRules compile(TaxRuleSet set) {
+        List<CompiledTaxRules.Slab> slabs = set.getRules().stream()
+                .map(r -> new CompiledTaxRules.Slab(r.getCategory(), r.getMinUnitPrice(), r.getRatePercent()))
+                .toList();
+        return CompiledTaxRules.compile(set.getJurisdiction(), set.getVersion(), set.getSplit(), slabs);
+    }
+
+    private static String jurisdiction(String jurisdiction) {
+        return jurisdiction.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,31 @@
+package com.billingapp.template;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Bounded pool of render buffers. Not thread-local: with virtual threads every request would get
+// its own. An empty pool allocates instead of waiting; a full one drops the returned buffer.
+public final class CharBufferPool {
+    private final BlockingQueue<char[]> buffers;
+    private final int bufferSize;
+
+    public CharBufferPool(int capacity, int bufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+        this.bufferSize = bufferSize;
+    }
+
+    public char[] acquire() {
+        char[] buffer = buffers.poll();
+        return buffer != null ? buffer : new char[bufferSize];
+    }
+
+    public void release(char[] buffer) {
+        if (buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int available() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,198 @@
+package com.billingapp.template;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceLine;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Invoice template parsed once into literal chunks and resolved field accessors; rendering is a
+// single pass over the segments (and once over the body per line), so cost is linear in output.
+//
+// Syntax: {{field}} writes an HTML-escaped value; {{#items}}...{{/items}} repeats for each line,
+// where the line fields are also available (taking precedence over invoice fields of the same
+// name, e.g. a line's taxAmount); {{#field}}...{{/field}} renders only when the field
+// has a value and {{^field}}...{{/field}} only when it has none ({{^items}}: no lines). Unknown
+// fields and unbalanced sections are rejected at compile time, so a stored template always renders.
+public final class CompiledInvoiceTemplate {
+
+    private static final Map<String, Function<Model, Object>> INVOICE_FIELDS = Map.ofEntries(
+            Map.entry("id", m -> m.invoice.id()),
+            Map.entry("title", m -> m.invoice.title()),
+            Map.entry("customerName", m -> m.invoice.customerName()),
+            Map.entry("status", m -> m.invoice.status()),
+            Map.entry("currency", m -> m.invoice.currency()),
+            Map.entry("subtotal", m -> m.invoice.subtotal()),
+            Map.entry("taxPercentage", m -> m.invoice.taxPercentage()),
+            Map.entry("taxAmount", m -> m.invoice.taxAmount()),
+            Map.entry("discountAmount", m -> m.invoice.discountAmount()),
+            Map.entry("total", m -> m.invoice.total()),
+            Map.entry("invoiceDate", m -> m.invoice.invoiceDate() == null ? null
+                    : LocalDate.ofInstant(m.invoice.invoiceDate().toInstant(), ZoneId.systemDefault())),
+            Map.entry("itemCount", m -> m.invoice.items().size()),
+            Map.entry("logo", m -> m.logo));
+
+    private static final Map<String, Function<Model, Object>> LINE_FIELDS = Map.of(
+            "index", m -> m.index + 1,
+            "name", m -> m.line.name(),
+            "price", m -> m.line.price(),
+            "quantity", m -> m.line.quantity(),
+            "discountAmount", m -> m.line.discountAmount(),
+            "taxPercentage", m -> m.line.taxPercentage(),
+            "taxAmount", m -> m.line.taxAmount(),
+            "net", m -> m.line.net(),
+            "lineTotal", m -> m.line.lineTotal());
+
+    private static final String ITEMS = "items";
+
+    private final List<Segment> segments;
+
+    private CompiledInvoiceTemplate(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    // Render state, one per call; the loop moves line/index instead of allocating per line
+    private static final class Model {
+        final InvoiceDetail invoice;
+        final String logo;
+        InvoiceLine line;
+        int index;
+
+        Model(InvoiceDetail invoice, String logo) {
+            this.invoice = invoice;
+            this.logo = logo;
+        }
+    }
+
+    private sealed interface Segment {
+        void render(Model model, TemplateWriter out);
+    }
+
+    private record Text(char[] chars) implements Segment {
+        public void render(Model model, TemplateWriter out) {
+            out.writeRaw(chars);
+        }
+    }
+
+    private record Field(Function<Model, Object> accessor) implements Segment {
+        public void render(Model model, TemplateWriter out) {
+            out.writeValue(accessor.apply(model));
+        }
+    }
+
+    private record Items(List<Segment> body) implements Segment {
+        public void render(Model model, TemplateWriter out) {
+            List<InvoiceLine> lines = model.invoice.items();
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                model.line = lines.get(i);
+                model.index = i;
+                renderAll(body, model, out);
+            }
+            model.line = null;
+        }
+    }
+
+    private record Conditional(Function<Model, Object> accessor, boolean inverted, List<Segment> body) implements Segment {
+        public void render(Model model, TemplateWriter out) {
+            Object value = accessor.apply(model);
+            boolean present = value != null && !(value instanceof CharSequence text && text.isEmpty());
+            if (present != inverted) {
+                renderAll(body, model, out);
+            }
+        }
+    }
+
+    private static void renderAll(List<Segment> segments, Model model, TemplateWriter out) {
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            segments.get(i).render(model, out);
+        }
+    }
+
+    // logo is the already-resolved logo URL (invoice override or the owner's template default)
+    public void render(InvoiceDetail invoice, String logo, TemplateWriter out) {
+        renderAll(segments, new Model(invoice, logo), out);
+    }
+
+    public static CompiledInvoiceTemplate compile(String source) {
+        Parser parser = new Parser(source);
+        List<Segment> segments = parser.parse(null, false);
+        return new CompiledInvoiceTemplate(List.copyOf(segments));
+    }
+
+    private static final class Parser {
+        private final String source;
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        // Parses until the closing tag of `section` (or the end of input at top level)
+        List<Segment> parse(String section, boolean inItems) {
+            List<Segment> segments = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    segments.add(new Text(source.substring(position).toCharArray()));
+                    position = source.length();
+                    break;
+                }
+                if (open > position) {
+                    segments.add(new Text(source.substring(position, open).toCharArray()));
+                }
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed tag at offset " + open);
+                }
+                String tag = source.substring(open + 2, close).trim();
+                position = close + 2;
+                if (tag.isEmpty()) {
+                    throw new IllegalArgumentException("Empty tag at offset " + open);
+                }
+
+                char kind = tag.charAt(0);
+                String name = kind == '#' || kind == '^' || kind == '/' ? tag.substring(1).trim() : tag;
+                if (kind == '/') {
+                    if (!name.equals(section)) {
+                        throw new IllegalArgumentException("Unexpected {{/" + name + "}} at offset " + open);
+                    }
+                    return segments;
+                }
+                if (kind == '#' && name.equals(ITEMS)) {
+                    if (inItems) {
+                        throw new IllegalArgumentException("Nested {{#items}} at offset " + open);
+                    }
+                    segments.add(new Items(List.copyOf(parse(ITEMS, true))));
+                } else if (kind == '^' && name.equals(ITEMS)) {
+                    segments.add(new Conditional(m -> m.invoice.items().isEmpty() ? null : ITEMS, true,
+                            List.copyOf(parse(ITEMS, inItems))));
+                } else if (kind == '#' || kind == '^') {
+                    segments.add(new Conditional(field(name, inItems, open), kind == '^',
+                            List.copyOf(parse(name, inItems))));
+                } else {
+                    segments.add(new Field(field(name, inItems, open)));
+                }
+            }
+            if (section != null) {
+                throw new IllegalArgumentException("Missing {{/" + section + "}}");
+            }
+            return segments;
+        }
+
+        private static Function<Model, Object> field(String name, boolean inItems, int offset) {
+            Function<Model, Object> accessor = inItems ? LINE_FIELDS.get(name) : null;
+            if (accessor == null) {
+                accessor = INVOICE_FIELDS.get(name);
+            }
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "' at offset " + offset
+                        + (LINE_FIELDS.containsKey(name) ? " (only inside {{#items}})" : ""));
+            }
+            return accessor;
+        }
+    }
+}
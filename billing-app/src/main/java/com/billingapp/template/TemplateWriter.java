@@ -0,0 +1,101 @@
+package com.billingapp.template;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+// Writes rendered output through a fixed pooled buffer, handing each full chunk to the target,
+// so output size never grows the heap. Values are HTML-escaped char by char, without copies.
+public final class TemplateWriter implements AutoCloseable {
+    private final Writer target;
+    private final CharBufferPool pool;
+    private char[] buffer;
+    private int position;
+
+    public TemplateWriter(Writer target, CharBufferPool pool) {
+        this.target = target;
+        this.pool = pool;
+        this.buffer = pool.acquire();
+    }
+
+    public void writeRaw(char[] chars) {
+        int offset = 0;
+        while (offset < chars.length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(chars.length - offset, buffer.length - position);
+            System.arraycopy(chars, offset, buffer, position, count);
+            position += count;
+            offset += count;
+        }
+    }
+
+    public void writeEscaped(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> writeAscii("&amp;");
+                case '<' -> writeAscii("&lt;");
+                case '>' -> writeAscii("&gt;");
+                case '"' -> writeAscii("&quot;");
+                case '\'' -> writeAscii("&#39;");
+                default -> put(c);
+            }
+        }
+    }
+
+    // Strings are escaped; numbers are written as plain digits
+    public void writeValue(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof CharSequence text) {
+            writeEscaped(text);
+        } else if (value instanceof BigDecimal decimal) {
+            writeAscii(decimal.toPlainString());
+        } else {
+            writeEscaped(value.toString());
+        }
+    }
+
+    private void writeAscii(String text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    private void put(char c) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    private void drain() {
+        try {
+            target.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+
+    // Writes what is buffered, flushes the target and returns the buffer to the pool
+    @Override
+    public void close() {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            drain();
+            target.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.CurrencyAmount;
+import com.billingapp.dto.LedgerPoint;
+import com.billingapp.dto.ReceivablesAgeing;
+import com.billingapp.dto.TopItem;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.AnalyticsService;
+import com.billingapp.service.ItemRevenueService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Chart data for the dashboard, served from the rollup tables; "to" is inclusive everywhere
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+    private final ItemRevenueService itemRevenueService;
+
+    public AnalyticsController(AnalyticsService analyticsService, ItemRevenueService itemRevenueService) {
+        this.analyticsService = analyticsService;
+        this.itemRevenueService = itemRevenueService;
+    }
+
+    // ✅ Revenue and expenses per day, week or month, converted to `currency` (default: reporting currency)
+    @GetMapping("/revenue")
+    public ResponseEntity<List<LedgerPoint>> getRevenue(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "MONTH") AnalyticsService.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.series(principal.userId(), granularity, from, to.plusDays(1), currency));
+    }
+
+    // ✅ Best-selling items by revenue on paid invoices (whole months)
+    @GetMapping("/top-items")
+    public ResponseEntity<List<TopItem>> getTopItems(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.topItems(principal.userId(), from, to.plusDays(1), currency, limit));
+    }
+
+    // ✅ Paid revenue split by invoice currency
+    @GetMapping("/revenue-by-currency")
+    public ResponseEntity<List<CurrencyAmount>> getRevenueByCurrency(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.revenueByCurrency(principal.userId(), from, to.plusDays(1)));
+    }
+
+    // ✅ Unpaid invoice totals in 0-30 / 31-60 / 61-90 / 90+ day buckets
+    @GetMapping("/receivables-ageing")
+    public ResponseEntity<List<ReceivablesAgeing>> getReceivablesAgeing(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(analyticsService.receivablesAgeing(principal.userId(), asOf != null ? asOf : LocalDate.now()));
+    }
+
+    // Recompute item rollups from invoices (one user, or everyone when userId is omitted); admins only (SecurityConfig)
+    @PostMapping("/items/rebuild")
+    public ResponseEntity<Void> rebuildItemRollups(@RequestParam(required = false) Long userId) {
+        itemRevenueService.rebuild(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,13 +3,15 @@ package com.billingapp.controller;
 import com.billingapp.model.User;
 import com.billingapp.repository.UserRepository;
 import com.billingapp.security.JwtUtil;
+import com.billingapp.security.PasswordHashingService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -17,32 +19,63 @@ import java.util.Optional;
 public class AuthController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                          AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public AuthController(UserRepository userRepository, PasswordHashingService passwordHashingService, JwtUtil jwtUtil) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
+        this.passwordHashingService = passwordHashingService;
         this.jwtUtil = jwtUtil;
     }
 
+    // ✅ Hashing runs on the bounded hash pool; the servlet thread is released while it waits
     @PostMapping("/register")
-    public ResponseEntity<String> registerUser(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<String>> registerUser(@RequestBody User user) {
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-            return ResponseEntity.badRequest().body("Username already exists!");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Username already exists!"));
+        }
+        // The body binds to the entity: never let it choose its id or admin flag
+        user.setId(null);
+        user.setAdmin(false);
+        try {
+            return passwordHashingService.encode(user.getPassword())
+                    .thenApply(hash -> {
+                        user.setPassword(hash);
+                        userRepository.save(user);
+                        return ResponseEntity.ok("User registered successfully!");
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
-        return ResponseEntity.ok("User registered successfully!");
     }
 
+    // ✅ Hashes stored with an older cost are replaced by one at the configured cost on success
     @PostMapping("/login")
-    public ResponseEntity<String> loginUser(@RequestBody User user) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(user.getUsername(), user.getPassword()));
-        String token = jwtUtil.generateToken(user.getUsername());
-        return ResponseEntity.ok(token);
+    public CompletableFuture<ResponseEntity<String>> loginUser(@RequestBody User user) {
+        Optional<User> account = userRepository.findByUsername(user.getUsername());
+        try {
+            return passwordHashingService.verify(user.getPassword(), account.map(User::getPassword).orElse(null))
+                    .thenApply(result -> {
+                        if (!result.matches()) {
+                            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+                        }
+                        User found = account.get();
+                        if (result.upgradedHash() != null) {
+                            found.setPassword(result.upgradedHash());
+                            userRepository.save(found);
+                        }
+                        // The user id goes into the token so authenticated requests never need to look the user up
+                        return ResponseEntity.ok(jwtUtil.generateToken(found.getId(), found.getUsername(), found.isAdmin()));
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+    }
+
+    // Hash queue is full: fail fast so clients back off instead of piling onto the CPU
+    private static ResponseEntity<String> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many sign-in attempts, retry shortly");
     }
-}
\ No newline at end of file
+}
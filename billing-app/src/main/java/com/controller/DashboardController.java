@@ -0,0 +1,69 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.LedgerPoint;
+import com.billingapp.model.LedgerAggregate;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.LedgerAggregateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    @Autowired
+    private LedgerAggregateService ledgerAggregateService;
+
+    // Reads the pre-summed month buckets instead of aggregating invoices and expenses, converting
+    // each currency to `currency` (default: reporting currency). "Complete" is false when some
+    // currency had no FX rate and was left out.
+    @GetMapping("/profit-loss")
+    public ResponseEntity<Map<String, Object>> getProfitLoss(@AuthenticationPrincipal JwtPrincipal principal,
+                                                             @RequestParam(required = false) String currency) {
+        LedgerPoint totals = ledgerAggregateService.totals(principal.userId(), currency);
+
+        double totalIncome = totals.income().doubleValue();
+        double totalExpenses = totals.expenses().doubleValue();
+
+        double profitLoss = totals.getProfit().doubleValue();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("Total Income", totalIncome);
+        response.put("Total Expenses", totalExpenses);
+        response.put("Profit/Loss", profitLoss);
+        response.put("Currency", totals.currency());
+        response.put("Complete", totals.complete());
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Income/expenses per day or month for charts, in `currency`; "to" is inclusive
+    @GetMapping("/series")
+    public ResponseEntity<List<LedgerPoint>> getSeries(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "MONTH") LedgerAggregate.PeriodType granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String currency) {
+        if (granularity == LedgerAggregate.PeriodType.TOTAL || to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ledgerAggregateService.series(principal.userId(), granularity, from, to.plusDays(1), currency));
+    }
+
+    // Recompute aggregates from invoices and expenses (one user, or everyone when userId is omitted).
+    // Admins only (SecurityConfig): it rewrites other users' rows and a full rebuild scans every table
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<Void> rebuildAggregates(@RequestParam(required = false) Long userId) {
+        ledgerAggregateService.rebuild(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
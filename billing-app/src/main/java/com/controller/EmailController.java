@@ -1,24 +1,45 @@
-package com.example.billing.controller;
+package com.billingapp.controller;
 
-import com.example.billing.service.EmailService;
-import jakarta.mail.MessagingException;
+import com.billingapp.dto.EmailStatus;
+import com.billingapp.model.OutboundEmail;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.EmailService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/api/email")
 public class EmailController {
 
     @Autowired
-    private PdfGeneratorService pdfGeneratorService;
+    private EmailService emailService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
 
+    // Queues the invoice PDF for delivery and returns immediately; poll the status URL for the outcome.
+    // Another user's invoice is reported as not found
     @PostMapping("/send-pdf")
-    public String sendInvoice(@RequestParam String email, @RequestParam String invoiceDetails) {
-        try {
-            pdfGeneratorService.sendInvoiceEmail(email, customerName, totalAmount);
-            return "Invoice sent successfully!";
-        } catch (MessagingException e) {
-            return "Error sending invoice: " + e.getMessage();
+    public ResponseEntity<EmailStatus> sendInvoice(@AuthenticationPrincipal JwtPrincipal principal,
+                                                   @RequestParam String email, @RequestParam Long invoiceId) {
+        if (!invoiceRepository.existsByIdAndUserId(invoiceId, principal.userId())) {
+            return ResponseEntity.notFound().build();
         }
+        OutboundEmail queued = emailService.sendInvoicePdf(email, invoiceId, principal.userId());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/email/" + queued.getId()))
+                .body(EmailStatus.from(queued));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<EmailStatus> getStatus(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long id) {
+        return emailService.getStatus(id, principal.userId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -0,0 +1,44 @@
+package com.billingapp.controller;
+
+import com.billingapp.model.Expense;
+import com.billingapp.repository.UserRepository;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.ExpenseService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/expenses")
+@CrossOrigin(origins = "*")
+public class ExpenseController {
+
+    private final ExpenseService expenseService;
+    private final UserRepository userRepository;
+
+    public ExpenseController(ExpenseService expenseService, UserRepository userRepository) {
+        this.expenseService = expenseService;
+        this.userRepository = userRepository;
+    }
+
+    @PostMapping
+    public ResponseEntity<Expense> createExpense(@AuthenticationPrincipal JwtPrincipal principal, @RequestBody Expense expense) {
+        return ResponseEntity.ok(expenseService.createExpense(userRepository.getReferenceById(principal.userId()), expense));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Expense> updateExpense(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long id,
+                                                 @RequestBody Expense expense) {
+        return expenseService.updateExpense(principal.userId(), id, expense)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteExpense(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long id) {
+        if (!expenseService.deleteExpense(principal.userId(), id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,121 +1,270 @@
 package com.billingapp.controller;
 
+import com.billingapp.dto.BulkInvoiceResponse;
+import com.billingapp.dto.InvoiceChangeBatch;
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceEventView;
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.dto.InvoiceItemPatch;
+import com.billingapp.dto.InvoiceItemPatchResult;
+import com.billingapp.dto.InvoicePage;
+import com.billingapp.dto.InvoiceSearchResult;
+import com.billingapp.dto.InvoiceSummary;
 import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceEvent;
 import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.User;
+import com.billingapp.repository.InvoiceEventRepository;
 import com.billingapp.repository.InvoiceRepository;
-import com.billingapp.repository.InvoiceItemRepository;
-import com.billingapp.service.QRCodeService;
+import com.billingapp.repository.UserRepository;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.ExportFormat;
+import com.billingapp.service.InvoiceBulkService;
+import com.billingapp.service.InvoiceChangeFeed;
+import com.billingapp.service.InvoiceExportService;
+import com.billingapp.service.InvoiceSearchService;
+import com.billingapp.service.InvoiceService;
+import com.billingapp.service.InvoiceTemplateService;
+import com.billingapp.service.PdfRenderService;
+import com.billingapp.service.QrCodeGeneratorService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/invoices")
 @CrossOrigin(origins = "*")
 public class InvoiceController {
+    private static final TypeReference<List<Invoice>> BULK_BODY = new TypeReference<>() {};
 
     private final InvoiceRepository invoiceRepository;
-    private final InvoiceItemRepository invoiceItemRepository;
-    private final QRCodeService qrCodeService;
-
-    public InvoiceController(InvoiceRepository invoiceRepository, InvoiceItemRepository invoiceItemRepository, QRCodeService qrCodeService) {
+    private final QrCodeGeneratorService qrCodeService;
+    private final InvoiceService invoiceService;
+    private final InvoiceExportService invoiceExportService;
+    private final InvoiceBulkService invoiceBulkService;
+    private final PdfRenderService pdfRenderService;
+    private final UserRepository userRepository;
+    private final InvoiceChangeFeed invoiceChangeFeed;
+    private final InvoiceEventRepository invoiceEventRepository;
+    private final InvoiceTemplateService invoiceTemplateService;
+    private final InvoiceSearchService invoiceSearchService;
+    private final ObjectMapper objectMapper;
+    private final int maxBulkRequestBytes;
+
+    public InvoiceController(InvoiceRepository invoiceRepository,
+                             QrCodeGeneratorService qrCodeService, InvoiceService invoiceService,
+                             InvoiceExportService invoiceExportService, InvoiceBulkService invoiceBulkService,
+                             PdfRenderService pdfRenderService,
+                             UserRepository userRepository, InvoiceChangeFeed invoiceChangeFeed,
+                             InvoiceEventRepository invoiceEventRepository,
+                             InvoiceTemplateService invoiceTemplateService,
+                             InvoiceSearchService invoiceSearchService, ObjectMapper objectMapper,
+                             @Value("${billing.bulk.max-request-size:16MB}") DataSize maxBulkRequestSize) {
         this.invoiceRepository = invoiceRepository;
-        this.invoiceItemRepository = invoiceItemRepository;
         this.qrCodeService = qrCodeService;
+        this.invoiceService = invoiceService;
+        this.invoiceExportService = invoiceExportService;
+        this.invoiceBulkService = invoiceBulkService;
+        this.pdfRenderService = pdfRenderService;
+        this.userRepository = userRepository;
+        this.invoiceChangeFeed = invoiceChangeFeed;
+        this.invoiceEventRepository = invoiceEventRepository;
+        this.invoiceTemplateService = invoiceTemplateService;
+        this.invoiceSearchService = invoiceSearchService;
+        this.objectMapper = objectMapper;
+        this.maxBulkRequestBytes = Math.toIntExact(maxBulkRequestSize.toBytes());
     }
 
-    // ✅ Get all invoices
+    // ✅ List the caller's invoices one keyset page at a time (pass back nextCursor for the following page).
+    // Admins may name a user, or omit userId to list every user
     @GetMapping
-    public List<Invoice> getAllInvoices() {
-        return invoiceRepository.findAll();
+    public ResponseEntity<InvoicePage> getAllInvoices(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        InvoiceFilter filter = InvoiceFilter.of(principal.scope(userId), status, currency, from, to);
+        try {
+            return ResponseEntity.ok(invoiceService.listInvoices(filter, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ Search the caller's customer names, titles and item names; prefix=true matches word beginnings (typeahead).
+    // Admins may name a user, or omit userId to search every user
+    @GetMapping("/search")
+    public ResponseEntity<InvoiceSearchResult> searchInvoices(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        InvoiceFilter filter = InvoiceFilter.of(principal.scope(userId), status, currency, from, to);
+        return ResponseEntity.ok(invoiceSearchService.search(q, prefix, filter, limit));
+    }
+
+    // ✅ Stream the caller's matching invoices with their items as NDJSON or CSV, optionally gzipped.
+    // Admins may name a user, or omit userId to export every user
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        InvoiceFilter filter = InvoiceFilter.of(principal.scope(userId), status, currency, from, to);
+        String fileName = "invoices." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> invoiceExportService.export(filter, exportFormat, gzip, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .body(body);
     }
 
-    // ✅ Get a specific invoice by ID
+    // ✅ Get a specific invoice by ID (invoice and items in one query, returned as a DTO)
     @GetMapping("/{id}")
-    public ResponseEntity<Invoice> getInvoiceById(@PathVariable Long id) {
-        return invoiceRepository.findById(id)
+    public ResponseEntity<InvoiceDetail> getInvoiceById(@PathVariable Long id) {
+        return invoiceService.getInvoiceDetail(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // ✅ Create a new invoice
+    // ✅ Lifecycle history of the caller's invoice from the event log (kept after the invoice is deleted).
+    // Ownership comes from the lifecycle events themselves, which record the invoice's user
+    @GetMapping("/{id}/events")
+    public ResponseEntity<List<InvoiceEventView>> getInvoiceEvents(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                   @PathVariable Long id) {
+        List<InvoiceEvent> events = invoiceEventRepository.findByInvoiceIdOrderByCreatedAtAscIdAsc(id);
+        if (events.stream().noneMatch(event -> principal.userId().equals(event.getUserId()))) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(events.stream()
+                .map(InvoiceEventView::from)
+                .toList());
+    }
+
+    // ✅ Create a new invoice (400 for a tax jurisdiction with no published rules)
     @PostMapping
-    public ResponseEntity<Invoice> createInvoice(@RequestBody Invoice invoice) {
-        invoice.calculateTotal();
-        Invoice savedInvoice = invoiceRepository.save(invoice);
-        return ResponseEntity.ok(savedInvoice);
+    public ResponseEntity<InvoiceDetail> createInvoice(@RequestBody Invoice invoice) {
+        Invoice savedInvoice;
+        try {
+            savedInvoice = invoiceService.saveInvoice(invoice);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(invoiceService.detailOf(savedInvoice));
     }
 
-    // ✅ Update an existing invoice
+    // ✅ Update an existing invoice (400 for a tax jurisdiction with no published rules)
     @PutMapping("/{id}")
-    public ResponseEntity<Invoice> updateInvoice(@PathVariable Long id, @RequestBody Invoice invoiceDetails) {
-        Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
+    public ResponseEntity<InvoiceDetail> updateInvoice(@PathVariable Long id, @RequestBody Invoice invoiceDetails) {
+        Optional<Invoice> invoiceOpt;
+        try {
+            invoiceOpt = invoiceService.updateInvoice(id, invoiceDetails);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         if (!invoiceOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
 
-        Invoice invoice = invoiceOpt.get();
-        invoice.setCustomerName(invoiceDetails.getCustomerName());
-        invoice.setTaxPercentage(invoiceDetails.getTaxPercentage());
-        invoice.setDiscountAmount(invoiceDetails.getDiscountAmount());
-        invoice.setCurrency(invoiceDetails.getCurrency());
-        invoice.calculateTotal();
-
-        Invoice updatedInvoice = invoiceRepository.save(invoice);
-        return ResponseEntity.ok(updatedInvoice);
+        return ResponseEntity.ok(invoiceService.detailOf(invoiceOpt.get()));
+    }
+
+    // ✅ Change only the status (e.g. mark as "Paid")
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<InvoiceSummary> updateInvoiceStatus(@PathVariable Long id, @RequestParam String status) {
+        return invoiceService.updateStatus(id, status)
+                .map(InvoiceSummary::from)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // ✅ Delete an invoice
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteInvoice(@PathVariable Long id) {
-        if (!invoiceRepository.existsById(id)) {
+        if (!invoiceService.deleteInvoice(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        invoiceRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
+    // ✅ Apply a batch of item add/update/remove operations against a known invoice version
+    @PatchMapping("/{invoiceId}/items")
+    public ResponseEntity<InvoiceItemPatchResult> patchInvoiceItems(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                    @PathVariable Long invoiceId, @RequestBody InvoiceItemPatch patch) {
+        return itemPatchResponse(() -> invoiceService.patchItems(principal.userId(), invoiceId, patch));
+    }
+
     // ✅ Add item to an invoice
     @PostMapping("/{invoiceId}/items")
-    public ResponseEntity<Invoice> addItemToInvoice(@PathVariable Long invoiceId, @RequestBody InvoiceItem item) {
-        Optional<Invoice> invoiceOpt = invoiceRepository.findById(invoiceId);
-        if (!invoiceOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        Invoice invoice = invoiceOpt.get();
-        item.setInvoice(invoice);
-        invoice.getItems().add(item);
-        invoice.calculateTotal();
-        invoiceRepository.save(invoice);
-
-        return ResponseEntity.ok(invoice);
+    public ResponseEntity<InvoiceItemPatchResult> addItemToInvoice(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                   @PathVariable Long invoiceId, @RequestBody InvoiceItem item) {
+        return itemPatchResponse(() -> invoiceService.addItem(principal.userId(), invoiceId, item));
     }
 
     // ✅ Remove item from an invoice
     @DeleteMapping("/{invoiceId}/items/{itemId}")
-    public ResponseEntity<Invoice> removeItemFromInvoice(@PathVariable Long invoiceId, @PathVariable Long itemId) {
-        Optional<Invoice> invoiceOpt = invoiceRepository.findById(invoiceId);
-        Optional<InvoiceItem> itemOpt = invoiceItemRepository.findById(itemId);
+    public ResponseEntity<InvoiceItemPatchResult> removeItemFromInvoice(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                        @PathVariable Long invoiceId, @PathVariable Long itemId) {
+        return itemPatchResponse(() -> invoiceService.removeItem(principal.userId(), invoiceId, itemId));
+    }
 
-        if (!invoiceOpt.isPresent() || !itemOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
+    // 404 for an unknown invoice or one the caller does not own, 400 for an invalid operation, 409 for a stale or concurrent version
+    private static ResponseEntity<InvoiceItemPatchResult> itemPatchResponse(Supplier<Optional<InvoiceItemPatchResult>> patch) {
+        try {
+            return patch.get()
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-
-        Invoice invoice = invoiceOpt.get();
-        InvoiceItem item = itemOpt.get();
-
-        invoice.getItems().remove(item);
-        invoiceItemRepository.delete(item);
-        invoice.calculateTotal();
-        invoiceRepository.save(invoice);
-
-        return ResponseEntity.ok(invoice);
     }
 
     // ✅ Generate QR Code for payment
@@ -127,8 +276,9 @@ public class InvoiceController {
         }
 
         Invoice invoice = invoiceOpt.get();
-        String paymentLink = "upi://pay?pa=yourupiid@upi&pn=YourBusiness&mc=1234&tid=123456&tr=" + invoice.getId() + "&tn=Invoice Payment&am=" + invoice.getTotal() + "&cu=" + invoice.getCurrency();
-        byte[] qrCodeImage = qrCodeService.generateQRCode(paymentLink, 200, 200);
+        String paymentLink = qrCodeService.paymentPayload(invoice);
+        // Served from the QR cache; only the first request for a given payload encodes an image
+        byte[] qrCodeImage = qrCodeService.generateQrPng(paymentLink, QrCodeGeneratorService.PAYMENT_QR_SIZE, QrCodeGeneratorService.PAYMENT_QR_SIZE);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoice_qr.png")
@@ -136,161 +286,128 @@ public class InvoiceController {
                 .body(qrCodeImage);
     }
 
-    // ✅ Print Invoice (Returns a simple HTML page as PDF)
+    // ✅ Print Invoice as HTML from the owner's template, streamed in chunks as it renders
     @GetMapping("/{id}/print")
-    public ResponseEntity<String> printInvoice(@PathVariable Long id) {
-        Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
+    public ResponseEntity<StreamingResponseBody> printInvoice(@PathVariable Long id) {
+        Optional<InvoiceDetail> invoiceOpt = invoiceService.getInvoiceDetail(id);
         if (!invoiceOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
 
-        Invoice invoice = invoiceOpt.get();
-        String html = "<html><head><title>Invoice</title></head><body>"
-                + "<h2>Invoice #" + invoice.getId() + "</h2>"
-                + "<p>Customer: " + invoice.getCustomerName() + "</p>"
-                + "<h3>Items:</h3><ul>";
-
-        for (InvoiceItem item : invoice.getItems()) {
-            html += "<li>" + item.getName() + " - " + item.getQuantity() + " x " + item.getPrice() + " = " + (item.getQuantity() * item.getPrice()) + "</li>";
-        }
-
-        html += "</ul>"
-                + "<p>Tax: " + invoice.getTaxPercentage() + "%</p>"
-                + "<p>Discount: " + invoice.getDiscountAmount() + "</p>"
-                + "<h3>Total: " + invoice.getTotal() + " " + invoice.getCurrency() + "</h3>"
-                + "</body></html>";
-
+        InvoiceDetail invoice = invoiceOpt.get();
+        StreamingResponseBody body = out -> invoiceTemplateService.render(invoice, new OutputStreamWriter(out, StandardCharsets.UTF_8));
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, "text/html")
-                .body(html);
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(body);
     }
-    // Generate and Store Invoice PDF
+
+    // Generate and Store Invoice PDF (rendered off-thread once per invoice version, then served from disk)
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> generateAndStoreInvoicePDF(@PathVariable Long id) {
-        Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
+    public CompletableFuture<ResponseEntity<Resource>> generateAndStoreInvoicePDF(@PathVariable Long id,
+                                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<InvoiceDetail> invoiceOpt = invoiceService.getInvoiceDetail(id);
         if (!invoiceOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+
+        InvoiceDetail detail = invoiceOpt.get();
+        String etag = "\"" + pdfRenderService.contentHash(detail) + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
         }
 
-        Invoice invoice = invoiceOpt.get();
-        String fileName = "invoice_" + id + ".pdf";
-        String filePath = PDF_DIRECTORY + fileName;
-        
         try {
-            Files.createDirectories(Paths.get(PDF_DIRECTORY)); // Ensure directory exists
-            Document document = new Document();
-            PdfWriter.getInstance(document, new FileOutputStream(filePath));
-            document.open();
-
-            document.add(new Paragraph("Invoice #" + invoice.getId()));
-            document.add(new Paragraph("Customer: " + invoice.getCustomerName()));
-            document.add(new Paragraph("\nItems:", FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
-            
-            for (InvoiceItem item : invoice.getItems()) {
-                document.add(new Paragraph(item.getName() + " - " + item.getQuantity() + " x " + item.getPrice() + " = " + (item.getQuantity() * item.getPrice())));
-            }
-            
-            document.add(new Paragraph("\nTax: " + invoice.getTaxPercentage() + "%"));
-            document.add(new Paragraph("Discount: " + invoice.getDiscountAmount()));
-            document.add(new Paragraph("Total: " + invoice.getTotal() + " " + invoice.getCurrency(), FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
-            document.close();
-            
-            invoice.setPdfPath(filePath);
-            invoiceRepository.save(invoice);
-
-            byte[] pdfBytes = Files.readAllBytes(Paths.get(filePath));
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            // Resource bodies get Range support from Spring MVC and are streamed from the file, never buffered
+            return pdfRenderService.render(detail)
+                    .thenApply(pdf -> ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + pdf.fileName())
+                            .eTag(etag)
+                            .contentType(MediaType.APPLICATION_PDF)
+                            .<Resource>body(new FileSystemResource(pdf.path())))
+                    .exceptionally(e -> ResponseEntity.internalServerError().build());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build());
         }
     }
-    // Update an Invoice Item with Real-time WebSocket Notification
+    // Update an Invoice Item (subscribers get an ITEMS_CHANGED entry on their change feed)
     @PutMapping("/items/{itemId}")
-    public ResponseEntity<InvoiceItem> updateInvoiceItem(@PathVariable Long itemId, @RequestBody InvoiceItem updatedItem) {
-        Optional<InvoiceItem> existingItemOpt = invoiceItemRepository.findById(itemId);
-        if (!existingItemOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        InvoiceItem existingItem = existingItemOpt.get();
-        existingItem.setName(updatedItem.getName());
-        existingItem.setPrice(updatedItem.getPrice());
-        existingItem.setQuantity(updatedItem.getQuantity());
-        
-        invoiceItemRepository.save(existingItem);
-        messagingTemplate.convertAndSend("/topic/invoices", "Item Updated");
-        return ResponseEntity.ok(existingItem);
+    public ResponseEntity<InvoiceItemPatchResult> updateInvoiceItem(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                    @PathVariable Long itemId, @RequestBody InvoiceItem updatedItem) {
+        return itemPatchResponse(() -> invoiceService.updateItem(principal.userId(), itemId, updatedItem));
     }
 
-    // Delete an Invoice Item with Real-time WebSocket Notification
+    // Delete an Invoice Item (subscribers get an ITEMS_CHANGED entry on their change feed)
     @DeleteMapping("/items/{itemId}")
-    public ResponseEntity<Void> deleteInvoiceItem(@PathVariable Long itemId) {
-        if (!invoiceItemRepository.existsById(itemId)) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> deleteInvoiceItem(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long itemId) {
+        ResponseEntity<InvoiceItemPatchResult> response = itemPatchResponse(() -> invoiceService.removeItem(principal.userId(), itemId));
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(response.getStatusCode()).build();
         }
-        invoiceItemRepository.deleteById(itemId);
-        messagingTemplate.convertAndSend("/topic/invoices", "Item Deleted");
         return ResponseEntity.noContent().build();
     }
 
-    //login system
-    private final InvoiceRepository invoiceRepository;
-    private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
-
-    public InvoiceController(InvoiceRepository invoiceRepository, UserRepository userRepository, JwtUtil jwtUtil) {
-        this.invoiceRepository = invoiceRepository;
-        this.userRepository = userRepository;
-        this.jwtUtil = jwtUtil;
+    // ✅ Resume the live feed after a reconnect: changes after `since` (the last offset seen),
+    // or resync=true when they are no longer retained. Live updates: /user/queue/invoice-changes
+    @GetMapping("/changes")
+    public ResponseEntity<InvoiceChangeBatch> getChanges(@AuthenticationPrincipal JwtPrincipal principal,
+                                                         @RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(invoiceChangeFeed.since(principal.userId(), since));
     }
 
+    //login system
     @GetMapping("/my-invoices")
-    public ResponseEntity<List<Invoice>> getUserInvoices(@RequestHeader("Authorization") String token) {
-        String username = jwtUtil.extractUsername(token.substring(7)); // Extract username from JWT token
-        User user = userRepository.findByUsername(username).orElseThrow();
-        
-        List<Invoice> invoices = invoiceRepository.findByUser(user);
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<InvoicePage> getUserInvoices(@AuthenticationPrincipal JwtPrincipal principal,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size) {
+        // One summary query per page instead of loading every invoice entity with its user and items
+        InvoiceFilter filter = InvoiceFilter.of(principal.userId(), null, null, null, null);
+        try {
+            return ResponseEntity.ok(invoiceService.listInvoices(filter, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     @PostMapping("/create")
-    public ResponseEntity<String> createInvoice(@RequestHeader("Authorization") String token, @RequestBody Invoice invoice) {
-        String username = jwtUtil.extractUsername(token.substring(7));
-        User user = userRepository.findByUsername(username).orElseThrow();
-        
-        invoice.setUser(user);
-        invoiceRepository.save(invoice);
+    public ResponseEntity<String> createInvoice(@AuthenticationPrincipal JwtPrincipal principal, @RequestBody Invoice invoice) {
+        // The user id comes from the verified token; a reference is enough for the foreign key
+        invoice.setUser(userRepository.getReferenceById(principal.userId()));
+        try {
+            invoiceService.saveInvoice(invoice);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         return ResponseEntity.ok("Invoice created successfully!");
       }
-////template saving
-// 2️⃣ Update Invoice Controller to Handle Invoice Saving
-
-@RestController
-@RequestMapping("/api/invoices")
-public class InvoiceController {
-    @Autowired
-    private InvoiceService invoiceService;
-
-    @PostMapping("/save")
-    public ResponseEntity<Invoice> saveInvoice(@RequestBody Invoice invoice) {
-        Invoice savedInvoice = invoiceService.saveInvoice(invoice);
-        return ResponseEntity.ok(savedInvoice);
-    }
-}
 
-// 3️⃣ Service Layer to Save Invoices
-
-@Service
-public class InvoiceService {
-    @Autowired
-    private InvoiceRepository invoiceRepository;
+    // ✅ Create many invoices (with items) in one call; returns a result per record.
+    // The body is read up to billing.bulk.max-request-size before any of it is parsed, so an oversized
+    // upload (declared or chunked) gets a 413 without being turned into objects first
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInvoiceResponse> createInvoicesInBulk(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                    HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBulkRequestBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBulkRequestBytes + 1);
+        if (body.length > maxBulkRequestBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<Invoice> invoices;
+        try {
+            invoices = objectMapper.readValue(body, BULK_BODY);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (invoices == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (invoices.size() > InvoiceBulkService.MAX_INVOICES_PER_REQUEST) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        User user = userRepository.getReferenceById(principal.userId());
 
-    public Invoice saveInvoice(Invoice invoice) {
-        return invoiceRepository.save(invoice);
+        return ResponseEntity.ok(invoiceBulkService.importInvoices(user, invoices));
     }
 }
-}
-
-
@@ -0,0 +1,88 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.InvoiceFilter;
+import com.billingapp.dto.PdfBatchJobStatus;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.PdfBatchJob;
+import com.billingapp.service.PdfBatchService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/invoices/pdf-batches")
+@CrossOrigin(origins = "*")
+public class InvoicePdfBatchController {
+
+    private final PdfBatchService pdfBatchService;
+
+    public InvoicePdfBatchController(PdfBatchService pdfBatchService) {
+        this.pdfBatchService = pdfBatchService;
+    }
+
+    // ✅ Render every matching invoice and stream the PDFs back as one ZIP (X-Job-Id gives the progress handle).
+    // The caller's own invoices; admins may name a user, or omit userId for every user
+    @PostMapping(produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> streamBatch(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        InvoiceFilter filter = InvoiceFilter.of(principal.scope(userId), status, null, from, to);
+        PdfBatchJob job = pdfBatchService.newStreamJob(principal.userId());
+
+        StreamingResponseBody body = out -> pdfBatchService.streamZip(job, filter, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoices-" + job.getId() + ".zip")
+                .header("X-Job-Id", job.getId())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    // ✅ Same batch, built as an archive file in the background; poll the job and download when COMPLETED
+    @PostMapping("/archive")
+    public ResponseEntity<PdfBatchJobStatus> startArchive(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        PdfBatchJob job = pdfBatchService.startArchive(principal.userId(),
+                InvoiceFilter.of(principal.scope(userId), status, null, from, to));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/invoices/pdf-batches/" + job.getId()))
+                .body(job.status());
+    }
+
+    // ✅ Progress and throughput of a batch (404 for another user's job)
+    @GetMapping("/{jobId}")
+    public ResponseEntity<PdfBatchJobStatus> getStatus(@AuthenticationPrincipal JwtPrincipal principal,
+                                                       @PathVariable String jobId) {
+        return pdfBatchService.getJob(jobId, principal.userId(), principal.admin())
+                .map(job -> ResponseEntity.ok(job.status()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // ✅ Download a finished archive
+    @GetMapping("/{jobId}/archive")
+    public ResponseEntity<Resource> downloadArchive(@AuthenticationPrincipal JwtPrincipal principal,
+                                                    @PathVariable String jobId) {
+        return pdfBatchService.getJob(jobId, principal.userId(), principal.admin())
+                .filter(job -> job.getDelivery() == PdfBatchJob.Delivery.ARCHIVE && job.getState() == PdfBatchJob.State.COMPLETED)
+                .map(job -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoices-" + jobId + ".zip")
+                        .contentType(MediaType.parseMediaType("application/zip"))
+                        .<Resource>body(new FileSystemResource(job.getArchive())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
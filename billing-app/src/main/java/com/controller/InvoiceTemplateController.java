@@ -0,0 +1,43 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.InvoiceTemplateView;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.InvoiceTemplateService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/invoice-templates")
+@CrossOrigin(origins = "*")
+public class InvoiceTemplateController {
+
+    private final InvoiceTemplateService invoiceTemplateService;
+
+    public InvoiceTemplateController(InvoiceTemplateService invoiceTemplateService) {
+        this.invoiceTemplateService = invoiceTemplateService;
+    }
+
+    // ✅ The caller's invoice template (the built-in one until they save their own)
+    @GetMapping("/mine")
+    public ResponseEntity<InvoiceTemplateView> getTemplate(@AuthenticationPrincipal JwtPrincipal principal) {
+        return ResponseEntity.ok(invoiceTemplateService.getTemplate(principal.userId()));
+    }
+
+    // ✅ Save the caller's template and default logo; 400 with the compile error if it is invalid
+    @PutMapping("/mine")
+    public ResponseEntity<?> saveTemplate(@AuthenticationPrincipal JwtPrincipal principal, @RequestBody InvoiceTemplateView template) {
+        try {
+            return ResponseEntity.ok(invoiceTemplateService.saveTemplate(principal.userId(), template.source(), template.logo()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ Go back to the built-in template
+    @DeleteMapping("/mine")
+    public ResponseEntity<Void> resetTemplate(@AuthenticationPrincipal JwtPrincipal principal) {
+        invoiceTemplateService.resetTemplate(principal.userId());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.RecurringInvoiceRequest;
+import com.billingapp.dto.RecurringInvoiceRunView;
+import com.billingapp.dto.RecurringInvoiceView;
+import com.billingapp.security.JwtPrincipal;
+import com.billingapp.service.RecurringInvoiceService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recurring-invoices")
+@CrossOrigin(origins = "*")
+public class RecurringInvoiceController {
+
+    private final RecurringInvoiceService recurringInvoiceService;
+
+    public RecurringInvoiceController(RecurringInvoiceService recurringInvoiceService) {
+        this.recurringInvoiceService = recurringInvoiceService;
+    }
+
+    // ✅ Issue a copy of one of the caller's invoices (with its items) on a cron schedule
+    @PostMapping("/from-invoice/{invoiceId}")
+    public ResponseEntity<?> createFromInvoice(@AuthenticationPrincipal JwtPrincipal principal,
+                                               @PathVariable Long invoiceId,
+                                               @RequestBody RecurringInvoiceRequest request) {
+        try {
+            return recurringInvoiceService.createFromInvoice(principal.userId(), invoiceId, request)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ The caller's recurring invoices, newest first
+    @GetMapping("/mine")
+    public ResponseEntity<List<RecurringInvoiceView>> getMine(@AuthenticationPrincipal JwtPrincipal principal) {
+        return ResponseEntity.ok(recurringInvoiceService.listForUser(principal.userId()));
+    }
+
+    // ✅ Pause or resume; a resumed schedule continues from its next occurrence after now
+    @PutMapping("/{id}/active")
+    public ResponseEntity<?> setActive(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long id,
+                                       @RequestParam boolean active) {
+        try {
+            return recurringInvoiceService.setActive(principal.userId(), id, active)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ Stop the schedule; invoices already issued are kept
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable Long id) {
+        if (!recurringInvoiceService.delete(principal.userId(), id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // ✅ The latest 50 occurrences with their status and the invoice each one issued
+    @GetMapping("/{id}/runs")
+    public ResponseEntity<List<RecurringInvoiceRunView>> getRuns(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                 @PathVariable Long id) {
+        return recurringInvoiceService.recentRuns(principal.userId(), id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,54 @@
+package com.billingapp.controller;
+
+import com.billingapp.dto.TaxRecalculationResult;
+import com.billingapp.dto.TaxRuleSetView;
+import com.billingapp.service.TaxRecalculationService;
+import com.billingapp.service.TaxRuleService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/tax")
+@CrossOrigin(origins = "*")
+public class TaxRuleController {
+
+    private final TaxRuleService taxRuleService;
+    private final TaxRecalculationService taxRecalculationService;
+
+    public TaxRuleController(TaxRuleService taxRuleService, TaxRecalculationService taxRecalculationService) {
+        this.taxRuleService = taxRuleService;
+        this.taxRecalculationService = taxRecalculationService;
+    }
+
+    // ✅ Publish a new version of a jurisdiction's rules; new invoices pick it up, existing ones keep theirs.
+    // Admins only (SecurityConfig), as are recalculations: both affect every user in the jurisdiction
+    @PostMapping("/rule-sets")
+    public ResponseEntity<?> publish(@RequestBody TaxRuleSetView request) {
+        try {
+            return ResponseEntity.ok(taxRuleService.publish(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ✅ One version of a jurisdiction's rules (latest when no version is given)
+    @GetMapping("/rule-sets/{jurisdiction}")
+    public ResponseEntity<TaxRuleSetView> getRuleSet(@PathVariable String jurisdiction,
+                                                     @RequestParam(required = false) Integer version) {
+        return taxRuleService.find(jurisdiction, version)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // ✅ Move every unpaid invoice of the jurisdiction to a rule version (latest by default) and re-price it
+    @PostMapping("/recalculate")
+    public ResponseEntity<?> recalculate(@RequestParam String jurisdiction,
+                                         @RequestParam(required = false) Integer version) {
+        try {
+            TaxRecalculationResult result = taxRecalculationService.recalculate(jurisdiction, version);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
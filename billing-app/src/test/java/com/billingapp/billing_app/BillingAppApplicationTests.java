@@ -3,7 +3,15 @@ package com.billingapp.billing_app;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Boots the whole application against an in-memory database instead of the MySQL in application.properties
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:billing;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"billing.search.directory=target/test-search-index/",
+		"billing.pdf.directory=target/test-invoices/"
+})
 class BillingAppApplicationTests {
 
 	@Test
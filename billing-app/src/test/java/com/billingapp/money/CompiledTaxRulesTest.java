@@ -0,0 +1,143 @@
+package com.billingapp.money;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rule compilation and evaluation, and the per-line and GST results InvoiceCalculator derives from them
+class CompiledTaxRulesTest {
+
+    private static final CompiledTaxRules GST = CompiledTaxRules.compile("IN", 1, CompiledTaxRules.Split.GST, List.of(
+            new CompiledTaxRules.Slab("*", BigDecimal.ZERO, new BigDecimal("18")),
+            new CompiledTaxRules.Slab("apparel", BigDecimal.ZERO, new BigDecimal("5")),
+            new CompiledTaxRules.Slab("APPAREL", new BigDecimal("1000"), new BigDecimal("12")),
+            new CompiledTaxRules.Slab("FOOD", BigDecimal.ZERO, BigDecimal.ZERO)));
+
+    @Test
+    void slabIsChosenByCategoryAndUnitPrice() {
+        assertThat(GST.rate("APPAREL", 99_999, 2)).isEqualTo(MoneyMath.toRate(new BigDecimal("5")));
+        assertThat(GST.rate("APPAREL", 100_000, 2)).isEqualTo(MoneyMath.toRate(new BigDecimal("12")));
+        assertThat(GST.rate(" apparel ", 250_000, 2)).isEqualTo(MoneyMath.toRate(new BigDecimal("12")));
+        assertThat(GST.rate("FOOD", 100, 2)).isZero();
+        // Bounds hold whatever the currency scale: 1000 JPY (scale 0) and 999.999 KWD (scale 3)
+        assertThat(GST.rate("APPAREL", 1_000, 0)).isEqualTo(MoneyMath.toRate(new BigDecimal("12")));
+        assertThat(GST.rate("APPAREL", 999_999, 3)).isEqualTo(MoneyMath.toRate(new BigDecimal("5")));
+    }
+
+    @Test
+    void unlistedCategoryFallsBackToDefaultOrNoRule() {
+        assertThat(GST.rate("SERVICES", 100, 2)).isEqualTo(MoneyMath.toRate(new BigDecimal("18")));
+        assertThat(GST.rate(null, 100, 2)).isEqualTo(MoneyMath.toRate(new BigDecimal("18")));
+
+        CompiledTaxRules foodOnly = CompiledTaxRules.compile("XX", 1, null, List.of(
+                new CompiledTaxRules.Slab("FOOD", null, new BigDecimal("5"))));
+        assertThat(foodOnly.rate("SERVICES", 100, 2)).isEqualTo(CompiledTaxRules.NO_RULE);
+        assertThat(foodOnly.split()).isEqualTo(CompiledTaxRules.Split.NONE);
+    }
+
+    @Test
+    void invalidRuleSetsAreRejected() {
+        assertThatThrownBy(() -> compile(new CompiledTaxRules.Slab("A", BigDecimal.ONE, BigDecimal.TEN)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("lowest slab");
+        assertThatThrownBy(() -> compile(new CompiledTaxRules.Slab("A", BigDecimal.ZERO, BigDecimal.TEN),
+                new CompiledTaxRules.Slab("a", new BigDecimal("0.00"), BigDecimal.ONE)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("two slabs");
+        assertThatThrownBy(() -> compile(new CompiledTaxRules.Slab("A", BigDecimal.ZERO, new BigDecimal("100.01"))))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("between 0 and 100");
+        assertThatThrownBy(() -> compile(new CompiledTaxRules.Slab(" ", BigDecimal.ZERO, BigDecimal.TEN)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("category");
+    }
+
+    @Test
+    void inclusivePricesHaveTheTaxTakenOutOfEachLine() {
+        Invoice invoice = invoice(true, "KA", null);
+        item(invoice, 118.00, 1, null);
+        item(invoice, 100.00, 1, null);
+        InvoiceCalculator.recalculate(invoice, GST);
+
+        // 118.00 = 100.00 + 18.00; 100.00 = 84.75 + 15.25 (net rounded once, tax is the remainder)
+        assertThat(invoice.getSubtotal()).isEqualByComparingTo("184.75");
+        assertThat(invoice.getTaxAmount()).isEqualByComparingTo("33.25");
+        assertThat(invoice.getTotal()).isEqualByComparingTo("218.00");
+    }
+
+    @Test
+    void intraStateTaxSplitsIntoCgstAndSgstWithTheOddMinorUnitOnCgst() {
+        Invoice invoice = invoice(false, "KA", "ka");
+        item(invoice, 10.05, 1, null);
+        InvoiceCalculator.recalculate(invoice, GST);
+
+        // 10.05 x 18% = 1.809 -> 1.81
+        assertThat(invoice.getTaxAmount()).isEqualByComparingTo("1.81");
+        assertThat(invoice.getCgstAmount()).isEqualByComparingTo("0.91");
+        assertThat(invoice.getSgstAmount()).isEqualByComparingTo("0.90");
+        assertThat(invoice.getIgstAmount()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void interStateTaxIsAllIgst() {
+        Invoice invoice = invoice(false, "KA", "MH");
+        item(invoice, 10.05, 1, null);
+        InvoiceCalculator.recalculate(invoice, GST);
+
+        assertThat(invoice.getCgstAmount()).isEqualByComparingTo("0.00");
+        assertThat(invoice.getSgstAmount()).isEqualByComparingTo("0.00");
+        assertThat(invoice.getIgstAmount()).isEqualByComparingTo("1.81");
+    }
+
+    @Test
+    void itemRateOverridesTheRuleAndNoSplitLeavesGstEmpty() {
+        Invoice invoice = invoice(false, null, null);
+        item(invoice, 100.00, 1, "APPAREL").setTaxPercentage(new BigDecimal("28"));
+        item(invoice, 100.00, 1, "APPAREL");
+        InvoiceCalculator.recalculate(invoice, compile(new CompiledTaxRules.Slab("APPAREL", BigDecimal.ZERO,
+                new BigDecimal("5"))));
+
+        assertThat(invoice.getTaxAmount()).isEqualByComparingTo("33.00");
+        assertThat(invoice.getCgstAmount()).isNull();
+        assertThat(invoice.getIgstAmount()).isNull();
+    }
+
+    @Test
+    void linesArePricedAsTheInvoiceTotals() {
+        Invoice invoice = invoice(false, "KA", "KA");
+        InvoiceItem discounted = item(invoice, 10.05, 3, "APPAREL");
+        discounted.setDiscountAmount(new BigDecimal("1.50"));
+        InvoiceItem ruled = item(invoice, 0.10, 7, null);
+        InvoiceCalculator.recalculate(invoice, GST);
+
+        // 30.15 - 1.50 = 28.65 at 5% = 1.4325 -> 1.43; 0.70 at 18% = 0.126 -> 0.13
+        InvoiceCalculator.Line first = InvoiceCalculator.line(invoice, discounted, GST);
+        InvoiceCalculator.Line second = InvoiceCalculator.line(invoice, ruled, GST);
+        assertThat(first.net()).isEqualByComparingTo("28.65");
+        assertThat(first.tax()).isEqualByComparingTo("1.43");
+        assertThat(first.taxPercentage()).isEqualByComparingTo("5");
+        assertThat(second.total()).isEqualByComparingTo("0.83");
+        assertThat(first.total().add(second.total())).isEqualByComparingTo(invoice.getTotal());
+    }
+
+    private static CompiledTaxRules compile(CompiledTaxRules.Slab... slabs) {
+        return CompiledTaxRules.compile("XX", 1, CompiledTaxRules.Split.NONE, List.of(slabs));
+    }
+
+    private static Invoice invoice(boolean inclusive, String supplierState, String placeOfSupply) {
+        Invoice invoice = new Invoice("Customer", BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, "INR");
+        invoice.setTaxInclusive(inclusive);
+        invoice.setSupplierState(supplierState);
+        invoice.setPlaceOfSupply(placeOfSupply);
+        return invoice;
+    }
+
+    private static InvoiceItem item(Invoice invoice, double price, int quantity, String category) {
+        InvoiceItem item = new InvoiceItem("Item", price, quantity, invoice);
+        item.setTaxCategory(category);
+        invoice.getItems().add(item);
+        return item;
+    }
+}
@@ -0,0 +1,168 @@
+package com.billingapp.money;
+
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Incremental add/remove against full recalculation, and the totals against the BigDecimal formula they replaced
+class InvoiceTotalsTest {
+
+    private static final long[] RATES = {0, 25_000, 50_000, 120_000, 180_000, 280_000};
+
+    private record Line(long unitPrice, long quantity, long discount, long rate, boolean inclusive) {
+    }
+
+    @Test
+    void removingEveryLineInAnyOrderReturnsToZero() {
+        Random random = new Random(7);
+        for (RoundingMode mode : List.of(RoundingMode.HALF_UP, RoundingMode.HALF_EVEN)) {
+            List<Line> lines = randomLines(random, 200);
+            InvoiceTotals totals = new InvoiceTotals(mode);
+            lines.forEach(line -> add(totals, line));
+            Collections.shuffle(lines, random);
+            lines.forEach(line -> remove(totals, line));
+
+            assertThat(totals.subtotal()).isZero();
+            assertThat(totals.tax()).isZero();
+            assertThat(totals.lineDiscounts()).isZero();
+            assertThat(totals.lines()).isZero();
+        }
+    }
+
+    @Test
+    void removingOneLineFromSeededTotalsMatchesBuildingWithoutIt() {
+        Random random = new Random(11);
+        for (int round = 0; round < 100; round++) {
+            List<Line> lines = randomLines(random, 1 + random.nextInt(20));
+            InvoiceTotals all = new InvoiceTotals(RoundingMode.HALF_UP);
+            lines.forEach(line -> add(all, line));
+
+            Line removed = lines.remove(random.nextInt(lines.size()));
+            InvoiceTotals incremental = new InvoiceTotals(RoundingMode.HALF_UP).seed(all.subtotal(), all.tax());
+            remove(incremental, removed);
+            InvoiceTotals rebuilt = new InvoiceTotals(RoundingMode.HALF_UP);
+            lines.forEach(line -> add(rebuilt, line));
+
+            assertThat(incremental.subtotal()).isEqualTo(rebuilt.subtotal());
+            assertThat(incremental.tax()).isEqualTo(rebuilt.tax());
+        }
+    }
+
+    @Test
+    void lineDiscountIsClampedToTheLineAndTotalNeverGoesNegative() {
+        InvoiceTotals totals = new InvoiceTotals(RoundingMode.HALF_UP)
+                .addLine(1_000, 2, 5_000, 180_000)
+                .addLine(1_000, 1, -300, 180_000);
+
+        assertThat(totals.lineDiscounts()).isEqualTo(2_000);
+        assertThat(totals.subtotal()).isEqualTo(1_000);
+        assertThat(totals.tax()).isEqualTo(180);
+        assertThat(totals.total(500)).isEqualTo(680);
+        assertThat(totals.total(10_000)).isZero();
+        assertThat(totals.total(-500)).isEqualTo(1_180);
+    }
+
+    @Test
+    void inclusiveLinesSplitTheAmountIntoNetAndTax() {
+        InvoiceTotals totals = new InvoiceTotals(RoundingMode.HALF_UP).addLine(10_000, 1, 0, 180_000, true);
+
+        assertThat(totals.lastNet()).isEqualTo(8_475);
+        assertThat(totals.lastTax()).isEqualTo(1_525);
+        assertThat(totals.lastNet() + totals.lastTax()).isEqualTo(10_000);
+    }
+
+    @Test
+    void amountsFollowTheCurrencyScale() {
+        // JPY has no minor unit: 333 x 3 at 10% = 99.9 -> 100
+        Invoice yen = invoice("JPY", "10", "0");
+        item(yen, 333, 3);
+        InvoiceCalculator.recalculate(yen);
+        assertThat(yen.getSubtotal()).isEqualByComparingTo("999").extracting(BigDecimal::scale).isEqualTo(0);
+        assertThat(yen.getTaxAmount()).isEqualByComparingTo("100");
+        assertThat(yen.getTotal()).isEqualByComparingTo("1099");
+
+        // KWD has three decimals: 1.2345 -> 1.235 (HALF_UP), x 2 = 2.470 at 5% = 0.1235 -> 0.124,
+        // less the invoice discount 0.0005 -> 0.001
+        Invoice dinar = invoice("KWD", "5", "0.0005");
+        item(dinar, 1.2345, 2);
+        InvoiceCalculator.recalculate(dinar);
+        assertThat(dinar.getSubtotal()).isEqualByComparingTo("2.470").extracting(BigDecimal::scale).isEqualTo(3);
+        assertThat(dinar.getTaxAmount()).isEqualByComparingTo("0.124");
+        assertThat(dinar.getTotal()).isEqualByComparingTo("2.593");
+    }
+
+    // Before the minor-unit engine, totals were subtotal = sum(price x qty), tax = subtotal x rate / 100
+    // and total = subtotal + tax - discount, in unrounded BigDecimal. With per-line rounding the
+    // subtotal is identical and the tax differs from the exact figure by at most half a minor unit per line.
+    @Test
+    void recalculateAgreesWithTheOldBigDecimalFormula() {
+        Random random = new Random(42);
+        String[] currencies = {"INR", "USD", "JPY", "KWD"};
+        String[] rates = {"0", "2.5", "5", "12", "18", "28"};
+        for (int sample = 0; sample < 1_000; sample++) {
+            String currency = currencies[random.nextInt(currencies.length)];
+            int scale = CurrencyScale.of(currency);
+            BigDecimal rate = new BigDecimal(rates[random.nextInt(rates.length)]);
+            Invoice invoice = invoice(currency, rate.toPlainString(), "0");
+
+            BigDecimal oldSubtotal = BigDecimal.ZERO;
+            int lines = 1 + random.nextInt(8);
+            for (int i = 0; i < lines; i++) {
+                BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(1_000_000), scale);
+                int quantity = 1 + random.nextInt(50);
+                item(invoice, price.doubleValue(), quantity);
+                oldSubtotal = oldSubtotal.add(price.multiply(BigDecimal.valueOf(quantity)));
+            }
+            BigDecimal discount = oldSubtotal.multiply(BigDecimal.valueOf(random.nextInt(30), 2)).setScale(scale, RoundingMode.DOWN);
+            invoice.setDiscountAmount(discount);
+            BigDecimal oldTax = oldSubtotal.multiply(rate).divide(BigDecimal.valueOf(100));
+            BigDecimal oldTotal = oldSubtotal.add(oldTax).subtract(discount);
+
+            InvoiceCalculator.recalculate(invoice);
+
+            BigDecimal tolerance = BigDecimal.valueOf(lines).multiply(BigDecimal.valueOf(5, scale + 1));
+            assertThat(invoice.getSubtotal()).as("sample %d subtotal", sample).isEqualByComparingTo(oldSubtotal);
+            assertThat(invoice.getTaxAmount().subtract(oldTax).abs()).as("sample %d tax", sample).isLessThanOrEqualTo(tolerance);
+            assertThat(invoice.getTotal().subtract(oldTotal).abs()).as("sample %d total", sample).isLessThanOrEqualTo(tolerance);
+            if (lines == 1) {
+                assertThat(invoice.getTaxAmount()).isEqualByComparingTo(oldTax.setScale(scale, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    private static List<Line> randomLines(Random random, int count) {
+        List<Line> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long unitPrice = random.nextInt(200_000) - 10_000;
+            long quantity = 1 + random.nextInt(40);
+            long discount = random.nextInt(4) == 0 ? random.nextInt(50_000) : 0;
+            lines.add(new Line(unitPrice, quantity, discount, RATES[random.nextInt(RATES.length)], random.nextBoolean()));
+        }
+        return lines;
+    }
+
+    private static void add(InvoiceTotals totals, Line line) {
+        totals.addLine(line.unitPrice(), line.quantity(), line.discount(), line.rate(), line.inclusive());
+    }
+
+    private static void remove(InvoiceTotals totals, Line line) {
+        totals.removeLine(line.unitPrice(), line.quantity(), line.discount(), line.rate(), line.inclusive());
+    }
+
+    private static Invoice invoice(String currency, String taxPercentage, String discount) {
+        return new Invoice("Customer", BigDecimal.ZERO, new BigDecimal(taxPercentage), new BigDecimal(discount), currency);
+    }
+
+    private static void item(Invoice invoice, double price, int quantity) {
+        invoice.getItems().add(new InvoiceItem("Item", price, quantity, invoice));
+    }
+}
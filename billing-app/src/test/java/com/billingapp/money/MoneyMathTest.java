@@ -0,0 +1,122 @@
+package com.billingapp.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rounding of ties and negative amounts, at the scales of 0-, 2- and 3-decimal currencies
+class MoneyMathTest {
+
+    private static final EnumSet<RoundingMode> INEXACT_MODES = EnumSet.complementOf(EnumSet.of(RoundingMode.UNNECESSARY));
+
+    @Test
+    void divideRoundsTiesAndNegativesLikeBigDecimal() {
+        assertThat(MoneyMath.divide(5, 2, RoundingMode.HALF_UP)).isEqualTo(3);
+        assertThat(MoneyMath.divide(-5, 2, RoundingMode.HALF_UP)).isEqualTo(-3);
+        assertThat(MoneyMath.divide(5, 2, RoundingMode.HALF_EVEN)).isEqualTo(2);
+        assertThat(MoneyMath.divide(-5, 2, RoundingMode.HALF_EVEN)).isEqualTo(-2);
+        assertThat(MoneyMath.divide(7, 2, RoundingMode.HALF_EVEN)).isEqualTo(4);
+        assertThat(MoneyMath.divide(-7, 2, RoundingMode.HALF_EVEN)).isEqualTo(-4);
+        assertThat(MoneyMath.divide(-7, 3, RoundingMode.HALF_UP)).isEqualTo(-2);
+
+        for (long numerator = -60; numerator <= 60; numerator++) {
+            for (long divisor = 1; divisor <= 8; divisor++) {
+                for (RoundingMode mode : INEXACT_MODES) {
+                    long expected = BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(divisor), 0, mode).longValueExact();
+                    assertThat(MoneyMath.divide(numerator, divisor, mode))
+                            .as("%d / %d %s", numerator, divisor, mode).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void divideRefusesToRoundWhenToldNotToAndRejectsNonPositiveDivisors() {
+        assertThat(MoneyMath.divide(-8, 4, RoundingMode.UNNECESSARY)).isEqualTo(-2);
+        assertThatThrownBy(() -> MoneyMath.divide(7, 2, RoundingMode.UNNECESSARY)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.divide(7, 0, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.divide(7, -2, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void decimalAmountsRoundHalfUpAwayFromZeroAndHalfEvenToTheEvenNeighbour() {
+        // INR/USD: 2 decimals
+        assertThat(MoneyMath.toMinor(new BigDecimal("1.005"), 2, RoundingMode.HALF_UP)).isEqualTo(101);
+        assertThat(MoneyMath.toMinor(new BigDecimal("-1.005"), 2, RoundingMode.HALF_UP)).isEqualTo(-101);
+        assertThat(MoneyMath.toMinor(new BigDecimal("1.005"), 2, RoundingMode.HALF_EVEN)).isEqualTo(100);
+        assertThat(MoneyMath.toMinor(new BigDecimal("-1.015"), 2, RoundingMode.HALF_EVEN)).isEqualTo(-102);
+        // JPY: 0 decimals
+        assertThat(MoneyMath.toMinor(new BigDecimal("2.5"), 0, RoundingMode.HALF_UP)).isEqualTo(3);
+        assertThat(MoneyMath.toMinor(new BigDecimal("-2.5"), 0, RoundingMode.HALF_UP)).isEqualTo(-3);
+        assertThat(MoneyMath.toMinor(new BigDecimal("2.5"), 0, RoundingMode.HALF_EVEN)).isEqualTo(2);
+        assertThat(MoneyMath.toMinor(new BigDecimal("-3.5"), 0, RoundingMode.HALF_EVEN)).isEqualTo(-4);
+        // KWD: 3 decimals
+        assertThat(MoneyMath.toMinor(new BigDecimal("1.0005"), 3, RoundingMode.HALF_UP)).isEqualTo(1001);
+        assertThat(MoneyMath.toMinor(new BigDecimal("1.0005"), 3, RoundingMode.HALF_EVEN)).isEqualTo(1000);
+        assertThat(MoneyMath.toMinor(new BigDecimal("-1.0015"), 3, RoundingMode.HALF_EVEN)).isEqualTo(-1002);
+
+        assertThat(MoneyMath.toMinor((BigDecimal) null, 2, RoundingMode.HALF_UP)).isZero();
+    }
+
+    @Test
+    void doublePricesRoundAsTheDecimalTheUserTyped() {
+        // 1.005 is stored as 1.00499999...; it is still a tie
+        assertThat(MoneyMath.toMinor(1.005, 2, RoundingMode.HALF_UP)).isEqualTo(101);
+        assertThat(MoneyMath.toMinor(-1.005, 2, RoundingMode.HALF_UP)).isEqualTo(-101);
+        assertThat(MoneyMath.toMinor(1.005, 2, RoundingMode.HALF_EVEN)).isEqualTo(100);
+        assertThat(MoneyMath.toMinor(99.99, 2, RoundingMode.UNNECESSARY)).isEqualTo(9999);
+        assertThat(MoneyMath.toMinor(0.5, 0, RoundingMode.HALF_EVEN)).isZero();
+        assertThat(MoneyMath.toMinor(-0.5, 0, RoundingMode.HALF_UP)).isEqualTo(-1);
+        assertThat(MoneyMath.toMinor(1.0005, 3, RoundingMode.HALF_UP)).isEqualTo(1001);
+
+        for (int thousandths = -20_000; thousandths <= 20_000; thousandths += 7) {
+            double amount = thousandths / 1000.0;
+            for (int scale = 0; scale <= 3; scale++) {
+                for (RoundingMode mode : INEXACT_MODES) {
+                    assertThat(MoneyMath.toMinor(amount, scale, mode)).as("%s at scale %d %s", amount, scale, mode)
+                            .isEqualTo(MoneyMath.toMinor(BigDecimal.valueOf(amount), scale, mode));
+                }
+            }
+        }
+    }
+
+    @Test
+    void nonFiniteAndOversizedAmountsThrowInsteadOfWrapping() {
+        assertThatThrownBy(() -> MoneyMath.toMinor(Double.NaN, 2, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.toMinor(Double.POSITIVE_INFINITY, 2, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.toMinor(1e17, 2, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.multiply(Long.MAX_VALUE / 2, 3)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MoneyMath.pow10(10)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void ratesRoundOnceWithTheRequestedMode() {
+        long twoPercent = MoneyMath.toRate(new BigDecimal("2"));
+        // 25 x 2% = 0.5 minor units
+        assertThat(MoneyMath.applyRate(25, twoPercent, RoundingMode.HALF_UP)).isEqualTo(1);
+        assertThat(MoneyMath.applyRate(25, twoPercent, RoundingMode.HALF_EVEN)).isZero();
+        assertThat(MoneyMath.applyRate(-25, twoPercent, RoundingMode.HALF_UP)).isEqualTo(-1);
+        assertThat(MoneyMath.applyRate(-25, twoPercent, RoundingMode.HALF_EVEN)).isZero();
+        // 10.05 x 18% = 1.809
+        assertThat(MoneyMath.applyRate(-1005, MoneyMath.toRate(new BigDecimal("18")), RoundingMode.HALF_UP)).isEqualTo(-181);
+        // 100.00 incl. 18% = 84.745... net
+        assertThat(MoneyMath.removeRate(10_000, MoneyMath.toRate(new BigDecimal("18")), RoundingMode.HALF_UP)).isEqualTo(8475);
+        assertThat(MoneyMath.removeRate(-10_000, MoneyMath.toRate(new BigDecimal("18")), RoundingMode.HALF_UP)).isEqualTo(-8475);
+    }
+
+    @Test
+    void percentagesRoundTripThroughRates() {
+        assertThat(MoneyMath.toRate(new BigDecimal("18"))).isEqualTo(180_000);
+        assertThat(MoneyMath.toRate(new BigDecimal("2.5"))).isEqualTo(25_000);
+        assertThat(MoneyMath.toRate(new BigDecimal("0.00005"))).isEqualTo(1);
+        assertThat(MoneyMath.toRate(null)).isZero();
+        assertThat(MoneyMath.toPercent(180_000)).isEqualByComparingTo("18").hasToString("18");
+        assertThat(MoneyMath.toPercent(25_000)).hasToString("2.5");
+        assertThat(MoneyMath.toPercent(0)).hasToString("0");
+    }
+}
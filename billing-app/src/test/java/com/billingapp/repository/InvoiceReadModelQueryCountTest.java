@@ -0,0 +1,121 @@
+package com.billingapp.repository;
+
+import com.billingapp.dto.InvoiceDetail;
+import com.billingapp.dto.InvoiceSummary;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Guards the read paths against N+1 regressions: each view must cost a fixed number of
+// statements no matter how many invoices or items are behind it.
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InvoiceReadModelQueryCountTest {
+    private static final int INVOICES = 5;
+    private static final int ITEMS_PER_INVOICE = 3;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan("com.billingapp.model")
+    @EnableJpaRepositories("com.billingapp.repository")
+    static class Config {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private Statistics statistics;
+    private Long userId;
+    private final List<Long> invoiceIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("reader");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        userId = user.getId();
+
+        for (int i = 0; i < INVOICES; i++) {
+            Invoice invoice = new Invoice();
+            invoice.setTitle("Invoice " + i);
+            invoice.setCustomerName("Customer " + i);
+            invoice.setStatus("Unpaid");
+            invoice.setCurrency("INR");
+            invoice.setInvoiceDate(new Date());
+            invoice.setTaxPercentage(BigDecimal.valueOf(18));
+            invoice.setDiscountAmount(BigDecimal.ZERO);
+            invoice.setUser(user);
+            for (int j = 0; j < ITEMS_PER_INVOICE; j++) {
+                invoice.getItems().add(new InvoiceItem("Item " + j, 10.5 * (j + 1), j + 1, invoice));
+            }
+            invoice.calculateTotal();
+            entityManager.persist(invoice);
+            invoiceIds.add(invoice.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void detailLoadsInvoiceAndItemsInOneStatement() {
+        InvoiceDetail detail = invoiceRepository.findDetailById(invoiceIds.get(0))
+                .map(InvoiceDetail::from)
+                .orElseThrow();
+
+        assertThat(detail.items()).hasSize(ITEMS_PER_INVOICE);
+        assertThat(detail.userId()).isEqualTo(userId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void summaryPageIsOneStatement() {
+        List<InvoiceSummary> page = invoiceRepository.findSummariesAfter(null, userId, null, null, null, null,
+                PageRequest.ofSize(INVOICES + 1));
+
+        assertThat(page).hasSize(INVOICES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void detailsForAPageAreOneStatement() {
+        List<InvoiceDetail> details = invoiceRepository.findAllWithItemsByIdIn(invoiceIds).stream()
+                .map(InvoiceDetail::from)
+                .toList();
+
+        assertThat(details).hasSize(INVOICES);
+        assertThat(details).allSatisfy(detail -> assertThat(detail.items()).hasSize(ITEMS_PER_INVOICE));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.billingapp.service;
+
+import com.billingapp.dto.InvoiceItemPatch;
+import com.billingapp.dto.InvoiceItemPatchResult;
+import com.billingapp.dto.TaxRuleSetView;
+import com.billingapp.model.Invoice;
+import com.billingapp.model.InvoiceItem;
+import com.billingapp.model.User;
+import com.billingapp.money.CompiledTaxRules;
+import com.billingapp.money.InvoiceCalculator;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// patchItems adjusts the stored totals by deltas; after any sequence of patches they must equal
+// a full InvoiceCalculator.recalculate over the reloaded invoice
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:invoiceitempatch;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "billing.search.directory=target/invoice-item-patch-search/",
+        "billing.pdf.directory=target/invoice-item-patch-pdf/"
+})
+class InvoiceItemPatchTest {
+    private static final int PATCHES = 60;
+    private static final String[] CATEGORIES = {null, "apparel", "FOOD", "services"};
+    private static final String[] RATES = {"0", "5", "12", "18", "28"};
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private TaxRuleService taxRuleService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void randomPatchesKeepStoredTotalsEqualToAFullRecalculation() {
+        taxRuleService.publish(new TaxRuleSetView("PT", null, CompiledTaxRules.Split.GST, null, List.of(
+                new TaxRuleSetView.Rule("*", BigDecimal.ZERO, new BigDecimal("18")),
+                new TaxRuleSetView.Rule("APPAREL", BigDecimal.ZERO, new BigDecimal("5")),
+                new TaxRuleSetView.Rule("APPAREL", new BigDecimal("1000"), new BigDecimal("12")),
+                new TaxRuleSetView.Rule("FOOD", BigDecimal.ZERO, BigDecimal.ZERO))));
+        User user = new User();
+        user.setUsername("patcher");
+        user.setPassword("secret");
+        user = userRepository.save(user);
+
+        Random random = new Random(2024);
+        for (boolean inclusive : new boolean[]{false, true}) {
+            for (String jurisdiction : new String[]{null, "PT"}) {
+                Invoice invoice = new Invoice("Customer", BigDecimal.ZERO, new BigDecimal("18"), new BigDecimal("3.50"), "INR");
+                invoice.setUser(user);
+                invoice.setTaxInclusive(inclusive);
+                invoice.setTaxJurisdiction(jurisdiction);
+                invoice.setSupplierState("KA");
+                invoice.setPlaceOfSupply("KA");
+                InvoiceItem first = new InvoiceItem("Opening line", 120.00, 2, invoice);
+                first.setDiscountAmount(new BigDecimal("15.00"));
+                invoice.getItems().add(first);
+                Long invoiceId = invoiceService.saveInvoice(invoice).getId();
+
+                for (int patch = 0; patch < PATCHES; patch++) {
+                    List<Long> itemIds = itemIds(invoiceId);
+                    InvoiceItemPatch itemPatch = randomPatch(random, itemIds);
+                    try {
+                        InvoiceItemPatchResult result = invoiceService.patchItems(user.getId(), invoiceId, itemPatch).orElseThrow();
+                        assertMatchesRecalculation(invoiceId, result, "inclusive=" + inclusive + " rules=" + jurisdiction
+                                + " patch " + patch + " " + itemPatch.operations());
+                    } catch (IllegalArgumentException rejected) {
+                        // An invalid operation rolls the whole patch back; the totals must be untouched
+                        assertMatchesRecalculation(invoiceId, null, "rejected patch " + patch);
+                    }
+                }
+            }
+        }
+    }
+
+    private InvoiceItemPatch randomPatch(Random random, List<Long> itemIds) {
+        List<InvoiceItemPatch.Operation> operations = new ArrayList<>();
+        Set<Long> removed = new HashSet<>();
+        int count = 1 + random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            List<Long> live = itemIds.stream().filter(id -> !removed.contains(id)).toList();
+            int kind = live.isEmpty() ? 0 : random.nextInt(3);
+            if (kind == 0) {
+                operations.add(new InvoiceItemPatch.Operation(InvoiceItemPatch.Op.ADD, null, "Line " + i, price(random),
+                        1 + random.nextInt(20), rate(random), discount(random), category(random)));
+            } else if (kind == 1) {
+                Long itemId = live.get(random.nextInt(live.size()));
+                // Any field may be left out (kept); now and then a negative price makes the patch invalid
+                Double price = random.nextBoolean() ? price(random) : null;
+                if (random.nextInt(25) == 0) {
+                    price = -1.0;
+                }
+                operations.add(new InvoiceItemPatch.Operation(InvoiceItemPatch.Op.UPDATE, itemId, null, price,
+                        random.nextBoolean() ? 1 + random.nextInt(20) : null, rate(random), discount(random),
+                        random.nextBoolean() ? category(random) : null));
+            } else {
+                Long itemId = live.get(random.nextInt(live.size()));
+                removed.add(itemId);
+                operations.add(InvoiceItemPatch.Operation.remove(itemId));
+            }
+        }
+        return new InvoiceItemPatch(null, operations);
+    }
+
+    // Prices up to 1,500.00 so the 1,000 apparel slab is crossed both ways
+    private static Double price(Random random) {
+        return random.nextInt(150_000) / 100.0 + 0.01;
+    }
+
+    private static BigDecimal rate(Random random) {
+        return random.nextInt(3) == 0 ? new BigDecimal(RATES[random.nextInt(RATES.length)]) : null;
+    }
+
+    // Sometimes more than the line is worth, which clamps the line to zero
+    private static BigDecimal discount(Random random) {
+        return random.nextInt(3) == 0 ? BigDecimal.valueOf(random.nextInt(200_000), 2) : null;
+    }
+
+    private static String category(Random random) {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        return category == null ? " " : category;
+    }
+
+    private List<Long> itemIds(Long invoiceId) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                invoiceRepository.findDetailById(invoiceId).orElseThrow().getItems().stream().map(InvoiceItem::getId).toList());
+    }
+
+    private void assertMatchesRecalculation(Long invoiceId, InvoiceItemPatchResult result, String description) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Invoice invoice = invoiceRepository.findDetailById(invoiceId).orElseThrow();
+            BigDecimal storedSubtotal = invoice.getSubtotal();
+            BigDecimal storedTax = invoice.getTaxAmount();
+            BigDecimal storedTotal = invoice.getTotal();
+            BigDecimal storedCgst = invoice.getCgstAmount();
+
+            InvoiceCalculator.recalculate(invoice, taxRuleService.rulesOf(invoice));
+            status.setRollbackOnly();
+
+            assertThat(storedSubtotal).as(description + " subtotal").isEqualByComparingTo(invoice.getSubtotal());
+            assertThat(storedTax).as(description + " tax").isEqualByComparingTo(invoice.getTaxAmount());
+            assertThat(storedTotal).as(description + " total").isEqualByComparingTo(invoice.getTotal());
+            if (invoice.getCgstAmount() != null) {
+                assertThat(storedCgst).as(description + " cgst").isEqualByComparingTo(invoice.getCgstAmount());
+            }
+            if (result != null) {
+                assertThat(result.total()).as(description + " result total").isEqualByComparingTo(invoice.getTotal());
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.billingapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Eviction follows access order, not insertion order, and loads happen only on a miss
+class LruCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        LruCache<String, Integer> cache = new LruCache<>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        // Reading "a" makes "b" the eldest
+        assertThat(cache.get("a")).isEqualTo(1);
+        cache.put("d", 4);
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("b")).isNull();
+
+        // Order is now c, a, d: overwriting "c" refreshes it, so "a" goes next
+        cache.put("c", 30);
+        cache.put("e", 5);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("c")).isEqualTo(30);
+        assertThat(cache.get("d")).isEqualTo(4);
+        assertThat(cache.get("e")).isEqualTo(5);
+    }
+
+    @Test
+    void computeIfAbsentLoadsOnlyOnAMissAndCountsHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.computeIfAbsent("a", key -> loads.incrementAndGet())).isEqualTo(1);
+        assertThat(cache.computeIfAbsent("a", key -> loads.incrementAndGet())).isEqualTo(1);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+
+        cache.computeIfAbsent("b", key -> loads.incrementAndGet());
+        cache.computeIfAbsent("c", key -> loads.incrementAndGet());
+        // "a" was evicted by "c", so asking again loads it again
+        assertThat(cache.computeIfAbsent("a", key -> loads.incrementAndGet())).isEqualTo(4);
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void zeroCapacityKeepsNothing() {
+        LruCache<String, Integer> cache = new LruCache<>(0);
+        cache.put("a", 1);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("a")).isNull();
+    }
+}
@@ -0,0 +1,218 @@
+package com.billingapp.service;
+
+import com.billingapp.metrics.BillingMetrics;
+import com.billingapp.model.OutboundEmail;
+import com.billingapp.repository.InvoiceRepository;
+import com.billingapp.repository.OutboundEmailRepository;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Drives the dispatcher against an in-process SMTP stand-in: one send(MimeMessage...) call is one session
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:maildispatcher;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "billing.search.directory=target/mail-dispatcher-search/",
+        "billing.pdf.directory=target/mail-dispatcher-pdf/",
+        // Keep the application's own dispatcher (and its real SMTP settings) out of the way
+        "billing.mail.poll-interval-ms=3600000"
+})
+class MailDispatcherTest {
+
+    @Autowired
+    private OutboundEmailRepository outboundEmailRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private PdfRenderService pdfRenderService;
+
+    @Autowired
+    private TaxRuleService taxRuleService;
+
+    @Autowired
+    private InvoiceEventLog invoiceEventLog;
+
+    @Autowired
+    private BillingMetrics billingMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmailService emailService;
+
+    private final StandInSmtp smtp = new StandInSmtp();
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void clearQueue() {
+        outboundEmailRepository.deleteAll();
+    }
+
+    @AfterEach
+    void stopDispatcher() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void dueMessagesAreSentInSessionsOfAtMostMessagesPerConnection() {
+        dispatcher = dispatcher(2, 2, 8, Duration.ofSeconds(30));
+        for (int i = 1; i <= 5; i++) {
+            queue("customer" + i + "@example.com");
+        }
+
+        // Two free connections claim 2 x 2 messages; the fifth waits for the next poll
+        dispatchAndWait();
+        assertThat(smtp.sessions).extracting(List::size).containsExactlyInAnyOrder(2, 2);
+        assertThat(outboundEmailRepository.countByStatus(OutboundEmail.Status.PENDING)).isEqualTo(1);
+
+        dispatchAndWait();
+        assertThat(smtp.sessions).extracting(List::size).containsExactlyInAnyOrder(2, 2, 1);
+        assertThat(smtp.sessions.stream().flatMap(List::stream).distinct()).hasSize(5);
+        assertThat(outboundEmailRepository.countByStatus(OutboundEmail.Status.SENT)).isEqualTo(5);
+    }
+
+    @Test
+    void connectionFailureIsRetriedWithExponentialBackoff() {
+        Duration base = Duration.ofSeconds(10);
+        dispatcher = dispatcher(1, 20, 8, base);
+        Long id = queue("customer@example.com").getId();
+
+        smtp.failConnections = 1;
+        Instant before = Instant.now();
+        dispatchAndWait();
+        OutboundEmail failed = outboundEmailRepository.findById(id).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(OutboundEmail.Status.PENDING);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).contains("connection refused");
+        // First retry waits the base backoff plus at most 20% jitter
+        assertThat(failed.getNextAttemptAt()).isBetween(before.plus(base), Instant.now().plus(base.multipliedBy(6).dividedBy(5)));
+
+        // Not due yet: the next poll leaves it alone
+        dispatchAndWait();
+        assertThat(smtp.sessions).isEmpty();
+
+        makeDue(id);
+        dispatchAndWait();
+        OutboundEmail sent = outboundEmailRepository.findById(id).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(OutboundEmail.Status.SENT);
+        assertThat(sent.getAttempts()).isEqualTo(2);
+        assertThat(sent.getLastError()).isNull();
+        assertThat(smtp.sessions).containsExactly(List.of("customer@example.com"));
+    }
+
+    @Test
+    void rejectedRecipientIsParkedAsFailedAfterMaxAttemptsWithoutHoldingUpItsSession() {
+        dispatcher = dispatcher(1, 20, 2, Duration.ofSeconds(30));
+        Long good = queue("customer@example.com").getId();
+        Long bad = queue("nobody@invalid.example").getId();
+        smtp.rejected.add("nobody@invalid.example");
+
+        dispatchAndWait();
+        assertThat(outboundEmailRepository.findById(good).orElseThrow().getStatus()).isEqualTo(OutboundEmail.Status.SENT);
+        assertThat(outboundEmailRepository.findById(bad).orElseThrow().getStatus()).isEqualTo(OutboundEmail.Status.PENDING);
+
+        makeDue(bad);
+        dispatchAndWait();
+        OutboundEmail parked = outboundEmailRepository.findById(bad).orElseThrow();
+        assertThat(parked.getStatus()).isEqualTo(OutboundEmail.Status.FAILED);
+        assertThat(parked.getAttempts()).isEqualTo(2);
+        assertThat(parked.getLastError()).contains("550");
+
+        // Parked rows are never claimed again
+        makeDue(bad);
+        dispatchAndWait();
+        assertThat(smtp.sessions).hasSize(2);
+        assertThat(outboundEmailRepository.findById(good).orElseThrow().getAttempts()).isEqualTo(1);
+    }
+
+    private MailDispatcher dispatcher(int maxConnections, int messagesPerConnection, int maxAttempts, Duration baseBackoff) {
+        return new MailDispatcher(outboundEmailRepository, invoiceRepository, pdfRenderService, taxRuleService,
+                invoiceEventLog, smtp, billingMetrics, transactionManager, maxConnections, messagesPerConnection,
+                maxAttempts, baseBackoff, Duration.ofHours(1));
+    }
+
+    private OutboundEmail queue(String recipient) {
+        return emailService.sendInvoiceEmail(recipient, "Reminder", "<p>Your invoice is due</p>");
+    }
+
+    private void makeDue(Long id) {
+        OutboundEmail email = outboundEmailRepository.findById(id).orElseThrow();
+        email.setNextAttemptAt(Instant.now().minusSeconds(1));
+        outboundEmailRepository.save(email);
+    }
+
+    // Batches run on the dispatcher's SMTP threads; each holds a connection permit until its outcome is stored
+    private void dispatchAndWait() {
+        dispatcher.dispatch();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (dispatcher.activeConnections() > 0) {
+            assertThat(System.nanoTime()).as("batches still running").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    // Records the recipients of every session; can refuse whole connections or single recipients (550)
+    private static class StandInSmtp extends JavaMailSenderImpl {
+        final List<List<String>> sessions = new CopyOnWriteArrayList<>();
+        final Set<String> rejected = ConcurrentHashMap.newKeySet();
+        volatile int failConnections;
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            if (failConnections > 0) {
+                failConnections--;
+                throw new MailSendException("connection refused");
+            }
+            List<String> delivered = new ArrayList<>();
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (MimeMessage message : mimeMessages) {
+                String recipient = recipient(message);
+                if (rejected.contains(recipient)) {
+                    failed.put(message, new MessagingException("550 mailbox unavailable: " + recipient));
+                } else {
+                    delivered.add(recipient);
+                }
+            }
+            sessions.add(delivered);
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+
+        private static String recipient(MimeMessage message) {
+            try {
+                Address[] to = message.getAllRecipients();
+                return to[0].toString();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.billingapp.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hand-written PNG must decode, through a standard reader, to exactly the BitMatrix it came from
+class MonochromePngEncoderTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    void qrCodeDecodesPixelForPixel() throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode("upi://pay?pa=payee@upi&am=1180.00&cu=INR",
+                BarcodeFormat.QR_CODE, QrCodeGeneratorService.PAYMENT_QR_SIZE, QrCodeGeneratorService.PAYMENT_QR_SIZE);
+
+        assertMatches(matrix, decode(MonochromePngEncoder.encode(matrix)));
+    }
+
+    @Test
+    void widthsThatDoNotFillTheLastByteArePaddedWithoutBleedingIntoTheImage() throws Exception {
+        // 13 pixels per row leaves 3 padding bits in the second byte of every scanline
+        BitMatrix matrix = new BitMatrix(13, 7);
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if ((x * 7 + y * 3) % 5 < 2 || x == matrix.getWidth() - 1) {
+                    matrix.set(x, y);
+                }
+            }
+        }
+
+        assertMatches(matrix, decode(MonochromePngEncoder.encode(matrix)));
+    }
+
+    @Test
+    void blankAndSolidMatricesRoundTrip() throws Exception {
+        BitMatrix blank = new BitMatrix(9, 9);
+        BitMatrix solid = new BitMatrix(9, 9);
+        solid.setRegion(0, 0, 9, 9);
+
+        assertMatches(blank, decode(MonochromePngEncoder.encode(blank)));
+        assertMatches(solid, decode(MonochromePngEncoder.encode(solid)));
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertThat(image).as("ImageIO could not read the PNG").isNotNull();
+        return image;
+    }
+
+    private static void assertMatches(BitMatrix matrix, BufferedImage image) {
+        assertThat(image.getWidth()).isEqualTo(matrix.getWidth());
+        assertThat(image.getHeight()).isEqualTo(matrix.getHeight());
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                assertThat(image.getRGB(x, y)).as("pixel (%d, %d)", x, y).isEqualTo(matrix.get(x, y) ? BLACK : WHITE);
+            }
+        }
+    }
+}
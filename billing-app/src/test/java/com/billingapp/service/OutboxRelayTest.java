@@ -0,0 +1,229 @@
+package com.billingapp.service;
+
+import com.billingapp.model.InvoiceEvent;
+import com.billingapp.repository.EventConsumerCursorRepository;
+import com.billingapp.repository.InvoiceEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Events committed out of id order must still reach every consumer exactly once and in id order.
+// Consumers record what they saw only when the delivery transaction commits, as a transactional
+// consumer's side effects would.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxrelay;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "billing.search.directory=target/outbox-relay-search/",
+        "billing.pdf.directory=target/outbox-relay-pdf/"
+})
+class OutboxRelayTest {
+    private static final AtomicInteger NODES = new AtomicInteger();
+
+    @Autowired
+    private InvoiceEventRepository invoiceEventRepository;
+
+    @Autowired
+    private EventConsumerCursorRepository cursorRepository;
+
+    @Autowired
+    private InvoiceEventLog invoiceEventLog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private RecordingConsumer first;
+    private RecordingConsumer second;
+    private OutboxRelay relay;
+    private String nodeId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        first = new RecordingConsumer("first");
+        second = new RecordingConsumer("second");
+        // A fresh node per test starts its cursors at the present; a small batch makes holes span batches
+        nodeId = "relay-test-" + NODES.incrementAndGet();
+        relay = new OutboxRelay(invoiceEventRepository, cursorRepository, invoiceEventLog, List.of(first, second),
+                transactionManager, nodeId, 3, Duration.ofHours(1));
+        relay.relay();
+    }
+
+    @Test
+    void openTransactionHoldsTheCursorBackUntilItCommitsThenEverythingIsDeliveredInOrder() throws Exception {
+        OpenTransaction slow = OpenTransaction.start(tx, invoiceEventLog, invoiceEventRepository, 1L);
+        long fast1 = commit(2L);
+        long fast2 = commit(3L);
+        assertThat(slow.id()).isLessThan(fast1);
+
+        // Later ids are visible, but the slow one is still open: nothing may go out past it
+        relay.relay();
+        relay.relay();
+        assertThat(first.seen).isEmpty();
+        assertThat(second.seen).isEmpty();
+        assertThat(cursor(first)).isLessThan(slow.id());
+
+        // It commits below the high-water mark and is delivered first, not skipped
+        slow.commit();
+        relay.relay();
+        assertThat(first.seen).containsExactly(slow.id(), fast1, fast2);
+        assertThat(second.seen).containsExactly(slow.id(), fast1, fast2);
+
+        relay.relay();
+        assertThat(first.seen).containsExactly(slow.id(), fast1, fast2);
+    }
+
+    @Test
+    void rolledBackIdsArePassedWithoutWaitingForTheGapTimeout() {
+        List<Long> expected = new ArrayList<>();
+        expected.add(commit(10L));
+        rollBack(11L);
+        expected.add(commit(12L));
+        rollBack(13L);
+        rollBack(14L);
+        for (long invoiceId = 15; invoiceId < 22; invoiceId++) {
+            expected.add(commit(invoiceId));
+        }
+
+        relay.relay();
+
+        assertThat(first.seen).containsExactlyElementsOf(expected);
+        assertThat(second.seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void batchThatFailsIsRedeliveredAndItsEffectsAppearOnce() {
+        List<Long> expected = new ArrayList<>();
+        for (long invoiceId = 30; invoiceId < 38; invoiceId++) {
+            expected.add(commit(invoiceId));
+        }
+        // The second consumer dies part-way through the batch holding the fifth event
+        second.crashOn.set(expected.get(4));
+
+        relay.relay();
+        assertThat(first.seen).containsExactlyElementsOf(expected);
+        assertThat(second.seen).containsExactlyElementsOf(expected.subList(0, 3));
+        assertThat(cursorRepository.findById(cursorName(second)).orElseThrow().getLastError()).contains("crash");
+
+        relay.relay();
+        assertThat(second.seen).containsExactlyElementsOf(expected);
+        assertThat(second.deliveries.get()).isGreaterThan(first.deliveries.get());
+        assertThat(first.seen).containsExactlyElementsOf(expected);
+    }
+
+    private long commit(Long invoiceId) {
+        return tx.execute(status -> append(invoiceEventLog, invoiceEventRepository, invoiceId));
+    }
+
+    private void rollBack(Long invoiceId) {
+        tx.executeWithoutResult(status -> {
+            append(invoiceEventLog, invoiceEventRepository, invoiceId);
+            status.setRollbackOnly();
+        });
+    }
+
+    // Appends an event and returns its id; the query flushes the insert within the caller's transaction
+    private static long append(InvoiceEventLog log, InvoiceEventRepository repository, Long invoiceId) {
+        log.email(invoiceId, InvoiceEvent.Type.EMAIL_QUEUED, "outbox test");
+        List<InvoiceEvent> events = repository.findByInvoiceIdOrderByCreatedAtAscIdAsc(invoiceId);
+        return events.get(events.size() - 1).getId();
+    }
+
+    private long cursor(RecordingConsumer consumer) {
+        return cursorRepository.findById(cursorName(consumer)).orElseThrow().getLastEventId();
+    }
+
+    private String cursorName(RecordingConsumer consumer) {
+        return nodeId + ":" + consumer.consumerName();
+    }
+
+    // An event whose transaction stays open on another thread until commit() is called
+    private static final class OpenTransaction {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicLong id = new AtomicLong();
+        private CompletableFuture<Void> done;
+
+        static OpenTransaction start(TransactionTemplate tx, InvoiceEventLog log, InvoiceEventRepository repository,
+                                     Long invoiceId) throws InterruptedException {
+            OpenTransaction open = new OpenTransaction();
+            CountDownLatch appended = new CountDownLatch(1);
+            open.done = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+                open.id.set(append(log, repository, invoiceId));
+                appended.countDown();
+                try {
+                    open.release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertThat(appended.await(10, TimeUnit.SECONDS)).isTrue();
+            return open;
+        }
+
+        long id() {
+            return id.get();
+        }
+
+        void commit() throws Exception {
+            release.countDown();
+            done.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Records event ids when the delivery commits; can be told to fail on a given event once
+    private static final class RecordingConsumer implements InvoiceEventConsumer {
+        final List<Long> seen = new CopyOnWriteArrayList<>();
+        final AtomicReference<Long> crashOn = new AtomicReference<>();
+        final AtomicInteger deliveries = new AtomicInteger();
+        private final String name;
+
+        RecordingConsumer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String consumerName() {
+            return name;
+        }
+
+        @Override
+        public void handle(List<InvoiceEvent> events) {
+            deliveries.incrementAndGet();
+            List<Long> ids = new ArrayList<>();
+            for (InvoiceEvent event : events) {
+                if (event.getId().equals(crashOn.get())) {
+                    crashOn.set(null);
+                    throw new IllegalStateException("crash while handling event " + event.getId());
+                }
+                ids.add(event.getId());
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    seen.addAll(ids);
+                }
+            });
+        }
+    }
+}